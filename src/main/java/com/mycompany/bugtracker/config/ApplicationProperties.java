@@ -9,4 +9,468 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  * See {@link tech.jhipster.config.JHipsterProperties} for a good example.
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
-public class ApplicationProperties {}
+public class ApplicationProperties {
+
+    private final TicketEvents ticketEvents = new TicketEvents();
+
+    private final Outbox outbox = new Outbox();
+
+    private final MailQueue mailQueue = new MailQueue();
+
+    private final UserProvisioning userProvisioning = new UserProvisioning();
+
+    private final UserPurge userPurge = new UserPurge();
+
+    private final CascadeDeletion cascadeDeletion = new CascadeDeletion();
+
+    private final MultiGet multiGet = new MultiGet();
+
+    private final Batch batch = new Batch();
+
+    private final TicketSync ticketSync = new TicketSync();
+
+    public TicketEvents getTicketEvents() {
+        return ticketEvents;
+    }
+
+    public Outbox getOutbox() {
+        return outbox;
+    }
+
+    public MailQueue getMailQueue() {
+        return mailQueue;
+    }
+
+    public UserProvisioning getUserProvisioning() {
+        return userProvisioning;
+    }
+
+    public UserPurge getUserPurge() {
+        return userPurge;
+    }
+
+    public CascadeDeletion getCascadeDeletion() {
+        return cascadeDeletion;
+    }
+
+    public MultiGet getMultiGet() {
+        return multiGet;
+    }
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public TicketSync getTicketSync() {
+        return ticketSync;
+    }
+
+    public static class TicketEvents {
+
+        /**
+         * Number of most recent ticket change events which are kept, so subscribers can resume from a sequence number.
+         */
+        private int historySize = 1000;
+
+        /**
+         * Number of events buffered for each subscriber, before the oldest ones get dropped.
+         */
+        private int subscriberBufferSize = 256;
+
+        public int getHistorySize() {
+            return historySize;
+        }
+
+        public void setHistorySize(int historySize) {
+            this.historySize = historySize;
+        }
+
+        public int getSubscriberBufferSize() {
+            return subscriberBufferSize;
+        }
+
+        public void setSubscriberBufferSize(int subscriberBufferSize) {
+            this.subscriberBufferSize = subscriberBufferSize;
+        }
+    }
+
+    public static class Outbox {
+
+        /**
+         * Delay in milliseconds between two runs of the relay.
+         */
+        private long relayDelayMs = 1000;
+
+        /**
+         * Maximum number of events read and published at once.
+         */
+        private int batchSize = 500;
+
+        /**
+         * Duration in milliseconds a relay holds the events it claimed. The events it hasn't published by then, for
+         * instance because its instance stopped, are relayed again.
+         */
+        private long claimDurationMs = 60000;
+
+        /**
+         * Duration in milliseconds the published events are kept, for the instances which read the ticket events from
+         * the outbox. An instance which falls further behind misses the events deleted in the meantime.
+         */
+        private long retentionMs = 600000;
+
+        private final FileSink fileSink = new FileSink();
+
+        public long getRelayDelayMs() {
+            return relayDelayMs;
+        }
+
+        public void setRelayDelayMs(long relayDelayMs) {
+            this.relayDelayMs = relayDelayMs;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public long getClaimDurationMs() {
+            return claimDurationMs;
+        }
+
+        public void setClaimDurationMs(long claimDurationMs) {
+            this.claimDurationMs = claimDurationMs;
+        }
+
+        public long getRetentionMs() {
+            return retentionMs;
+        }
+
+        public void setRetentionMs(long retentionMs) {
+            this.retentionMs = retentionMs;
+        }
+
+        public FileSink getFileSink() {
+            return fileSink;
+        }
+
+        public static class FileSink {
+
+            private boolean enabled = false;
+
+            /**
+             * File the events are appended to, as newline delimited JSON.
+             */
+            private String path = "outbox-events.ndjson";
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public String getPath() {
+                return path;
+            }
+
+            public void setPath(String path) {
+                this.path = path;
+            }
+        }
+    }
+
+    public static class MailQueue {
+
+        /**
+         * Delay in milliseconds between two deliveries of the queued mails.
+         */
+        private long deliveryDelayMs = 5000;
+
+        /**
+         * Maximum number of mails read from the queue at once.
+         */
+        private int batchSize = 200;
+
+        /**
+         * Maximum number of mails sent over a single SMTP connection.
+         */
+        private int messagesPerConnection = 50;
+
+        /**
+         * Number of SMTP connections used in parallel.
+         */
+        private int workers = 4;
+
+        /**
+         * Number of delivery attempts, before a mail is given up.
+         */
+        private int maxAttempts = 5;
+
+        /**
+         * Delay in milliseconds before the first retry, doubled on each following retry.
+         */
+        private long initialBackoffMs = 30000;
+
+        /**
+         * Maximum delay in milliseconds between two retries.
+         */
+        private long maxBackoffMs = 3600000;
+
+        /**
+         * Duration in milliseconds an instance holds the mails it claimed for delivery. The mails it hasn't delivered nor
+         * rescheduled by then, for instance because it stopped, are delivered again.
+         */
+        private long claimDurationMs = 600000;
+
+        public long getDeliveryDelayMs() {
+            return deliveryDelayMs;
+        }
+
+        public void setDeliveryDelayMs(long deliveryDelayMs) {
+            this.deliveryDelayMs = deliveryDelayMs;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getMessagesPerConnection() {
+            return messagesPerConnection;
+        }
+
+        public void setMessagesPerConnection(int messagesPerConnection) {
+            this.messagesPerConnection = messagesPerConnection;
+        }
+
+        public int getWorkers() {
+            return workers;
+        }
+
+        public void setWorkers(int workers) {
+            this.workers = workers;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public long getInitialBackoffMs() {
+            return initialBackoffMs;
+        }
+
+        public void setInitialBackoffMs(long initialBackoffMs) {
+            this.initialBackoffMs = initialBackoffMs;
+        }
+
+        public long getMaxBackoffMs() {
+            return maxBackoffMs;
+        }
+
+        public void setMaxBackoffMs(long maxBackoffMs) {
+            this.maxBackoffMs = maxBackoffMs;
+        }
+
+        public long getClaimDurationMs() {
+            return claimDurationMs;
+        }
+
+        public void setClaimDurationMs(long claimDurationMs) {
+            this.claimDurationMs = claimDurationMs;
+        }
+
+        public long getRetentionMs() {
+            return retentionMs;
+        }
+
+        public void setRetentionMs(long retentionMs) {
+            this.retentionMs = retentionMs;
+        }
+    }
+
+    public static class UserProvisioning {
+
+        /**
+         * Maximum number of users inserted at once, in a single transaction.
+         */
+        private int batchSize = 500;
+
+        /**
+         * Number of passwords hashed in parallel.
+         */
+        private int hashingParallelism = Runtime.getRuntime().availableProcessors();
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getHashingParallelism() {
+            return hashingParallelism;
+        }
+
+        public void setHashingParallelism(int hashingParallelism) {
+            this.hashingParallelism = hashingParallelism;
+        }
+    }
+
+    public static class UserPurge {
+
+        /**
+         * Number of days after which the users which were not activated are deleted.
+         */
+        private int retentionDays = 3;
+
+        /**
+         * Maximum number of users deleted at once, in a single transaction.
+         */
+        private int batchSize = 1000;
+
+        /**
+         * Pause between two batches, so that the replicas can catch up.
+         */
+        private long pauseMs = 500;
+
+        public int getRetentionDays() {
+            return retentionDays;
+        }
+
+        public void setRetentionDays(int retentionDays) {
+            this.retentionDays = retentionDays;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public long getPauseMs() {
+            return pauseMs;
+        }
+
+        public void setPauseMs(long pauseMs) {
+            this.pauseMs = pauseMs;
+        }
+    }
+
+    public static class CascadeDeletion {
+
+        /**
+         * Maximum number of tickets detached or deleted at once, in a single transaction.
+         */
+        private int chunkSize = 1000;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    public static class MultiGet {
+
+        /**
+         * Maximum number of entities which can be read at once by their ids or logins.
+         */
+        private int maxSize = 100;
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+
+    public static class Batch {
+
+        /**
+         * Maximum number of requests in a batch.
+         */
+        private int maxSize = 20;
+
+        /**
+         * Maximum number of requests of a batch which are handled at the same time.
+         */
+        private int concurrency = 4;
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+        }
+    }
+
+    public static class TicketSync {
+
+        /**
+         * Number of days the tombstones of the deleted tickets are kept. A client which hasn't synced the tickets for
+         * longer has to sync them again from the start.
+         */
+        private int tombstoneRetentionDays = 30;
+
+        /**
+         * Maximum number of tombstones deleted at once, in a single transaction.
+         */
+        private int purgeBatchSize = 1000;
+
+        /**
+         * Pause between two batches of tombstones, so that the replicas can catch up.
+         */
+        private long purgePauseMs = 500;
+
+        public int getTombstoneRetentionDays() {
+            return tombstoneRetentionDays;
+        }
+
+        public void setTombstoneRetentionDays(int tombstoneRetentionDays) {
+            this.tombstoneRetentionDays = tombstoneRetentionDays;
+        }
+
+        public int getPurgeBatchSize() {
+            return purgeBatchSize;
+        }
+
+        public void setPurgeBatchSize(int purgeBatchSize) {
+            this.purgeBatchSize = purgeBatchSize;
+        }
+
+        public long getPurgePauseMs() {
+            return purgePauseMs;
+        }
+
+        public void setPurgePauseMs(long purgePauseMs) {
+            this.purgePauseMs = purgePauseMs;
+        }
+    }
+}
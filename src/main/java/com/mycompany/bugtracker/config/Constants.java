@@ -11,5 +11,9 @@ public final class Constants {
     public static final String SYSTEM = "system";
     public static final String DEFAULT_LANGUAGE = "en";
 
+    // Binary JSON media types, for the clients reading many entities
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    public static final String APPLICATION_SMILE_STREAM_VALUE = "application/stream+x-jackson-smile";
+
     private Constants() {}
 }
@@ -1,5 +1,6 @@
 package com.mycompany.bugtracker.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import io.r2dbc.spi.ConnectionFactory;
 import java.sql.SQLException;
 import java.time.Duration;
@@ -32,6 +33,8 @@ import org.springframework.data.r2dbc.query.UpdateMapper;
 import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
 import org.springframework.data.relational.core.dialect.RenderContextFactory;
 import org.springframework.data.relational.core.sql.render.SqlRenderer;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.transaction.ReactiveTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 import tech.jhipster.config.JHipsterConstants;
 import tech.jhipster.config.h2.H2ConfigurationHelper;
@@ -124,6 +127,18 @@ public class DatabaseConfiguration {
         );
     }
 
+    /**
+     * The R2DBC transaction manager, timing the transactions it begins.
+     *
+     * @param connectionFactory the connection factory.
+     * @param meterRegistry the registry of the transaction timers.
+     * @return the transaction manager.
+     */
+    @Bean
+    public ReactiveTransactionManager transactionManager(ConnectionFactory connectionFactory, MeterRegistry meterRegistry) {
+        return new MeteredReactiveTransactionManager(new R2dbcTransactionManager(connectionFactory), meterRegistry);
+    }
+
     @Bean
     public R2dbcDialect dialect(ConnectionFactory connectionFactory) {
         return DialectResolver.getDialect(connectionFactory);
@@ -1,9 +1,30 @@
 package com.mycompany.bugtracker.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.mycompany.bugtracker.domain.Label;
+import com.mycompany.bugtracker.domain.Project;
+import com.mycompany.bugtracker.domain.Ticket;
+import com.mycompany.bugtracker.service.dto.AdminUserDTO;
+import com.mycompany.bugtracker.service.dto.LabelUsageDTO;
+import com.mycompany.bugtracker.service.dto.ProjectSummaryDTO;
+import com.mycompany.bugtracker.service.dto.TicketSummaryDTO;
+import com.mycompany.bugtracker.service.dto.TicketSyncDTO;
+import com.mycompany.bugtracker.service.dto.UserDTO;
+import java.util.Set;
+import org.springframework.boot.web.codec.CodecCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.zalando.problem.ProblemModule;
 import org.zalando.problem.violations.ConstraintViolationProblemModule;
 
@@ -24,6 +45,58 @@ public class JacksonConfiguration {
         return new Jdk8Module();
     }
 
+    /*
+     * Module generating the accessors of the properties as lambdas, instead of calling them by reflection.
+     */
+    @Bean
+    public BlackbirdModule blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+    /**
+     * Encoder writing the entities and DTOs of the API straight into the response buffers, applied after the
+     * customizer of Spring Boot which sets the default encoder.
+     * @param objectMapper the mapper of the application.
+     * @return the customizer of the codecs.
+     */
+    @Bean
+    @Order(1)
+    public CodecCustomizer pooledJacksonCodecCustomizer(ObjectMapper objectMapper) {
+        PooledJackson2JsonEncoder encoder = new PooledJackson2JsonEncoder(
+            objectMapper,
+            Set.of(
+                Ticket.class,
+                Project.class,
+                Label.class,
+                TicketSummaryDTO.class,
+                TicketSyncDTO.class,
+                ProjectSummaryDTO.class,
+                LabelUsageDTO.class,
+                AdminUserDTO.class,
+                UserDTO.class
+            )
+        );
+        return configurer -> configurer.defaultCodecs().jackson2JsonEncoder(encoder);
+    }
+
+    /**
+     * Smile and CBOR codecs, for the clients which read or write many entities, with mappers configured as the JSON one.
+     * Smile can also be streamed, as {@value Constants#APPLICATION_SMILE_STREAM_VALUE}.
+     * @param objectMapperBuilder the builder of the mappers of the application.
+     * @return the customizer of the codecs.
+     */
+    @Bean
+    public CodecCustomizer binaryJacksonCodecCustomizer(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        ObjectMapper smileMapper = objectMapperBuilder.factory(new SmileFactory()).build();
+        ObjectMapper cborMapper = objectMapperBuilder.factory(new CBORFactory()).build();
+        return configurer -> {
+            configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper));
+            configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper));
+            configurer.customCodecs().register(new Jackson2CborEncoder(cborMapper));
+            configurer.customCodecs().register(new Jackson2CborDecoder(cborMapper));
+        };
+    }
+
     /*
      * Module for serialization/deserialization of RFC7807 Problem.
      */
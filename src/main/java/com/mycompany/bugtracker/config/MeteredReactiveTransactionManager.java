@@ -0,0 +1,118 @@
+package com.mycompany.bugtracker.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import org.springframework.transaction.ReactiveTransaction;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Transaction manager which times the transactions it begins, from their start to their commit or rollback.
+ * <p>
+ * The transactions are timed per name, which is the class and method of a {@code @Transactional} method, and per
+ * outcome. Joining an existing transaction, or running without one, is not timed.
+ */
+public class MeteredReactiveTransactionManager implements ReactiveTransactionManager {
+
+    private static final String METRIC_NAME = "db.transactions";
+
+    private static final String UNNAMED = "unnamed";
+
+    private final ReactiveTransactionManager delegate;
+
+    private final MeterRegistry meterRegistry;
+
+    public MeteredReactiveTransactionManager(ReactiveTransactionManager delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<ReactiveTransaction> getReactiveTransaction(TransactionDefinition definition) {
+        return delegate
+            .getReactiveTransaction(definition)
+            .map(transaction ->
+                transaction.isNewTransaction() ? new MeteredTransaction(transaction, getName(definition), System.nanoTime()) : transaction
+            );
+    }
+
+    @Override
+    public Mono<Void> commit(ReactiveTransaction transaction) {
+        if (!(transaction instanceof MeteredTransaction)) {
+            return delegate.commit(transaction);
+        }
+        MeteredTransaction metered = (MeteredTransaction) transaction;
+        return delegate
+            .commit(metered.delegate)
+            .doFinally(signal -> record(metered, signal == SignalType.ON_COMPLETE ? "commit" : "error"));
+    }
+
+    @Override
+    public Mono<Void> rollback(ReactiveTransaction transaction) {
+        if (!(transaction instanceof MeteredTransaction)) {
+            return delegate.rollback(transaction);
+        }
+        MeteredTransaction metered = (MeteredTransaction) transaction;
+        return delegate.rollback(metered.delegate).doFinally(signal -> record(metered, "rollback"));
+    }
+
+    private void record(MeteredTransaction transaction, String outcome) {
+        Timer
+            .builder(METRIC_NAME)
+            .description("Time from the start to the end of the database transactions")
+            .tag("name", transaction.name)
+            .tag("outcome", outcome)
+            .register(meterRegistry)
+            .record(System.nanoTime() - transaction.startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the name of a transaction without its package, e.g. {@code TicketResource.createTicket}.
+     */
+    private static String getName(TransactionDefinition definition) {
+        String name = definition == null ? null : definition.getName();
+        if (name == null) {
+            return UNNAMED;
+        }
+        int methodSeparator = name.lastIndexOf('.');
+        return methodSeparator < 0 ? name : name.substring(name.lastIndexOf('.', methodSeparator - 1) + 1);
+    }
+
+    private static class MeteredTransaction implements ReactiveTransaction {
+
+        private final ReactiveTransaction delegate;
+
+        private final String name;
+
+        private final long startNanos;
+
+        MeteredTransaction(ReactiveTransaction delegate, String name, long startNanos) {
+            this.delegate = delegate;
+            this.name = name;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public boolean isNewTransaction() {
+            return delegate.isNewTransaction();
+        }
+
+        @Override
+        public void setRollbackOnly() {
+            delegate.setRollbackOnly();
+        }
+
+        @Override
+        public boolean isRollbackOnly() {
+            return delegate.isRollbackOnly();
+        }
+
+        @Override
+        public boolean isCompleted() {
+            return delegate.isCompleted();
+        }
+    }
+}
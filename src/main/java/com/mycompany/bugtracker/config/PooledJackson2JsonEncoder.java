@@ -0,0 +1,94 @@
+package com.mycompany.bugtracker.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.exc.InvalidDefinitionException;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.CodecException;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.codec.json.Jackson2CodecSupport;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MimeType;
+
+/**
+ * JSON encoder which writes the entities and DTOs of the API, and the lists of them, straight into the response
+ * buffers.
+ * <p>
+ * The default encoder writes a value into a chain of byte arrays, joins them into one, then copies it into a buffer.
+ * This encoder writes the value into a buffer of the server pool, which grows as needed, so a large page of entities
+ * is neither copied nor held in an array of its size. The writers of the types, which hold their resolved serializers
+ * and the serialized names of their fields, are kept per type. The other values, and the values written with a JSON
+ * view, are left to the default encoder.
+ */
+public class PooledJackson2JsonEncoder extends Jackson2JsonEncoder {
+
+    private final Set<Class<?>> types;
+
+    private final Map<ResolvableType, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an encoder.
+     *
+     * @param objectMapper the mapper of the application.
+     * @param types the types written into the buffers, alone or in a collection.
+     */
+    public PooledJackson2JsonEncoder(ObjectMapper objectMapper, Set<Class<?>> types) {
+        super(objectMapper);
+        this.types = types;
+    }
+
+    @Override
+    public DataBuffer encodeValue(
+        Object value,
+        DataBufferFactory bufferFactory,
+        ResolvableType valueType,
+        @Nullable MimeType mimeType,
+        @Nullable Map<String, Object> hints
+    ) {
+        if (!isPooled(valueType, hints)) {
+            return super.encodeValue(value, bufferFactory, valueType, mimeType, hints);
+        }
+        ObjectWriter writer = writers.computeIfAbsent(valueType, type -> getObjectMapper().writerFor(getJavaType(type.getType(), null)));
+        writer = customizeWriter(writer, mimeType, valueType, hints);
+        DataBuffer buffer = bufferFactory.allocateBuffer();
+        boolean written = false;
+        try (JsonGenerator generator = writer.getFactory().createGenerator(buffer.asOutputStream(), getJsonEncoding(mimeType))) {
+            writer.writeValue(generator, value);
+            generator.flush();
+            written = true;
+        } catch (InvalidDefinitionException ex) {
+            throw new CodecException("Type definition error: " + ex.getType(), ex);
+        } catch (JsonProcessingException ex) {
+            throw new EncodingException("JSON encoding error: " + ex.getOriginalMessage(), ex);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unexpected I/O error while writing to data buffer", ex);
+        } finally {
+            if (!written) {
+                DataBufferUtils.release(buffer);
+            }
+        }
+        return buffer;
+    }
+
+    private boolean isPooled(ResolvableType valueType, @Nullable Map<String, Object> hints) {
+        if (hints != null && hints.containsKey(Jackson2CodecSupport.JSON_VIEW_HINT)) {
+            return false;
+        }
+        Class<?> type = valueType.resolve();
+        if (type != null && types.contains(type)) {
+            return true;
+        }
+        Class<?> elementType = valueType.asCollection().getGeneric().resolve();
+        return elementType != null && types.contains(elementType);
+    }
+}
@@ -1,6 +1,7 @@
 package com.mycompany.bugtracker.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mycompany.bugtracker.web.filter.ConditionalGetWebFilter;
 import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -89,6 +90,20 @@ public class WebConfigurer implements WebFluxConfigurer {
         return registration -> registration.setCacheControl(null);
     }
 
+    @Bean
+    public ConditionalGetWebFilter conditionalGetWebFilter() {
+        // Answers the conditional requests of the small resources of the API, while the filter below caches the static assets
+        return new ConditionalGetWebFilter(
+            "/api/projects",
+            "/api/projects/{id}",
+            "/api/projects/summaries",
+            "/api/labels",
+            "/api/labels/{id}",
+            "/api/labels/usages",
+            "/api/labels/usages/top"
+        );
+    }
+
     @Bean
     @Profile(JHipsterConstants.SPRING_PROFILE_PRODUCTION)
     public CachingHttpHeadersFilter cachingHttpHeadersFilter() {
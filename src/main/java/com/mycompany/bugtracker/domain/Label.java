@@ -2,6 +2,7 @@ package com.mycompany.bugtracker.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import java.io.Serializable;
+import java.time.Instant;
 import java.util.HashSet;
 import java.util.Set;
 import javax.validation.constraints.*;
@@ -26,6 +27,9 @@ public class Label implements Serializable {
     @Column("label")
     private String label;
 
+    @Column("last_modified_date")
+    private Instant lastModifiedDate;
+
     @Transient
     @JsonIgnoreProperties(value = { "project", "assignedTo", "labels" }, allowSetters = true)
     private Set<Ticket> tickets = new HashSet<>();
@@ -58,6 +62,19 @@ public class Label implements Serializable {
         this.label = label;
     }
 
+    public Instant getLastModifiedDate() {
+        return this.lastModifiedDate;
+    }
+
+    public Label lastModifiedDate(Instant lastModifiedDate) {
+        this.setLastModifiedDate(lastModifiedDate);
+        return this;
+    }
+
+    public void setLastModifiedDate(Instant lastModifiedDate) {
+        this.lastModifiedDate = lastModifiedDate;
+    }
+
     public Set<Ticket> getTickets() {
         return this.tickets;
     }
@@ -79,13 +96,13 @@ public class Label implements Serializable {
 
     public Label addTicket(Ticket ticket) {
         this.tickets.add(ticket);
-        ticket.getLabels().add(this);
+        ticket.addLabel(this);
         return this;
     }
 
     public Label removeTicket(Ticket ticket) {
         this.tickets.remove(ticket);
-        ticket.getLabels().remove(this);
+        ticket.removeLabel(this);
         return this;
     }
 
@@ -114,6 +131,7 @@ public class Label implements Serializable {
         return "Label{" +
             "id=" + getId() +
             ", label='" + getLabel() + "'" +
+            ", lastModifiedDate='" + getLastModifiedDate() + "'" +
             "}";
     }
 }
@@ -0,0 +1,129 @@
+package com.mycompany.bugtracker.domain;
+
+import com.carrotsearch.hppc.LongHashSet;
+import com.carrotsearch.hppc.LongObjectHashMap;
+import com.carrotsearch.hppc.cursors.ObjectCursor;
+import com.carrotsearch.hppc.predicates.LongObjectPredicate;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.function.Predicate;
+
+/**
+ * The labels of a ticket, keyed by their primitive ids.
+ * <p>
+ * {@link Label#hashCode()} is the same for all the labels, so a {@link java.util.HashSet} of labels compares each
+ * added label with all the others. This set looks them up by id instead, in constant time. Its labels must have an id.
+ * <p>
+ * It is serialized as the list of its labels, as the map of the labels isn't serializable.
+ */
+public class LabelSet extends AbstractSet<Label> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private transient LongObjectHashMap<Label> labels = new LongObjectHashMap<>();
+
+    public LabelSet() {}
+
+    public LabelSet(Collection<Label> labels) {
+        addAll(labels);
+    }
+
+    /**
+     * Gets the ids of the labels.
+     *
+     * @return a new set of the ids.
+     */
+    public LongHashSet ids() {
+        return new LongHashSet(labels.keys());
+    }
+
+    @Override
+    public boolean add(Label label) {
+        if (label.getId() == null) {
+            throw new IllegalArgumentException("A label must be saved before it is set on a ticket");
+        }
+        if (labels.containsKey(label.getId())) {
+            return false;
+        }
+        labels.put(label.getId(), label);
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Label && ((Label) o).getId() != null && labels.remove(((Label) o).getId()) != null;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Label && ((Label) o).getId() != null && labels.containsKey(((Label) o).getId());
+    }
+
+    @Override
+    public int size() {
+        return labels.size();
+    }
+
+    @Override
+    public void clear() {
+        labels.clear();
+    }
+
+    /**
+     * Iterates over the labels of the map, without copying them. The labels cannot be removed through the iterator,
+     * since a removal moves the other labels of the map; {@link #removeIf}, {@link #removeAll} and {@link #retainAll}
+     * remove them from the map directly.
+     */
+    @Override
+    public Iterator<Label> iterator() {
+        Iterator<ObjectCursor<Label>> cursors = labels.values().iterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return cursors.hasNext();
+            }
+
+            @Override
+            public Label next() {
+                return cursors.next().value;
+            }
+        };
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super Label> filter) {
+        return labels.removeAll((LongObjectPredicate<Label>) (id, label) -> filter.test(label)) > 0;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        return removeIf(c::contains);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        return removeIf(label -> !c.contains(label));
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(labels.size());
+        for (ObjectCursor<Label> cursor : labels.values()) {
+            out.writeObject(cursor.value);
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        int size = in.readInt();
+        labels = new LongObjectHashMap<>(size);
+        for (int i = 0; i < size; i++) {
+            add((Label) in.readObject());
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.mycompany.bugtracker.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * A mail waiting in the queue to be delivered.
+ * <p>
+ * A mail which could not be delivered after the maximum number of attempts is kept, without a next attempt date.
+ */
+@Table("mail_message")
+public class MailMessage implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column("id")
+    private Long id;
+
+    @Column("recipient")
+    private String recipient;
+
+    @Column("subject")
+    private String subject;
+
+    @Column("content")
+    private String content;
+
+    @Column("multipart")
+    private Boolean multipart = false;
+
+    @Column("html")
+    private Boolean html = false;
+
+    @Column("attempts")
+    private Integer attempts = 0;
+
+    @Column("created_date")
+    private Instant createdDate = Instant.now();
+
+    @Column("next_attempt_date")
+    private Instant nextAttemptDate = createdDate;
+
+    @Column("last_error")
+    private String lastError;
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public MailMessage id(Long id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getRecipient() {
+        return this.recipient;
+    }
+
+    public MailMessage recipient(String recipient) {
+        this.setRecipient(recipient);
+        return this;
+    }
+
+    public void setRecipient(String recipient) {
+        this.recipient = recipient;
+    }
+
+    public String getSubject() {
+        return this.subject;
+    }
+
+    public MailMessage subject(String subject) {
+        this.setSubject(subject);
+        return this;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public String getContent() {
+        return this.content;
+    }
+
+    public MailMessage content(String content) {
+        this.setContent(content);
+        return this;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public Boolean getMultipart() {
+        return this.multipart;
+    }
+
+    public MailMessage multipart(Boolean multipart) {
+        this.setMultipart(multipart);
+        return this;
+    }
+
+    public void setMultipart(Boolean multipart) {
+        this.multipart = multipart;
+    }
+
+    public Boolean getHtml() {
+        return this.html;
+    }
+
+    public MailMessage html(Boolean html) {
+        this.setHtml(html);
+        return this;
+    }
+
+    public void setHtml(Boolean html) {
+        this.html = html;
+    }
+
+    public Integer getAttempts() {
+        return this.attempts;
+    }
+
+    public MailMessage attempts(Integer attempts) {
+        this.setAttempts(attempts);
+        return this;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
+    public Instant getNextAttemptDate() {
+        return this.nextAttemptDate;
+    }
+
+    public MailMessage nextAttemptDate(Instant nextAttemptDate) {
+        this.setNextAttemptDate(nextAttemptDate);
+        return this;
+    }
+
+    public void setNextAttemptDate(Instant nextAttemptDate) {
+        this.nextAttemptDate = nextAttemptDate;
+    }
+
+    public String getLastError() {
+        return this.lastError;
+    }
+
+    public MailMessage lastError(String lastError) {
+        this.setLastError(lastError);
+        return this;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public Instant getCreatedDate() {
+        return this.createdDate;
+    }
+
+    public MailMessage createdDate(Instant createdDate) {
+        this.setCreatedDate(createdDate);
+        return this;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MailMessage)) {
+            return false;
+        }
+        return id != null && id.equals(((MailMessage) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "MailMessage{" +
+            "id=" + getId() +
+            ", recipient='" + getRecipient() + "'" +
+            ", subject='" + getSubject() + "'" +
+            ", multipart='" + getMultipart() + "'" +
+            ", html='" + getHtml() + "'" +
+            ", attempts=" + getAttempts() +
+            ", nextAttemptDate='" + getNextAttemptDate() + "'" +
+            ", lastError='" + getLastError() + "'" +
+            ", createdDate='" + getCreatedDate() + "'" +
+            "}";
+    }
+}
@@ -1,6 +1,7 @@
 package com.mycompany.bugtracker.domain;
 
 import java.io.Serializable;
+import java.time.Instant;
 import javax.validation.constraints.*;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Transient;
@@ -23,6 +24,9 @@ public class Project implements Serializable {
     @Column("name")
     private String name;
 
+    @Column("last_modified_date")
+    private Instant lastModifiedDate;
+
     // jhipster-needle-entity-add-field - JHipster will add fields here
 
     public Long getId() {
@@ -51,6 +55,19 @@ public class Project implements Serializable {
         this.name = name;
     }
 
+    public Instant getLastModifiedDate() {
+        return this.lastModifiedDate;
+    }
+
+    public Project lastModifiedDate(Instant lastModifiedDate) {
+        this.setLastModifiedDate(lastModifiedDate);
+        return this;
+    }
+
+    public void setLastModifiedDate(Instant lastModifiedDate) {
+        this.lastModifiedDate = lastModifiedDate;
+    }
+
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
     @Override
@@ -76,6 +93,7 @@ public class Project implements Serializable {
         return "Project{" +
             "id=" + getId() +
             ", name='" + getName() + "'" +
+            ", lastModifiedDate='" + getLastModifiedDate() + "'" +
             "}";
     }
 }
@@ -1,12 +1,16 @@
 package com.mycompany.bugtracker.domain;
 
+import com.carrotsearch.hppc.LongHashSet;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import java.io.Serializable;
+import java.time.Instant;
 import java.time.LocalDate;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.Set;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Table;
 
@@ -34,6 +38,23 @@ public class Ticket implements Serializable {
     @Column("done")
     private Boolean done;
 
+    @Version
+    @Column("version")
+    private Long version;
+
+    /**
+     * The date of the last change of the ticket, set when it is saved.
+     */
+    @Column("last_modified_date")
+    private Instant lastModifiedDate;
+
+    /**
+     * The sync version of the last change of the ticket, set when it is saved. The versions are taken in the order
+     * the changes are committed, see {@code GET /api/tickets/changes}.
+     */
+    @Column("sync_version")
+    private Long syncVersion;
+
     @Transient
     private Project project;
 
@@ -42,7 +63,31 @@ public class Ticket implements Serializable {
 
     @Transient
     @JsonIgnoreProperties(value = { "tickets" }, allowSetters = true)
-    private Set<Label> labels = new HashSet<>();
+    private LabelSet labels = new LabelSet();
+
+    /**
+     * Snapshot of the label ids, as they were linked in the database when this ticket was loaded or saved.
+     * {@code null} if unknown, as after the ticket has been deserialized.
+     */
+    @Transient
+    @JsonIgnore
+    private transient LongHashSet persistedLabelIds;
+
+    /**
+     * Whether labels without an id have been given, typically in a request body. They are not kept, and the ticket is
+     * not valid.
+     */
+    @Transient
+    @JsonIgnore
+    private boolean unsavedLabelsGiven;
+
+    /**
+     * Whether the labels have been given, even empty, as opposed to left as they were created. A partial update only
+     * writes the labels of a ticket if they have been given.
+     */
+    @Transient
+    @JsonIgnore
+    private boolean labelsGiven;
 
     @Column("project_id")
     private Long projectId;
@@ -117,6 +162,45 @@ public class Ticket implements Serializable {
         this.done = done;
     }
 
+    public Long getVersion() {
+        return this.version;
+    }
+
+    public Ticket version(Long version) {
+        this.setVersion(version);
+        return this;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Instant getLastModifiedDate() {
+        return this.lastModifiedDate;
+    }
+
+    public Ticket lastModifiedDate(Instant lastModifiedDate) {
+        this.setLastModifiedDate(lastModifiedDate);
+        return this;
+    }
+
+    public void setLastModifiedDate(Instant lastModifiedDate) {
+        this.lastModifiedDate = lastModifiedDate;
+    }
+
+    public Long getSyncVersion() {
+        return this.syncVersion;
+    }
+
+    public Ticket syncVersion(Long syncVersion) {
+        this.setSyncVersion(syncVersion);
+        return this;
+    }
+
+    public void setSyncVersion(Long syncVersion) {
+        this.syncVersion = syncVersion;
+    }
+
     public Project getProject() {
         return this.project;
     }
@@ -150,7 +234,45 @@ public class Ticket implements Serializable {
     }
 
     public void setLabels(Set<Label> labels) {
-        this.labels = labels;
+        this.unsavedLabelsGiven = false;
+        if (labels instanceof LabelSet) {
+            this.labels = (LabelSet) labels;
+        } else {
+            this.labels = new LabelSet();
+            for (Label label : labels != null ? labels : Collections.<Label>emptySet()) {
+                if (label.getId() != null) {
+                    this.labels.add(label);
+                } else {
+                    this.unsavedLabelsGiven = true;
+                }
+            }
+        }
+        this.labelsGiven = true;
+    }
+
+    @JsonIgnore
+    public boolean isLabelsGiven() {
+        return this.labelsGiven;
+    }
+
+    /**
+     * Whether all the given labels have an id. The labels without one have been left out of {@link #getLabels()}.
+     *
+     * @return {@code false} if a label without an id has been given.
+     */
+    @JsonIgnore
+    public boolean isLabelsSaved() {
+        return !this.unsavedLabelsGiven;
+    }
+
+    /**
+     * Gets the ids of the labels.
+     *
+     * @return a new set of the ids.
+     */
+    @JsonIgnore
+    public LongHashSet getLabelIds() {
+        return this.labels.ids();
     }
 
     public Ticket labels(Set<Label> labels) {
@@ -158,18 +280,28 @@ public class Ticket implements Serializable {
         return this;
     }
 
+    // Label.tickets is not kept in sync: the labels are shared through the cache of LabelService, and their set of
+    // tickets, whose hash codes are all the same, would grow with every ticket labelled and be quadratic to fill
     public Ticket addLabel(Label label) {
         this.labels.add(label);
-        label.getTickets().add(this);
+        this.labelsGiven = true;
         return this;
     }
 
     public Ticket removeLabel(Label label) {
         this.labels.remove(label);
-        label.getTickets().remove(this);
+        this.labelsGiven = true;
         return this;
     }
 
+    public LongHashSet getPersistedLabelIds() {
+        return this.persistedLabelIds;
+    }
+
+    public void setPersistedLabelIds(LongHashSet persistedLabelIds) {
+        this.persistedLabelIds = persistedLabelIds;
+    }
+
     public Long getProjectId() {
         return this.projectId;
     }
@@ -214,6 +346,9 @@ public class Ticket implements Serializable {
             ", description='" + getDescription() + "'" +
             ", dueDate='" + getDueDate() + "'" +
             ", done='" + getDone() + "'" +
+            ", version=" + getVersion() +
+            ", lastModifiedDate='" + getLastModifiedDate() + "'" +
+            ", syncVersion=" + getSyncVersion() +
             "}";
     }
 }
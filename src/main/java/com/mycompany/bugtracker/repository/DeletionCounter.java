@@ -0,0 +1,39 @@
+package com.mycompany.bugtracker.repository;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+/**
+ * The number of the rows deleted from the tables of the entities shown with the tickets, which changes the
+ * fingerprint of the lists of the tickets, see {@link TicketRepository#findFingerprint()}. Their creations and updates
+ * change the last modification date of the table.
+ */
+final class DeletionCounter {
+
+    static final String PROJECT = "project";
+
+    static final String LABEL = "label";
+
+    static final String USER = "jhi_user";
+
+    private DeletionCounter() {}
+
+    /**
+     * Counts the rows deleted from a table, in the transaction of the deletion.
+     *
+     * @param db the database client.
+     * @param tableName the name of the table.
+     * @param deletions the number of deleted rows.
+     * @return a {@link Mono} which completes once the deletions are counted.
+     */
+    static Mono<Void> add(DatabaseClient db, String tableName, int deletions) {
+        if (deletions <= 0) {
+            return Mono.empty();
+        }
+        return db
+            .sql("UPDATE deletion_counter SET deletions = deletions + :deletions WHERE table_name = :tableName")
+            .bind("deletions", deletions)
+            .bind("tableName", tableName)
+            .then();
+    }
+}
@@ -0,0 +1,115 @@
+package com.mycompany.bugtracker.repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.relational.core.sql.Column;
+import org.springframework.data.relational.core.sql.Expression;
+import org.springframework.data.relational.core.sql.Expressions;
+import org.springframework.data.relational.core.sql.Table;
+
+/**
+ * The columns of the fields of an entity, so that only the columns of some of its fields are read.
+ * <p>
+ * The column of a field which is not read is selected as {@code NULL} under the same alias, so the row mappers read it
+ * as {@code null} without knowing which fields were selected.
+ */
+class FieldColumns {
+
+    private final Map<String, String> columns = new LinkedHashMap<>();
+
+    private final Map<String, String> aliases = new LinkedHashMap<>();
+
+    /**
+     * Adds a field, read from a column with the same alias.
+     */
+    FieldColumns add(String field, String column) {
+        return add(field, column, column);
+    }
+
+    /**
+     * Adds a field, read from a column with another alias.
+     */
+    FieldColumns add(String field, String column, String alias) {
+        columns.put(field, column);
+        aliases.put(field, alias);
+        return this;
+    }
+
+    /**
+     * Gets the names of the fields, in the order of their columns.
+     */
+    Set<String> getFields() {
+        return Collections.unmodifiableSet(columns.keySet());
+    }
+
+    /**
+     * Gets the columns of the given fields, and {@code NULL} for the others.
+     *
+     * @param table the table of the columns.
+     * @param columnPrefix the prefix of the aliases of the columns.
+     * @param fields the names of the fields to read, or {@code null} to read all of them.
+     * @return the columns.
+     */
+    List<Expression> getColumns(Table table, String columnPrefix, Set<String> fields) {
+        List<Expression> expressions = new ArrayList<>();
+        columns.forEach((field, column) -> {
+            String alias = columnPrefix + "_" + aliases.get(field);
+            if (fields == null || fields.contains(field)) {
+                expressions.add(Column.aliased(column, table, alias));
+            } else {
+                expressions.add(Expressions.just("NULL AS " + alias));
+            }
+        });
+        return expressions;
+    }
+
+    /**
+     * Renders the {@code ORDER BY}, {@code LIMIT} and {@code OFFSET} clauses of a page of rows sorted by the fields.
+     *
+     * @param tableAlias the alias of the table of the columns.
+     * @param pageable the page, sorted by field names, or {@code null} for all the rows.
+     * @return the clauses with a leading space, or an empty string for all the rows, unsorted.
+     * @throws IllegalArgumentException if the sort is by an unknown field.
+     */
+    String page(String tableAlias, Pageable pageable) {
+        if (pageable == null) {
+            return "";
+        }
+        StringBuilder page = new StringBuilder(orderBy(tableAlias, pageable.getSort()));
+        if (pageable.isPaged()) {
+            page.append(" LIMIT ").append(pageable.getPageSize()).append(" OFFSET ").append(pageable.getOffset());
+        }
+        return page.toString();
+    }
+
+    /**
+     * Renders the {@code ORDER BY} clause of a sort by the fields.
+     *
+     * @param tableAlias the alias of the table of the columns.
+     * @param sort the sort, by field names.
+     * @return the clause with a leading space, or an empty string if the sort is unsorted.
+     * @throws IllegalArgumentException if the sort is by an unknown field.
+     */
+    String orderBy(String tableAlias, Sort sort) {
+        if (sort == null || sort.isUnsorted()) {
+            return "";
+        }
+        StringBuilder orderBy = new StringBuilder(" ORDER BY ");
+        String separator = "";
+        for (Sort.Order order : sort) {
+            String column = columns.get(order.getProperty());
+            if (column == null) {
+                throw new IllegalArgumentException("Cannot sort by unknown field " + order.getProperty());
+            }
+            orderBy.append(separator).append(tableAlias).append('.').append(column).append(' ').append(order.getDirection().name());
+            separator = ", ";
+        }
+        return orderBy.toString();
+    }
+}
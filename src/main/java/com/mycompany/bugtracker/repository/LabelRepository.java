@@ -1,6 +1,8 @@
 package com.mycompany.bugtracker.repository;
 
 import com.mycompany.bugtracker.domain.Label;
+import com.mycompany.bugtracker.service.dto.LabelUsageDTO;
+import java.util.Set;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
@@ -15,6 +17,11 @@ import reactor.core.publisher.Mono;
 @SuppressWarnings("unused")
 @Repository
 public interface LabelRepository extends R2dbcRepository<Label, Long>, LabelRepositoryInternal {
+    /**
+     * The fields of a label which can be read without the others.
+     */
+    Set<String> SPARSE_FIELDS = Set.of("id", "label", "lastModifiedDate");
+
     // just to avoid having unambigous methods
     @Override
     Flux<Label> findAll();
@@ -24,6 +31,9 @@ public interface LabelRepository extends R2dbcRepository<Label, Long>, LabelRepo
 
     @Override
     <S extends Label> Mono<S> save(S entity);
+
+    @Override
+    Mono<Void> deleteById(Long id);
 }
 
 interface LabelRepositoryInternal {
@@ -31,8 +41,31 @@ interface LabelRepositoryInternal {
     <S extends Label> Mono<S> save(S entity);
     Mono<Integer> update(Label entity);
 
+    /**
+     * Deletes a label, and counts its deletion for the fingerprint of the tickets.
+     *
+     * @param id the id of the label.
+     * @return a {@link Mono} which completes once the label is deleted.
+     */
+    Mono<Void> deleteById(Long id);
+
     Flux<Label> findAll();
     Mono<Label> findById(Long id);
     Flux<Label> findAllBy(Pageable pageable);
     Flux<Label> findAllBy(Pageable pageable, Criteria criteria);
+
+    /**
+     * Finds all the labels, reading only the columns of the given fields. The other fields are left {@code null}.
+     *
+     * @param fields the names of the fields to read, among {@link LabelRepository#SPARSE_FIELDS}.
+     * @return the labels.
+     */
+    Flux<Label> findAllWithFields(Set<String> fields);
+
+    /**
+     * Finds all the labels with the number of tickets they are set on, counted by a single grouped query.
+     *
+     * @return the usages of the labels, in the order of their ids.
+     */
+    Flux<LabelUsageDTO> findAllUsages();
 }
@@ -6,18 +6,21 @@ import static org.springframework.data.relational.core.query.Query.query;
 import com.mycompany.bugtracker.domain.Label;
 import com.mycompany.bugtracker.repository.rowmapper.LabelRowMapper;
 import com.mycompany.bugtracker.service.EntityManager;
+import com.mycompany.bugtracker.service.dto.LabelUsageDTO;
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
-import java.util.ArrayList;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.relational.core.query.Criteria;
-import org.springframework.data.relational.core.sql.Column;
 import org.springframework.data.relational.core.sql.Expression;
 import org.springframework.data.relational.core.sql.Select;
 import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoin;
@@ -41,6 +44,11 @@ class LabelRepositoryInternalImpl implements LabelRepositoryInternal {
 
     private static final Table entityTable = Table.aliased("label", EntityManager.ENTITY_ALIAS);
 
+    /**
+     * The rendered selects of the labels, by the set of their fields which are read.
+     */
+    private final Map<Set<String>, String> selectsByFields = new ConcurrentHashMap<>();
+
     public LabelRepositoryInternalImpl(R2dbcEntityTemplate template, EntityManager entityManager, LabelRowMapper labelMapper) {
         this.db = template.getDatabaseClient();
         this.r2dbcEntityTemplate = template;
@@ -80,6 +88,17 @@ class LabelRepositoryInternalImpl implements LabelRepositoryInternal {
         return db.sql(selectWhere).map(this::process);
     }
 
+    @Override
+    public Flux<Label> findAllWithFields(Set<String> fields) {
+        String select = selectsByFields.computeIfAbsent(
+            Set.copyOf(fields),
+            key -> entityManager.createSelect(
+                Select.builder().select(LabelSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS, key)).from(entityTable).build()
+            )
+        );
+        return db.sql(select).map(this::process).all();
+    }
+
     @Override
     public Flux<Label> findAll() {
         return findAllBy(null, null);
@@ -90,6 +109,31 @@ class LabelRepositoryInternalImpl implements LabelRepositoryInternal {
         return createQuery(null, where("id").is(id)).one();
     }
 
+    @Override
+    public Flux<LabelUsageDTO> findAllUsages() {
+        // the links are counted per label first, from the (label_id, ticket_id) index only
+        return db
+            .sql(
+                "SELECT e.id AS e_id, e.label AS e_label, e.last_modified_date AS e_last_modified_date, counts.tickets" +
+                " FROM label e LEFT JOIN (" +
+                "SELECT label_id, COUNT(*) AS tickets FROM rel_ticket__label GROUP BY label_id" +
+                ") counts ON counts.label_id = e.id ORDER BY e.id"
+            )
+            .map((row, metadata) -> {
+                Number tickets = (Number) row.get("tickets");
+                return new LabelUsageDTO(process(row, metadata), tickets != null ? tickets.longValue() : 0L);
+            })
+            .all();
+    }
+
+    /**
+     * Gets the current date, truncated to the precision of the date columns, so that the dates read back match the
+     * stored ones.
+     */
+    private static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
     private Label process(Row row, RowMetadata metadata) {
         Label entity = labelMapper.apply(row, "e");
         return entity;
@@ -102,6 +146,7 @@ class LabelRepositoryInternalImpl implements LabelRepositoryInternal {
 
     @Override
     public <S extends Label> Mono<S> save(S entity) {
+        entity.setLastModifiedDate(now());
         if (entity.getId() == null) {
             return insert(entity);
         } else {
@@ -120,15 +165,32 @@ class LabelRepositoryInternalImpl implements LabelRepositoryInternal {
         //fixme is this the proper way?
         return r2dbcEntityTemplate.update(entity).thenReturn(1);
     }
+
+    @Override
+    public Mono<Void> deleteById(Long id) {
+        return r2dbcEntityTemplate
+            .delete(Label.class)
+            .matching(query(where("id").is(id)))
+            .all()
+            .flatMap(numberOfDeletes -> DeletionCounter.add(db, DeletionCounter.LABEL, numberOfDeletes));
+    }
 }
 
 class LabelSqlHelper {
 
+    static final FieldColumns FIELDS = new FieldColumns()
+        .add("id", "id")
+        .add("label", "label")
+        .add("lastModifiedDate", "last_modified_date");
+
     static List<Expression> getColumns(Table table, String columnPrefix) {
-        List<Expression> columns = new ArrayList<>();
-        columns.add(Column.aliased("id", table, columnPrefix + "_id"));
-        columns.add(Column.aliased("label", table, columnPrefix + "_label"));
+        return getColumns(table, columnPrefix, null);
+    }
 
-        return columns;
+    /**
+     * The columns of the given fields of a label, and {@code NULL} for the others.
+     */
+    static List<Expression> getColumns(Table table, String columnPrefix, Set<String> fields) {
+        return FIELDS.getColumns(table, columnPrefix, fields);
     }
 }
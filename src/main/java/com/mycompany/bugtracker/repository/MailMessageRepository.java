@@ -0,0 +1,88 @@
+package com.mycompany.bugtracker.repository;
+
+import static org.springframework.data.relational.core.query.Criteria.where;
+import static org.springframework.data.relational.core.query.Query.query;
+
+import com.mycompany.bugtracker.domain.MailMessage;
+import java.time.Instant;
+import java.util.Collection;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Spring Data R2DBC repository for the {@link MailMessage} entity.
+ */
+@Repository
+public interface MailMessageRepository extends R2dbcRepository<MailMessage, Long>, MailMessageRepositoryInternal {
+    Mono<Long> countByNextAttemptDateNotNull();
+
+    @Query("DELETE FROM mail_message WHERE id IN (:ids)")
+    Mono<Void> deleteAllByIdIn(Collection<Long> ids);
+}
+
+interface MailMessageRepositoryInternal {
+    /**
+     * Claims the oldest mails which are due, by postponing their next attempt until the claim expires, so that no
+     * other instance delivers them in the meantime.
+     *
+     * @param claimedBy the token of the claim, unique to the caller.
+     * @param now the current date.
+     * @param claimedUntil the date the claim expires.
+     * @param size the maximum number of mails to claim.
+     * @return the claimed mails, in the order of their id.
+     */
+    Flux<MailMessage> claim(String claimedBy, Instant now, Instant claimedUntil, int size);
+}
+
+class MailMessageRepositoryInternalImpl implements MailMessageRepositoryInternal {
+
+    private final DatabaseClient db;
+    private final R2dbcEntityTemplate r2dbcEntityTemplate;
+
+    public MailMessageRepositoryInternalImpl(R2dbcEntityTemplate template) {
+        this.db = template.getDatabaseClient();
+        this.r2dbcEntityTemplate = template;
+    }
+
+    /**
+     * The due mails are read first, then claimed with a statement which only matches the ones still due: of two
+     * instances reading the same mails, each mail is only claimed by the first one to update it.
+     */
+    @Override
+    public Flux<MailMessage> claim(String claimedBy, Instant now, Instant claimedUntil, int size) {
+        return db
+            .sql("SELECT id FROM mail_message WHERE next_attempt_date <= :now ORDER BY id LIMIT :size")
+            .bind("now", now)
+            .bind("size", size)
+            .map(row -> row.get("id", Long.class))
+            .all()
+            .collectList()
+            .filter(ids -> !ids.isEmpty())
+            .flatMap(ids ->
+                db
+                    .sql(
+                        "UPDATE mail_message SET claimed_by = :claimedBy, next_attempt_date = :claimedUntil" +
+                        " WHERE id IN (:ids) AND next_attempt_date <= :now"
+                    )
+                    .bind("claimedBy", claimedBy)
+                    .bind("claimedUntil", claimedUntil)
+                    .bind("ids", ids)
+                    .bind("now", now)
+                    .fetch()
+                    .rowsUpdated()
+            )
+            .filter(numberOfClaims -> numberOfClaims > 0)
+            .flatMapMany(numberOfClaims ->
+                r2dbcEntityTemplate
+                    .select(MailMessage.class)
+                    .matching(query(where("claimed_by").is(claimedBy)).sort(Sort.by("id")))
+                    .all()
+            );
+    }
+}
@@ -0,0 +1,171 @@
+package com.mycompany.bugtracker.repository;
+
+import com.mycompany.bugtracker.domain.OutboxEvent;
+import com.mycompany.bugtracker.service.ColumnConverter;
+import io.r2dbc.spi.Row;
+import java.time.Instant;
+import java.util.Collection;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Spring Data R2DBC repository for the {@link OutboxEvent} entity.
+ */
+@Repository
+public interface OutboxRepository extends R2dbcRepository<OutboxEvent, Long>, OutboxRepositoryInternal {}
+
+interface OutboxRepositoryInternal {
+    /**
+     * Claims the oldest events which are not published, and not claimed yet or whose claim has expired, so that no
+     * other relay publishes them until the claim expires.
+     *
+     * @param claimedBy the token of the claim, unique to the caller.
+     * @param claimedUntil the date the claim expires.
+     * @param size the maximum number of events to claim.
+     * @return the claimed events, in the order of their id.
+     */
+    Flux<OutboxEvent> claim(String claimedBy, Instant claimedUntil, int size);
+
+    /**
+     * Marks events as published, so that they are not claimed anymore.
+     *
+     * @param ids the ids of the events.
+     * @param publishedDate the date they were published.
+     * @return a {@link Mono} which completes once the events are marked.
+     */
+    Mono<Void> markPublished(Collection<Long> ids, Instant publishedDate);
+
+    /**
+     * Finds the events of a type which follow the given one, whether they are published or not.
+     *
+     * @param aggregateType the type of the changed entities.
+     * @param id the id of the last event already read, or {@code 0}.
+     * @param size the maximum number of events to read.
+     * @return the events, in the order of their id.
+     */
+    Flux<OutboxEvent> findAllAfter(String aggregateType, long id, int size);
+
+    /**
+     * Finds the id preceding the most recent events of a type, to read them with {@link #findAllAfter}.
+     *
+     * @param aggregateType the type of the changed entities.
+     * @param size the number of most recent events.
+     * @return the id of the event preceding them, or {@code 0} if there are no more events than that.
+     */
+    Mono<Long> findIdBeforeLast(String aggregateType, int size);
+
+    /**
+     * Deletes the events published before the given date.
+     *
+     * @param before the date.
+     * @return the number of deleted events.
+     */
+    Mono<Integer> deletePublishedBefore(Instant before);
+}
+
+class OutboxRepositoryInternalImpl implements OutboxRepositoryInternal {
+
+    private final DatabaseClient db;
+    private final ColumnConverter converter;
+
+    public OutboxRepositoryInternalImpl(DatabaseClient db, ColumnConverter converter) {
+        this.db = db;
+        this.converter = converter;
+    }
+
+    /**
+     * The candidate events are read first, then claimed with a statement which only matches the ones still claimable:
+     * of two relays reading the same candidates, each event is only claimed by the first one to update it.
+     */
+    @Override
+    public Flux<OutboxEvent> claim(String claimedBy, Instant claimedUntil, int size) {
+        Instant now = Instant.now();
+        return db
+            .sql(
+                "SELECT id FROM outbox WHERE published_date IS NULL AND (claimed_until IS NULL OR claimed_until < :now)" +
+                " ORDER BY id LIMIT :size"
+            )
+            .bind("now", now)
+            .bind("size", size)
+            .map(row -> row.get("id", Long.class))
+            .all()
+            .collectList()
+            .filter(ids -> !ids.isEmpty())
+            .flatMap(ids ->
+                db
+                    .sql(
+                        "UPDATE outbox SET claimed_by = :claimedBy, claimed_until = :claimedUntil" +
+                        " WHERE id IN (:ids) AND published_date IS NULL AND (claimed_until IS NULL OR claimed_until < :now)"
+                    )
+                    .bind("claimedBy", claimedBy)
+                    .bind("claimedUntil", claimedUntil)
+                    .bind("ids", ids)
+                    .bind("now", now)
+                    .fetch()
+                    .rowsUpdated()
+            )
+            .filter(numberOfClaims -> numberOfClaims > 0)
+            .flatMapMany(numberOfClaims ->
+                db
+                    .sql(
+                        "SELECT id, aggregate_type, aggregate_id, event_type, payload, created_date FROM outbox" +
+                        " WHERE claimed_by = :claimedBy ORDER BY id"
+                    )
+                    .bind("claimedBy", claimedBy)
+                    .map(this::toEvent)
+                    .all()
+            );
+    }
+
+    @Override
+    public Mono<Void> markPublished(Collection<Long> ids, Instant publishedDate) {
+        return db
+            .sql("UPDATE outbox SET published_date = :publishedDate WHERE id IN (:ids)")
+            .bind("publishedDate", publishedDate)
+            .bind("ids", ids)
+            .then();
+    }
+
+    @Override
+    public Flux<OutboxEvent> findAllAfter(String aggregateType, long id, int size) {
+        return db
+            .sql(
+                "SELECT id, aggregate_type, aggregate_id, event_type, payload, created_date FROM outbox" +
+                " WHERE aggregate_type = :aggregateType AND id > :id ORDER BY id LIMIT :size"
+            )
+            .bind("aggregateType", aggregateType)
+            .bind("id", id)
+            .bind("size", size)
+            .map(this::toEvent)
+            .all();
+    }
+
+    @Override
+    public Mono<Long> findIdBeforeLast(String aggregateType, int size) {
+        return db
+            .sql("SELECT id FROM outbox WHERE aggregate_type = :aggregateType ORDER BY id DESC LIMIT 1 OFFSET :size")
+            .bind("aggregateType", aggregateType)
+            .bind("size", size)
+            .map(row -> converter.fromRow(row, "id", Long.class))
+            .one()
+            .defaultIfEmpty(0L);
+    }
+
+    @Override
+    public Mono<Integer> deletePublishedBefore(Instant before) {
+        return db.sql("DELETE FROM outbox WHERE published_date < :before").bind("before", before).fetch().rowsUpdated();
+    }
+
+    private OutboxEvent toEvent(Row row) {
+        return new OutboxEvent()
+            .id(converter.fromRow(row, "id", Long.class))
+            .aggregateType(converter.fromRow(row, "aggregate_type", String.class))
+            .aggregateId(converter.fromRow(row, "aggregate_id", Long.class))
+            .eventType(converter.fromRow(row, "event_type", String.class))
+            .payload(converter.fromRow(row, "payload", String.class))
+            .createdDate(converter.fromRow(row, "created_date", Instant.class));
+    }
+}
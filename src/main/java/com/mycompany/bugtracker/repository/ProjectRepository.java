@@ -1,6 +1,9 @@
 package com.mycompany.bugtracker.repository;
 
 import com.mycompany.bugtracker.domain.Project;
+import com.mycompany.bugtracker.service.dto.ProjectSummaryDTO;
+import java.time.LocalDate;
+import java.util.Set;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
@@ -15,6 +18,11 @@ import reactor.core.publisher.Mono;
 @SuppressWarnings("unused")
 @Repository
 public interface ProjectRepository extends R2dbcRepository<Project, Long>, ProjectRepositoryInternal {
+    /**
+     * The fields of a project which can be read without the others.
+     */
+    Set<String> SPARSE_FIELDS = Set.of("id", "name", "lastModifiedDate");
+
     // just to avoid having unambigous methods
     @Override
     Flux<Project> findAll();
@@ -24,6 +32,9 @@ public interface ProjectRepository extends R2dbcRepository<Project, Long>, Proje
 
     @Override
     <S extends Project> Mono<S> save(S entity);
+
+    @Override
+    Mono<Void> deleteById(Long id);
 }
 
 interface ProjectRepositoryInternal {
@@ -31,8 +42,32 @@ interface ProjectRepositoryInternal {
     <S extends Project> Mono<S> save(S entity);
     Mono<Integer> update(Project entity);
 
+    /**
+     * Deletes a project, and counts its deletion for the fingerprint of the tickets.
+     *
+     * @param id the id of the project.
+     * @return a {@link Mono} which completes once the project is deleted.
+     */
+    Mono<Void> deleteById(Long id);
+
     Flux<Project> findAll();
     Mono<Project> findById(Long id);
     Flux<Project> findAllBy(Pageable pageable);
     Flux<Project> findAllBy(Pageable pageable, Criteria criteria);
+
+    /**
+     * Finds all the projects, reading only the columns of the given fields. The other fields are left {@code null}.
+     *
+     * @param fields the names of the fields to read, among {@link ProjectRepository#SPARSE_FIELDS}.
+     * @return the projects.
+     */
+    Flux<Project> findAllWithFields(Set<String> fields);
+
+    /**
+     * Finds all the projects with the counts of their tickets, counted by a single grouped query.
+     *
+     * @param today the current date, which the open tickets are overdue after.
+     * @return the summaries of the projects, in the order of their ids.
+     */
+    Flux<ProjectSummaryDTO> findAllSummaries(LocalDate today);
 }
@@ -6,18 +6,22 @@ import static org.springframework.data.relational.core.query.Query.query;
 import com.mycompany.bugtracker.domain.Project;
 import com.mycompany.bugtracker.repository.rowmapper.ProjectRowMapper;
 import com.mycompany.bugtracker.service.EntityManager;
+import com.mycompany.bugtracker.service.dto.ProjectSummaryDTO;
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
-import java.util.ArrayList;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.relational.core.query.Criteria;
-import org.springframework.data.relational.core.sql.Column;
 import org.springframework.data.relational.core.sql.Expression;
 import org.springframework.data.relational.core.sql.Select;
 import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoin;
@@ -41,6 +45,11 @@ class ProjectRepositoryInternalImpl implements ProjectRepositoryInternal {
 
     private static final Table entityTable = Table.aliased("project", EntityManager.ENTITY_ALIAS);
 
+    /**
+     * The rendered selects of the projects, by the set of their fields which are read.
+     */
+    private final Map<Set<String>, String> selectsByFields = new ConcurrentHashMap<>();
+
     public ProjectRepositoryInternalImpl(R2dbcEntityTemplate template, EntityManager entityManager, ProjectRowMapper projectMapper) {
         this.db = template.getDatabaseClient();
         this.r2dbcEntityTemplate = template;
@@ -80,6 +89,17 @@ class ProjectRepositoryInternalImpl implements ProjectRepositoryInternal {
         return db.sql(selectWhere).map(this::process);
     }
 
+    @Override
+    public Flux<Project> findAllWithFields(Set<String> fields) {
+        String select = selectsByFields.computeIfAbsent(
+            Set.copyOf(fields),
+            key -> entityManager.createSelect(
+                Select.builder().select(ProjectSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS, key)).from(entityTable).build()
+            )
+        );
+        return db.sql(select).map(this::process).all();
+    }
+
     @Override
     public Flux<Project> findAll() {
         return findAllBy(null, null);
@@ -90,6 +110,48 @@ class ProjectRepositoryInternalImpl implements ProjectRepositoryInternal {
         return createQuery(null, where("id").is(id)).one();
     }
 
+    @Override
+    public Flux<ProjectSummaryDTO> findAllSummaries(LocalDate today) {
+        // the tickets are counted per project first, so the grouping only reads the ticket table
+        return db
+            .sql(
+                "SELECT e.id AS e_id, e.name AS e_name, e.last_modified_date AS e_last_modified_date, counts.open_tickets," +
+                " counts.done_tickets, counts.overdue_tickets" +
+                " FROM project e LEFT JOIN (" +
+                "SELECT project_id," +
+                " SUM(CASE WHEN done = TRUE THEN 0 ELSE 1 END) AS open_tickets," +
+                " SUM(CASE WHEN done = TRUE THEN 1 ELSE 0 END) AS done_tickets," +
+                " SUM(CASE WHEN done = TRUE OR due_date IS NULL OR due_date >= :today THEN 0 ELSE 1 END) AS overdue_tickets" +
+                " FROM ticket WHERE project_id IS NOT NULL GROUP BY project_id" +
+                ") counts ON counts.project_id = e.id ORDER BY e.id"
+            )
+            .bind("today", today)
+            .map((row, metadata) ->
+                new ProjectSummaryDTO(
+                    process(row, metadata),
+                    toLong(row.get("open_tickets")),
+                    toLong(row.get("done_tickets")),
+                    toLong(row.get("overdue_tickets"))
+                )
+            )
+            .all();
+    }
+
+    /**
+     * Gets the current date, truncated to the precision of the date columns, so that the dates read back match the
+     * stored ones.
+     */
+    private static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    /**
+     * Reads a sum, which is a decimal on some databases, and null for a project without tickets.
+     */
+    private static long toLong(Object sum) {
+        return sum != null ? ((Number) sum).longValue() : 0L;
+    }
+
     private Project process(Row row, RowMetadata metadata) {
         Project entity = projectMapper.apply(row, "e");
         return entity;
@@ -102,6 +164,7 @@ class ProjectRepositoryInternalImpl implements ProjectRepositoryInternal {
 
     @Override
     public <S extends Project> Mono<S> save(S entity) {
+        entity.setLastModifiedDate(now());
         if (entity.getId() == null) {
             return insert(entity);
         } else {
@@ -120,15 +183,32 @@ class ProjectRepositoryInternalImpl implements ProjectRepositoryInternal {
         //fixme is this the proper way?
         return r2dbcEntityTemplate.update(entity).thenReturn(1);
     }
+
+    @Override
+    public Mono<Void> deleteById(Long id) {
+        return r2dbcEntityTemplate
+            .delete(Project.class)
+            .matching(query(where("id").is(id)))
+            .all()
+            .flatMap(numberOfDeletes -> DeletionCounter.add(db, DeletionCounter.PROJECT, numberOfDeletes));
+    }
 }
 
 class ProjectSqlHelper {
 
+    static final FieldColumns FIELDS = new FieldColumns()
+        .add("id", "id")
+        .add("name", "name")
+        .add("lastModifiedDate", "last_modified_date");
+
     static List<Expression> getColumns(Table table, String columnPrefix) {
-        List<Expression> columns = new ArrayList<>();
-        columns.add(Column.aliased("id", table, columnPrefix + "_id"));
-        columns.add(Column.aliased("name", table, columnPrefix + "_name"));
+        return getColumns(table, columnPrefix, null);
+    }
 
-        return columns;
+    /**
+     * The columns of the given fields of a project, and {@code NULL} for the others.
+     */
+    static List<Expression> getColumns(Table table, String columnPrefix, Set<String> fields) {
+        return FIELDS.getColumns(table, columnPrefix, fields);
     }
 }
@@ -1,6 +1,11 @@
 package com.mycompany.bugtracker.repository;
 
 import com.mycompany.bugtracker.domain.Ticket;
+import com.mycompany.bugtracker.service.dto.TicketSummaryDTO;
+import com.mycompany.bugtracker.service.dto.TicketSyncDTO;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Set;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
@@ -15,6 +20,25 @@ import reactor.core.publisher.Mono;
 @SuppressWarnings("unused")
 @Repository
 public interface TicketRepository extends R2dbcRepository<Ticket, Long>, TicketRepositoryInternal {
+    /**
+     * The fields of a ticket which can be read without the others.
+     */
+    Set<String> SPARSE_FIELDS = Set.of(
+        "id",
+        "title",
+        "description",
+        "dueDate",
+        "done",
+        "version",
+        "lastModifiedDate",
+        "syncVersion",
+        "projectId",
+        "assignedToId",
+        "project",
+        "assignedTo",
+        "labels"
+    );
+
     Flux<Ticket> findAllBy(Pageable pageable);
 
     @Override
@@ -26,6 +50,9 @@ public interface TicketRepository extends R2dbcRepository<Ticket, Long>, TicketR
     @Override
     Flux<Ticket> findAllWithEagerRelationships(Pageable page);
 
+    @Override
+    Flux<Ticket> findAllWithEagerRelationshipsByIdIn(Collection<Long> ids);
+
     @Override
     Mono<Void> deleteById(Long id);
 
@@ -62,16 +89,185 @@ interface TicketRepositoryInternal {
     <S extends Ticket> Mono<S> save(S entity);
     Mono<Integer> update(Ticket entity);
 
+    /**
+     * Updates only the non-null fields of the given ticket with a single statement, and replaces its labels only if
+     * they are given, even empty. The update is conditional on the version, if the ticket carries one.
+     *
+     * @param patch the ticket holding the id, the fields to update and optionally the expected version.
+     * @param reload whether to read the updated ticket back; if not, the patch is returned, with the new version if
+     * the expected one was given, and {@code null} otherwise.
+     * @return the updated ticket, or an empty {@link Mono} if it doesn't exist.
+     */
+    Mono<Ticket> partialUpdate(Ticket patch, boolean reload);
+
+    Mono<Long> findVersionById(Long id);
+
     Flux<Ticket> findAll();
     Mono<Ticket> findById(Long id);
     Flux<Ticket> findAllBy(Pageable pageable);
     Flux<Ticket> findAllBy(Pageable pageable, Criteria criteria);
 
+    /**
+     * Finds a page of the summaries of the tickets, reading only the columns shown in a list.
+     *
+     * @param pageable the page, and its sort on the fields of the ticket.
+     * @return the summaries of the tickets of the page.
+     */
+    Flux<TicketSummaryDTO> findAllSummariesBy(Pageable pageable);
+
+    /**
+     * Finds a page of the tickets, reading only the columns of the given fields, and joining the project, the assignee
+     * and the labels only if they are among the fields. The other fields are left {@code null}.
+     *
+     * @param pageable the page, and its sort on the fields of the ticket.
+     * @param fields the names of the fields to read, among {@link TicketRepository#SPARSE_FIELDS}.
+     * @return the tickets of the page.
+     */
+    Flux<Ticket> findAllWithFields(Pageable pageable, Set<String> fields);
+
+    /**
+     * Finds a page of the tickets of a project, with their project and assignee, in the order of their ids.
+     *
+     * @param projectId the id of the project.
+     * @param afterId the id the tickets of the page come after, or {@code null} to start at the offset of the page.
+     * @param pageable the size, and the offset if there is no {@code afterId}, of the page.
+     * @return the tickets of the page.
+     */
+    Flux<Ticket> findPageByProject(Long projectId, Long afterId, Pageable pageable);
+
+    /**
+     * Finds a page of the tickets assigned to a user, with their project and assignee, in the order of their ids.
+     *
+     * @param userId the id of the user.
+     * @param afterId the id the tickets of the page come after, or {@code null} to start at the offset of the page.
+     * @param pageable the size, and the offset if there is no {@code afterId}, of the page.
+     * @return the tickets of the page.
+     */
+    Flux<Ticket> findPageByAssignedTo(Long userId, Long afterId, Pageable pageable);
+
+    /**
+     * Finds a page of the tickets with a label, with their project and assignee, in the order of their ids.
+     *
+     * @param labelId the id of the label.
+     * @param afterId the id the tickets of the page come after, or {@code null} to start at the offset of the page.
+     * @param pageable the size, and the offset if there is no {@code afterId}, of the page.
+     * @return the tickets of the page.
+     */
+    Flux<Ticket> findPageByLabel(Long labelId, Long afterId, Pageable pageable);
+
+    /**
+     * Finds the tickets modified, and the ones deleted, after a sync version, in the order of their sync version and
+     * id. The modified tickets come with their project, assignee and labels, and the deleted ones as tombstones.
+     * <p>
+     * The sync versions are taken in the order the changes are committed: the changes of a version are all visible
+     * once it is, and those of the lower versions too.
+     *
+     * @param since the sync version the changes are made after.
+     * @param afterId the id of the ticket the changes of the {@code since} version come after, or {@code null} to
+     * leave out all the changes of that version.
+     * @param size the maximum number of changes.
+     * @return the changes.
+     */
+    Flux<TicketSyncDTO> findChangesSince(long since, Long afterId, int size);
+
+    /**
+     * Finds the highest sync version of the purged tombstones. The changes after a lower version are not complete
+     * anymore, as some of their deletions are missing.
+     *
+     * @return the version, {@code 0} if no tombstone has been purged yet.
+     */
+    Mono<Long> findPurgedSyncVersion();
+
+    /**
+     * Finds the ids of the tickets whose tombstone is older than a date, oldest first.
+     *
+     * @param deletedBefore the date the tickets were deleted before.
+     * @param limit the maximum number of ids.
+     * @return the ids of the tickets.
+     */
+    Flux<Long> findTombstoneIds(Instant deletedBefore, int limit);
+
+    /**
+     * Deletes tombstones, and records the highest sync version among them as purged.
+     *
+     * @param ticketIds the ids of the deleted tickets.
+     * @return the number of deleted tombstones.
+     */
+    Mono<Integer> purgeTombstones(Collection<Long> ticketIds);
+
+    /**
+     * Finds a fingerprint of the tickets and of the entities shown with them. It is made of the last sync version of
+     * the tickets, of the date of the last modification of the projects, of the labels and of the users, read from
+     * their indexes, and of the number of their deletions, read from a counter. It changes whenever a ticket is
+     * created, updated or deleted, and whenever a project, a label or a user is, such as when a project is renamed.
+     *
+     * @return the fingerprint.
+     */
+    Mono<String> findFingerprint();
+
+    Mono<Long> countByProject(Long projectId);
+
+    Mono<Long> countByAssignedTo(Long userId);
+
+    Mono<Long> countByLabel(Long labelId);
+
+    /**
+     * Finds the ids of the first tickets of a project, in the order of their ids.
+     *
+     * @param projectId the id of the project.
+     * @param limit the maximum number of ids.
+     * @return the ids.
+     */
+    Flux<Long> findIdsByProject(Long projectId, int limit);
+
+    /**
+     * Finds the ids of the first tickets with a label, in the order of their ids.
+     *
+     * @param labelId the id of the label.
+     * @param limit the maximum number of ids.
+     * @return the ids.
+     */
+    Flux<Long> findIdsByLabel(Long labelId, int limit);
+
+    /**
+     * Removes tickets from their project with a single statement, and records their update without payload.
+     *
+     * @param ids the ids of the tickets.
+     * @return the number of updated tickets.
+     */
+    Mono<Integer> detachFromProject(Collection<Long> ids);
+
+    /**
+     * Removes a label from tickets with a single statement per table, and records their update without payload.
+     *
+     * @param labelId the id of the label.
+     * @param ids the ids of the tickets.
+     * @return the number of updated tickets.
+     */
+    Mono<Integer> removeLabel(Long labelId, Collection<Long> ids);
+
+    /**
+     * Deletes tickets and their label links with a single statement per table, and records their deletion.
+     *
+     * @param ids the ids of the tickets.
+     * @return the number of deleted tickets.
+     */
+    Mono<Integer> deleteAllByIdIn(Collection<Long> ids);
+
     Mono<Ticket> findOneWithEagerRelationships(Long id);
 
     Flux<Ticket> findAllWithEagerRelationships();
 
     Flux<Ticket> findAllWithEagerRelationships(Pageable page);
 
+    /**
+     * Finds the tickets with the given ids, with their project and assignee, in a single query, and their labels in
+     * another one.
+     *
+     * @param ids the ids of the tickets.
+     * @return the tickets, the unknown ids being left out.
+     */
+    Flux<Ticket> findAllWithEagerRelationshipsByIdIn(Collection<Long> ids);
+
     Mono<Void> deleteById(Long id);
 }
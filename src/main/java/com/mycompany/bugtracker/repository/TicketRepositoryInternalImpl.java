@@ -3,32 +3,54 @@ package com.mycompany.bugtracker.repository;
 import static org.springframework.data.relational.core.query.Criteria.where;
 import static org.springframework.data.relational.core.query.Query.query;
 
+import com.carrotsearch.hppc.LongHashSet;
 import com.mycompany.bugtracker.domain.Label;
 import com.mycompany.bugtracker.domain.Ticket;
 import com.mycompany.bugtracker.repository.rowmapper.ProjectRowMapper;
 import com.mycompany.bugtracker.repository.rowmapper.TicketRowMapper;
+import com.mycompany.bugtracker.repository.rowmapper.TicketSummaryRowMapper;
 import com.mycompany.bugtracker.repository.rowmapper.UserRowMapper;
+import com.mycompany.bugtracker.service.ColumnConverter;
 import com.mycompany.bugtracker.service.EntityManager;
 import com.mycompany.bugtracker.service.EntityManager.LinkTable;
+import com.mycompany.bugtracker.service.LabelService;
+import com.mycompany.bugtracker.service.OutboxService;
+import com.mycompany.bugtracker.service.TicketChangeEventService;
+import com.mycompany.bugtracker.service.dto.TicketChangeEventDTO;
+import com.mycompany.bugtracker.service.dto.TicketSummaryDTO;
+import com.mycompany.bugtracker.service.dto.TicketSyncDTO;
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Update;
 import org.springframework.data.relational.core.sql.Column;
 import org.springframework.data.relational.core.sql.Expression;
 import org.springframework.data.relational.core.sql.Select;
 import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoinCondition;
+import org.springframework.data.relational.core.sql.SelectBuilder.SelectJoin;
 import org.springframework.data.relational.core.sql.Table;
 import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.r2dbc.core.RowsFetchSpec;
+import org.springframework.util.Assert;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -41,30 +63,57 @@ class TicketRepositoryInternalImpl implements TicketRepositoryInternal {
     private final DatabaseClient db;
     private final R2dbcEntityTemplate r2dbcEntityTemplate;
     private final EntityManager entityManager;
+    private final OutboxService outboxService;
+    private final LabelService labelService;
+    private final ColumnConverter converter;
 
     private final ProjectRowMapper projectMapper;
     private final UserRowMapper userMapper;
     private final TicketRowMapper ticketMapper;
+    private final TicketSummaryRowMapper ticketSummaryMapper;
 
     private static final Table entityTable = Table.aliased("ticket", EntityManager.ENTITY_ALIAS);
     private static final Table projectTable = Table.aliased("project", "project");
     private static final Table assignedToTable = Table.aliased("jhi_user", "assignedTo");
+    private static final Table labelLinkTable = Table.aliased("rel_ticket__label", "labelLink");
+
+    /**
+     * The id of the single row of {@code ticket_sync}, holding the sync versions.
+     */
+    private static final int SYNC_ID = 1;
 
     private static final EntityManager.LinkTable labelLink = new LinkTable("rel_ticket__label", "ticket_id", "label_id");
 
+    private static final Comparator<TicketSyncDTO> SYNC_ORDER = Comparator
+        .comparing(TicketSyncDTO::getSyncVersion)
+        .thenComparing(TicketSyncDTO::getTicketId);
+
+    /**
+     * The rendered selects of the tickets, by the set of their fields which are read.
+     */
+    private final Map<Set<String>, String> selectsByFields = new ConcurrentHashMap<>();
+
     public TicketRepositoryInternalImpl(
         R2dbcEntityTemplate template,
         EntityManager entityManager,
+        OutboxService outboxService,
+        LabelService labelService,
+        ColumnConverter converter,
         ProjectRowMapper projectMapper,
         UserRowMapper userMapper,
-        TicketRowMapper ticketMapper
+        TicketRowMapper ticketMapper,
+        TicketSummaryRowMapper ticketSummaryMapper
     ) {
         this.db = template.getDatabaseClient();
         this.r2dbcEntityTemplate = template;
         this.entityManager = entityManager;
+        this.outboxService = outboxService;
+        this.labelService = labelService;
+        this.converter = converter;
         this.projectMapper = projectMapper;
         this.userMapper = userMapper;
         this.ticketMapper = ticketMapper;
+        this.ticketSummaryMapper = ticketSummaryMapper;
     }
 
     @Override
@@ -78,19 +127,7 @@ class TicketRepositoryInternalImpl implements TicketRepositoryInternal {
     }
 
     RowsFetchSpec<Ticket> createQuery(Pageable pageable, Criteria criteria) {
-        List<Expression> columns = TicketSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
-        columns.addAll(ProjectSqlHelper.getColumns(projectTable, "project"));
-        columns.addAll(UserSqlHelper.getColumns(assignedToTable, "assignedTo"));
-        SelectFromAndJoinCondition selectFrom = Select
-            .builder()
-            .select(columns)
-            .from(entityTable)
-            .leftOuterJoin(projectTable)
-            .on(Column.create("project_id", entityTable))
-            .equals(Column.create("id", projectTable))
-            .leftOuterJoin(assignedToTable)
-            .on(Column.create("assigned_to_id", entityTable))
-            .equals(Column.create("id", assignedToTable));
+        SelectFromAndJoinCondition selectFrom = createSelectFrom();
 
         String select = entityManager.createSelect(selectFrom, Ticket.class, pageable, criteria);
         String alias = entityTable.getReferenceName().getReference();
@@ -110,6 +147,436 @@ class TicketRepositoryInternalImpl implements TicketRepositoryInternal {
         return db.sql(selectWhere).map(this::process);
     }
 
+    @Override
+    public Flux<TicketSummaryDTO> findAllSummariesBy(Pageable pageable) {
+        List<Expression> columns = TicketSqlHelper.getSummaryColumns(entityTable, EntityManager.ENTITY_ALIAS);
+        columns.add(Column.aliased("name", projectTable, EntityManager.ENTITY_ALIAS + "_project_name"));
+        columns.add(Column.aliased("login", assignedToTable, EntityManager.ENTITY_ALIAS + "_assigned_to_login"));
+        SelectFromAndJoinCondition selectFrom = Select
+            .builder()
+            .select(columns)
+            .from(entityTable)
+            .leftOuterJoin(projectTable)
+            .on(Column.create("project_id", entityTable))
+            .equals(Column.create("id", projectTable))
+            .leftOuterJoin(assignedToTable)
+            .on(Column.create("assigned_to_id", entityTable))
+            .equals(Column.create("id", assignedToTable));
+        return db
+            .sql(entityManager.createSelect(selectFrom, Ticket.class, pageable, null))
+            .map(row -> ticketSummaryMapper.apply(row, EntityManager.ENTITY_ALIAS))
+            .all();
+    }
+
+    @Override
+    public Flux<Ticket> findAllWithFields(Pageable pageable, Set<String> fields) {
+        Set<String> key = Set.copyOf(fields);
+        boolean withProject = key.contains("project");
+        boolean withAssignedTo = key.contains("assignedTo");
+        Flux<Ticket> tickets = Flux.defer(() -> {
+            String select = selectsByFields.computeIfAbsent(key, this::createSelect);
+            return db
+                .sql(select + TicketSqlHelper.FIELDS.page(EntityManager.ENTITY_ALIAS, pageable))
+                .map(row -> {
+                    Ticket entity = ticketMapper.apply(row, EntityManager.ENTITY_ALIAS);
+                    if (withProject) {
+                        entity.setProject(projectMapper.apply(row, "project"));
+                    }
+                    if (withAssignedTo) {
+                        entity.setAssignedTo(userMapper.apply(row, "assignedTo"));
+                    }
+                    return entity;
+                })
+                .all();
+        });
+        return key.contains("labels") ? fetchLabels(tickets) : tickets;
+    }
+
+    /**
+     * Renders the select of the given fields of the tickets, joined to their project and assignee only if they are
+     * among the fields.
+     */
+    private String createSelect(Set<String> fields) {
+        List<Expression> columns = TicketSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS, fields);
+        if (fields.contains("project")) {
+            columns.addAll(ProjectSqlHelper.getColumns(projectTable, "project"));
+        }
+        if (fields.contains("assignedTo")) {
+            columns.addAll(UserSqlHelper.getColumns(assignedToTable, "assignedTo"));
+        }
+        SelectJoin select = Select.builder().select(columns).from(entityTable);
+        if (fields.contains("project")) {
+            select =
+                select
+                    .leftOuterJoin(projectTable)
+                    .on(Column.create("project_id", entityTable))
+                    .equals(Column.create("id", projectTable));
+        }
+        if (fields.contains("assignedTo")) {
+            select =
+                select
+                    .leftOuterJoin(assignedToTable)
+                    .on(Column.create("assigned_to_id", entityTable))
+                    .equals(Column.create("id", assignedToTable));
+        }
+        return entityManager.createSelect(select.build());
+    }
+
+    /**
+     * Creates the select of the tickets, joined to their project and assignee.
+     */
+    private SelectFromAndJoinCondition createSelectFrom() {
+        List<Expression> columns = TicketSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
+        columns.addAll(ProjectSqlHelper.getColumns(projectTable, "project"));
+        columns.addAll(UserSqlHelper.getColumns(assignedToTable, "assignedTo"));
+        return Select
+            .builder()
+            .select(columns)
+            .from(entityTable)
+            .leftOuterJoin(projectTable)
+            .on(Column.create("project_id", entityTable))
+            .equals(Column.create("id", projectTable))
+            .leftOuterJoin(assignedToTable)
+            .on(Column.create("assigned_to_id", entityTable))
+            .equals(Column.create("id", assignedToTable));
+    }
+
+    /**
+     * Creates the query of a page of the tickets matching a condition on a reference, in the order of their ids.
+     * The page starts after the given id if there is one, or else at the offset of the page.
+     */
+    RowsFetchSpec<Ticket> createPageQuery(
+        SelectFromAndJoinCondition selectFrom,
+        String referenceCondition,
+        Long referenceId,
+        Long afterId,
+        Pageable pageable
+    ) {
+        String alias = entityTable.getReferenceName().getReference();
+        StringBuilder sql = new StringBuilder(entityManager.createSelect(selectFrom, Ticket.class, null, null))
+            .append(" WHERE ")
+            .append(referenceCondition);
+        if (afterId != null) {
+            sql.append(" AND ").append(alias).append(".id > :afterId");
+        }
+        sql.append(" ORDER BY ").append(alias).append(".id LIMIT ").append(pageable.getPageSize());
+        if (afterId == null && pageable.getOffset() > 0) {
+            sql.append(" OFFSET ").append(pageable.getOffset());
+        }
+        DatabaseClient.GenericExecuteSpec spec = db.sql(sql.toString()).bind("referenceId", referenceId);
+        if (afterId != null) {
+            spec = spec.bind("afterId", afterId);
+        }
+        return spec.map(this::process);
+    }
+
+    @Override
+    public Flux<Ticket> findPageByProject(Long projectId, Long afterId, Pageable pageable) {
+        return createPageQuery(createSelectFrom(), EntityManager.ENTITY_ALIAS + ".project_id = :referenceId", projectId, afterId, pageable)
+            .all();
+    }
+
+    @Override
+    public Flux<Ticket> findPageByAssignedTo(Long userId, Long afterId, Pageable pageable) {
+        return createPageQuery(createSelectFrom(), EntityManager.ENTITY_ALIAS + ".assigned_to_id = :referenceId", userId, afterId, pageable)
+            .all();
+    }
+
+    @Override
+    public Flux<Ticket> findPageByLabel(Long labelId, Long afterId, Pageable pageable) {
+        SelectFromAndJoinCondition selectFrom = createSelectFrom()
+            .join(labelLinkTable)
+            .on(Column.create("id", entityTable))
+            .equals(Column.create("ticket_id", labelLinkTable));
+        return createPageQuery(selectFrom, "labelLink.label_id = :referenceId", labelId, afterId, pageable).all();
+    }
+
+    @Override
+    public Flux<TicketSyncDTO> findChangesSince(long since, Long afterId, int size) {
+        String alias = EntityManager.ENTITY_ALIAS;
+        String select =
+            entityManager.createSelect(createSelectFrom(), Ticket.class, null, null) +
+            " WHERE " +
+            changedSince(alias + ".sync_version", alias + ".id", afterId) +
+            " ORDER BY " +
+            alias +
+            ".sync_version, " +
+            alias +
+            ".id LIMIT " +
+            size;
+        Flux<Ticket> modified = bindSince(db.sql(select), since, afterId).map(this::process).all();
+        String selectTombstones =
+            "SELECT ticket_id, deleted_date, sync_version FROM ticket_tombstone WHERE " +
+            changedSince("sync_version", "ticket_id", afterId) +
+            " ORDER BY sync_version, ticket_id LIMIT " +
+            size;
+        Flux<TicketSyncDTO> deleted = bindSince(db.sql(selectTombstones), since, afterId)
+            .map(row ->
+                TicketSyncDTO.deleted(
+                    converter.fromRow(row, "ticket_id", Long.class),
+                    converter.fromRow(row, "deleted_date", Instant.class),
+                    converter.fromRow(row, "sync_version", Long.class)
+                )
+            )
+            .all();
+        return fetchLabels(modified)
+            .map(TicketSyncDTO::modified)
+            .collectList()
+            .zipWith(deleted.collectList())
+            .flatMapIterable(changes ->
+                Stream
+                    .concat(changes.getT1().stream(), changes.getT2().stream())
+                    .sorted(SYNC_ORDER)
+                    .limit(size)
+                    .collect(Collectors.toList())
+            );
+    }
+
+    @Override
+    public Mono<Long> findPurgedSyncVersion() {
+        return db
+            .sql("SELECT purged_version FROM ticket_sync WHERE id = :id")
+            .bind("id", SYNC_ID)
+            .map(row -> row.get("purged_version", Long.class))
+            .one();
+    }
+
+    @Override
+    public Flux<Long> findTombstoneIds(Instant deletedBefore, int limit) {
+        return db
+            .sql("SELECT ticket_id FROM ticket_tombstone WHERE deleted_date < :deletedBefore ORDER BY deleted_date, ticket_id LIMIT :limit")
+            .bind("deletedBefore", deletedBefore)
+            .bind("limit", limit)
+            .map(row -> row.get("ticket_id", Long.class))
+            .all();
+    }
+
+    @Override
+    public Mono<Integer> purgeTombstones(Collection<Long> ticketIds) {
+        if (ticketIds.isEmpty()) {
+            return Mono.just(0);
+        }
+        return db
+            .sql("SELECT MAX(sync_version) AS purged_version FROM ticket_tombstone WHERE ticket_id IN (:ids)")
+            .bind("ids", ticketIds)
+            .map(row -> Optional.ofNullable(converter.fromRow(row, "purged_version", Long.class)))
+            .one()
+            .flatMap(purgedVersion ->
+                purgedVersion.isEmpty()
+                    ? Mono.just(0)
+                    : db
+                        .sql("UPDATE ticket_sync SET purged_version = :purgedVersion WHERE id = :id AND purged_version < :purgedVersion")
+                        .bind("purgedVersion", purgedVersion.get())
+                        .bind("id", SYNC_ID)
+                        .then()
+                        .then(db.sql("DELETE FROM ticket_tombstone WHERE ticket_id IN (:ids)").bind("ids", ticketIds).fetch().rowsUpdated())
+            );
+    }
+
+    @Override
+    public Mono<String> findFingerprint() {
+        return db
+            .sql(
+                "SELECT (SELECT last_version FROM ticket_sync WHERE id = :syncId) AS ticket_version," +
+                " (SELECT MAX(last_modified_date) FROM project) AS project_date," +
+                " (SELECT MAX(last_modified_date) FROM label) AS label_date," +
+                " (SELECT MAX(last_modified_date) FROM jhi_user) AS user_date," +
+                " (SELECT SUM(deletions) FROM deletion_counter) AS deletions"
+            )
+            .bind("syncId", SYNC_ID)
+            .map(row ->
+                String.join(
+                    "/",
+                    String.valueOf(converter.fromRow(row, "ticket_version", Long.class)),
+                    String.valueOf(converter.fromRow(row, "project_date", Instant.class)),
+                    String.valueOf(converter.fromRow(row, "label_date", Instant.class)),
+                    String.valueOf(converter.fromRow(row, "user_date", Instant.class)),
+                    String.valueOf(converter.fromRow(row, "deletions", Long.class))
+                )
+            )
+            .one();
+    }
+
+    /**
+     * Renders the condition of the rows changed after a sync version, or after a row of that version if there is one.
+     * The condition on the version alone lets the rows be read from the index on the version and the id.
+     */
+    private static String changedSince(String versionColumn, String idColumn, Long afterId) {
+        if (afterId == null) {
+            return versionColumn + " > :since";
+        }
+        return versionColumn + " >= :since AND (" + versionColumn + " > :since OR " + idColumn + " > :afterId)";
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindSince(DatabaseClient.GenericExecuteSpec spec, long since, Long afterId) {
+        spec = spec.bind("since", since);
+        return afterId != null ? spec.bind("afterId", afterId) : spec;
+    }
+
+    @Override
+    public Mono<Long> countByProject(Long projectId) {
+        return count("SELECT COUNT(*) AS total FROM ticket WHERE project_id = :referenceId", projectId);
+    }
+
+    @Override
+    public Mono<Long> countByAssignedTo(Long userId) {
+        return count("SELECT COUNT(*) AS total FROM ticket WHERE assigned_to_id = :referenceId", userId);
+    }
+
+    @Override
+    public Mono<Long> countByLabel(Long labelId) {
+        return count("SELECT COUNT(*) AS total FROM rel_ticket__label WHERE label_id = :referenceId", labelId);
+    }
+
+    @Override
+    public Flux<Long> findIdsByProject(Long projectId, int limit) {
+        return db
+            .sql("SELECT id FROM ticket WHERE project_id = :projectId ORDER BY id LIMIT :limit")
+            .bind("projectId", projectId)
+            .bind("limit", limit)
+            .map(row -> row.get("id", Long.class))
+            .all();
+    }
+
+    @Override
+    public Flux<Long> findIdsByLabel(Long labelId, int limit) {
+        return db
+            .sql("SELECT ticket_id FROM rel_ticket__label WHERE label_id = :labelId ORDER BY ticket_id LIMIT :limit")
+            .bind("labelId", labelId)
+            .bind("limit", limit)
+            .map(row -> row.get("ticket_id", Long.class))
+            .all();
+    }
+
+    @Override
+    public Mono<Integer> detachFromProject(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Mono.just(0);
+        }
+        return nextSyncVersion()
+            .flatMap(syncVersion ->
+                db
+                    .sql(
+                        "UPDATE ticket SET project_id = NULL, version = version + 1, last_modified_date = :lastModifiedDate," +
+                        " sync_version = :syncVersion WHERE id IN (:ids)"
+                    )
+                    .bind("lastModifiedDate", now())
+                    .bind("syncVersion", syncVersion)
+                    .bind("ids", ids)
+                    .fetch()
+                    .rowsUpdated()
+            )
+            .flatMap(numberOfUpdates -> recordChanges(TicketChangeEventDTO.Type.UPDATED, ids).thenReturn(numberOfUpdates));
+    }
+
+    @Override
+    public Mono<Integer> removeLabel(Long labelId, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Mono.just(0);
+        }
+        return nextSyncVersion()
+            .flatMap(syncVersion ->
+                db
+                    .sql("DELETE FROM rel_ticket__label WHERE label_id = :labelId AND ticket_id IN (:ids)")
+                    .bind("labelId", labelId)
+                    .bind("ids", ids)
+                    .then()
+                    .then(
+                        db
+                            .sql(
+                                "UPDATE ticket SET version = version + 1, last_modified_date = :lastModifiedDate," +
+                                " sync_version = :syncVersion WHERE id IN (:ids)"
+                            )
+                            .bind("lastModifiedDate", now())
+                            .bind("syncVersion", syncVersion)
+                            .bind("ids", ids)
+                            .fetch()
+                            .rowsUpdated()
+                    )
+            )
+            .flatMap(numberOfUpdates -> recordChanges(TicketChangeEventDTO.Type.UPDATED, ids).thenReturn(numberOfUpdates));
+    }
+
+    @Override
+    public Mono<Integer> deleteAllByIdIn(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Mono.just(0);
+        }
+        // the deletions are recorded first, while the tickets still exist
+        return nextSyncVersion()
+            .flatMap(syncVersion ->
+                recordChanges(TicketChangeEventDTO.Type.DELETED, ids)
+                    .then(
+                        db
+                            .sql(
+                                "INSERT INTO ticket_tombstone (ticket_id, deleted_date, sync_version)" +
+                                " SELECT id, :deletedDate, :syncVersion FROM ticket WHERE id IN (:ids)"
+                            )
+                            .bind("deletedDate", now())
+                            .bind("syncVersion", syncVersion)
+                            .bind("ids", ids)
+                            .then()
+                    )
+            )
+            .then(db.sql("DELETE FROM rel_ticket__label WHERE ticket_id IN (:ids)").bind("ids", ids).then())
+            .then(db.sql("DELETE FROM ticket WHERE id IN (:ids)").bind("ids", ids).fetch().rowsUpdated());
+    }
+
+    /**
+     * Writes the changes of existing tickets to the outbox with a single statement, without their payload.
+     */
+    private Mono<Void> recordChanges(TicketChangeEventDTO.Type type, Collection<Long> ids) {
+        return db
+            .sql(
+                "INSERT INTO outbox (aggregate_type, aggregate_id, event_type, created_date)" +
+                " SELECT :aggregateType, id, :eventType, :createdDate FROM ticket WHERE id IN (:ids)"
+            )
+            .bind("aggregateType", TicketChangeEventService.AGGREGATE_TYPE)
+            .bind("eventType", type.name())
+            .bind("createdDate", now())
+            .bind("ids", ids)
+            .then();
+    }
+
+    /**
+     * Gets the current date, truncated to the precision of the date columns, so that the dates read back match the
+     * stored ones.
+     */
+    private static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    /**
+     * Takes the next sync version, for a change of the tickets.
+     * <p>
+     * The row of the counter stays locked until the transaction of the change ends, so the next change waits for it to
+     * commit before taking its version: the versions are taken in the order of the commits, unlike the dates of the
+     * changes. A client which has read the changes of a version can't miss one of a lower version committed later.
+     * The writes of the tickets must run in a transaction for this to hold, which they do.
+     * <p>
+     * Every write takes its version before it touches any other row, so the writes lock the rows in the same order and
+     * can't deadlock: a write waiting for the counter holds no lock another one needs. The single row does serialize the
+     * writes of the tickets, which is the price of the commit order: a sequence hands out its values in the order of
+     * the requests, not of the commits, and would let a reader skip a change committed late.
+     */
+    private Mono<Long> nextSyncVersion() {
+        return db
+            .sql("UPDATE ticket_sync SET last_version = last_version + 1 WHERE id = :id")
+            .bind("id", SYNC_ID)
+            .then()
+            .then(
+                db
+                    .sql("SELECT last_version FROM ticket_sync WHERE id = :id")
+                    .bind("id", SYNC_ID)
+                    .map(row -> row.get("last_version", Long.class))
+                    .one()
+            );
+    }
+
+    private Mono<Long> count(String sql, Long referenceId) {
+        return db.sql(sql).bind("referenceId", referenceId).map(row -> row.get("total", Long.class)).one();
+    }
+
     @Override
     public Flux<Ticket> findAll() {
         return findAllBy(null, null);
@@ -122,17 +589,54 @@ class TicketRepositoryInternalImpl implements TicketRepositoryInternal {
 
     @Override
     public Mono<Ticket> findOneWithEagerRelationships(Long id) {
-        return findById(id);
+        return findById(id)
+            .flatMap(ticket ->
+                entityManager.findLinkedIds(labelLink, id).flatMap(labelIds -> fetchLabels(ticket, labelIds)).thenReturn(ticket)
+            );
     }
 
     @Override
     public Flux<Ticket> findAllWithEagerRelationships() {
-        return findAll();
+        return fetchLabels(findAll());
     }
 
     @Override
     public Flux<Ticket> findAllWithEagerRelationships(Pageable page) {
-        return findAllBy(page);
+        return fetchLabels(findAllBy(page));
+    }
+
+    @Override
+    public Flux<Ticket> findAllWithEagerRelationshipsByIdIn(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return fetchLabels(createQuery(null, where("id").in(ids)).all());
+    }
+
+    /**
+     * Sets the labels of the tickets, reading the links of all of them with a single query.
+     */
+    private Flux<Ticket> fetchLabels(Flux<Ticket> tickets) {
+        return tickets
+            .collectList()
+            .flatMapMany(list -> {
+                List<Long> ids = list.stream().map(Ticket::getId).collect(Collectors.toList());
+                return entityManager
+                    .findLinkedIds(labelLink, ids)
+                    .flatMapMany(labelIdsByTicket ->
+                        Flux
+                            .fromIterable(list)
+                            .concatMap(ticket -> {
+                                LongHashSet labelIds = labelIdsByTicket.get(ticket.getId());
+                                return fetchLabels(ticket, labelIds != null ? labelIds : new LongHashSet()).thenReturn(ticket);
+                            })
+                    );
+            });
+    }
+
+    private Mono<Ticket> fetchLabels(Ticket ticket, LongHashSet labelIds) {
+        ticket.setPersistedLabelIds(labelIds);
+        return labelService.getLabels(labelIds).doOnNext(ticket::setLabels).thenReturn(ticket);
     }
 
     private Ticket process(Row row, RowMetadata metadata) {
@@ -149,35 +653,204 @@ class TicketRepositoryInternalImpl implements TicketRepositoryInternal {
 
     @Override
     public <S extends Ticket> Mono<S> save(S entity) {
-        if (entity.getId() == null) {
-            return insert(entity).flatMap(savedEntity -> updateRelations(savedEntity));
-        } else {
-            return update(entity)
-                .map(numberOfUpdates -> {
-                    if (numberOfUpdates.intValue() <= 0) {
-                        throw new IllegalStateException("Unable to update Ticket with id = " + entity.getId());
-                    }
-                    return entity;
-                })
-                .then(updateRelations(entity));
-        }
+        entity.setLastModifiedDate(now());
+        return nextSyncVersion()
+            .flatMap(syncVersion -> {
+                entity.setSyncVersion(syncVersion);
+                if (entity.getId() == null) {
+                    // a new ticket has no label links yet
+                    entity.setPersistedLabelIds(new LongHashSet());
+                    return insert(entity)
+                        .flatMap(savedEntity -> updateRelations(savedEntity))
+                        .flatMap(savedEntity -> recordChange(TicketChangeEventDTO.Type.CREATED, savedEntity));
+                }
+                return update(entity)
+                    .map(numberOfUpdates -> {
+                        if (numberOfUpdates.intValue() <= 0) {
+                            throw new IllegalStateException("Unable to update Ticket with id = " + entity.getId());
+                        }
+                        return entity;
+                    })
+                    .then(updateRelations(entity))
+                    .flatMap(savedEntity -> recordChange(TicketChangeEventDTO.Type.UPDATED, savedEntity));
+            });
     }
 
+    /**
+     * Updates the ticket, guarded by its {@link Ticket#getVersion() version}: the row is only written if its version
+     * still matches the one of the given entity, and the version is incremented on success.
+     *
+     * @return the number of updated rows. Fails with an {@link OptimisticLockingFailureException} instead of returning
+     * {@code 0}, if the ticket was modified concurrently or doesn't exist.
+     */
     @Override
     public Mono<Integer> update(Ticket entity) {
-        //fixme is this the proper way?
-        return r2dbcEntityTemplate.update(entity).thenReturn(1);
+        Long version = entity.getVersion();
+        Criteria criteria = where("id").is(entity.getId());
+        criteria = version != null ? criteria.and("version").is(version) : criteria.and("version").isNull();
+        long nextVersion = version != null ? version + 1 : 0L;
+        return r2dbcEntityTemplate
+            .update(Ticket.class)
+            .matching(query(criteria))
+            .apply(
+                Update
+                    .update("title", entity.getTitle())
+                    .set("description", entity.getDescription())
+                    .set("due_date", entity.getDueDate())
+                    .set("done", entity.getDone())
+                    .set("project_id", entity.getProjectId())
+                    .set("assigned_to_id", entity.getAssignedToId())
+                    .set("last_modified_date", entity.getLastModifiedDate())
+                    .set("sync_version", entity.getSyncVersion())
+                    .set("version", nextVersion)
+            )
+            .flatMap(numberOfUpdates -> {
+                if (numberOfUpdates == 0) {
+                    return Mono.error(
+                        new OptimisticLockingFailureException(
+                            "Unable to update Ticket with id = " + entity.getId() + " and version = " + version
+                        )
+                    );
+                }
+                entity.setVersion(nextVersion);
+                return Mono.just(numberOfUpdates);
+            });
+    }
+
+    @Override
+    public Mono<Ticket> partialUpdate(Ticket patch, boolean reload) {
+        Assert.notNull(patch.getId(), "id is null");
+        Map<String, Object> values = new LinkedHashMap<>();
+        if (patch.getTitle() != null) {
+            values.put("title", patch.getTitle());
+        }
+        if (patch.getDescription() != null) {
+            values.put("description", patch.getDescription());
+        }
+        if (patch.getDueDate() != null) {
+            values.put("due_date", patch.getDueDate());
+        }
+        if (patch.getDone() != null) {
+            values.put("done", patch.getDone());
+        }
+
+        StringBuilder sql = new StringBuilder(
+            "UPDATE ticket SET version = version + 1, last_modified_date = :lastModifiedDate, sync_version = :syncVersion"
+        );
+        values.keySet().forEach(column -> sql.append(", ").append(column).append(" = :").append(column));
+        sql.append(" WHERE id = :id");
+        if (patch.getVersion() != null) {
+            sql.append(" AND version = :version");
+        }
+
+        DatabaseClient.GenericExecuteSpec spec = db.sql(sql.toString()).bind("id", patch.getId()).bind("lastModifiedDate", now());
+        for (Entry<String, Object> value : values.entrySet()) {
+            spec = spec.bind(value.getKey(), value.getValue());
+        }
+        if (patch.getVersion() != null) {
+            spec = spec.bind("version", patch.getVersion());
+        }
+        DatabaseClient.GenericExecuteSpec updateSpec = spec;
+        return nextSyncVersion()
+            .flatMap(syncVersion -> updateSpec.bind("syncVersion", syncVersion).fetch().rowsUpdated())
+            .flatMap(numberOfUpdates -> {
+                if (numberOfUpdates == 0) {
+                    if (patch.getVersion() != null) {
+                        return Mono.error(
+                            new OptimisticLockingFailureException(
+                                "Unable to update Ticket with id = " + patch.getId() + " and version = " + patch.getVersion()
+                            )
+                        );
+                    }
+                    return Mono.empty();
+                }
+                Mono<Ticket> updated = patch.isLabelsGiven() ? updateRelations(patch) : Mono.just(patch);
+                if (reload) {
+                    return updated
+                        .then(findById(patch.getId()))
+                        .flatMap(updatedEntity -> recordChange(TicketChangeEventDTO.Type.UPDATED, updatedEntity));
+                }
+                if (patch.getVersion() != null) {
+                    patch.setVersion(patch.getVersion() + 1);
+                }
+                return updated.flatMap(updatedEntity ->
+                    recordChanges(TicketChangeEventDTO.Type.UPDATED, List.of(updatedEntity.getId())).thenReturn(updatedEntity)
+                );
+            });
+    }
+
+    @Override
+    public Mono<Long> findVersionById(Long id) {
+        return db.sql("SELECT version FROM ticket WHERE id = :id").bind("id", id).map(row -> row.get("version", Long.class)).one();
     }
 
     @Override
     public Mono<Void> deleteById(Long entityId) {
-        return deleteRelations(entityId)
-            .then(r2dbcEntityTemplate.delete(Ticket.class).matching(query(where("id").is(entityId))).all().then());
+        return nextSyncVersion()
+            .flatMap(syncVersion ->
+                deleteRelations(entityId)
+                    .then(r2dbcEntityTemplate.delete(Ticket.class).matching(query(where("id").is(entityId))).all())
+                    .flatMap(numberOfDeletes ->
+                        numberOfDeletes > 0
+                            ? outboxService
+                                .record(TicketChangeEventService.AGGREGATE_TYPE, entityId, TicketChangeEventDTO.Type.DELETED.name(), null)
+                                .then(recordTombstone(entityId, syncVersion))
+                            : Mono.<Void>empty()
+                    )
+            )
+            .then();
     }
 
+    /**
+     * Writes the label links of the ticket, if its labels differ from the ones it was loaded with.
+     */
     protected <S extends Ticket> Mono<S> updateRelations(S entity) {
-        Mono<Void> result = entityManager.updateLinkTable(labelLink, entity.getId(), entity.getLabels().stream().map(Label::getId)).then();
-        return result.thenReturn(entity);
+        LongHashSet labelIds = entity.getLabelIds();
+        return entityManager
+            .syncLinkTable(labelLink, entity.getId(), entity.getPersistedLabelIds(), labelIds)
+            .doOnNext(numberOfUpdates -> entity.setPersistedLabelIds(labelIds))
+            .thenReturn(entity);
+    }
+
+    /**
+     * Writes the change to the outbox, in the transaction of the change.
+     */
+    private <S extends Ticket> Mono<S> recordChange(TicketChangeEventDTO.Type type, S entity) {
+        return outboxService
+            .record(TicketChangeEventService.AGGREGATE_TYPE, entity.getId(), type.name(), changePayload(entity))
+            .thenReturn(entity);
+    }
+
+    /**
+     * The payload of a change event: the columns of the ticket as they were written, with its relations referenced by
+     * their id only, since the related entities sent along with a ticket are not read from the database.
+     */
+    private static Ticket changePayload(Ticket entity) {
+        Ticket payload = new Ticket()
+            .id(entity.getId())
+            .title(entity.getTitle())
+            .description(entity.getDescription())
+            .dueDate(entity.getDueDate())
+            .done(entity.getDone())
+            .version(entity.getVersion())
+            .lastModifiedDate(entity.getLastModifiedDate())
+            .syncVersion(entity.getSyncVersion());
+        payload.setProjectId(entity.getProjectId());
+        payload.setAssignedToId(entity.getAssignedToId());
+        entity.getLabels().forEach(label -> payload.addLabel(new Label().id(label.getId())));
+        return payload;
+    }
+
+    /**
+     * Writes the tombstone of a deleted ticket, for the clients syncing the tickets.
+     */
+    private Mono<Void> recordTombstone(Long entityId, Long syncVersion) {
+        return db
+            .sql("INSERT INTO ticket_tombstone (ticket_id, deleted_date, sync_version) VALUES (:ticketId, :deletedDate, :syncVersion)")
+            .bind("ticketId", entityId)
+            .bind("deletedDate", now())
+            .bind("syncVersion", syncVersion)
+            .then();
     }
 
     protected Mono<Void> deleteRelations(Long entityId) {
@@ -187,14 +860,38 @@ class TicketRepositoryInternalImpl implements TicketRepositoryInternal {
 
 class TicketSqlHelper {
 
+    static final FieldColumns FIELDS = new FieldColumns()
+        .add("id", "id")
+        .add("title", "title")
+        .add("description", "description")
+        .add("dueDate", "due_date")
+        .add("done", "done")
+        .add("version", "version")
+        .add("lastModifiedDate", "last_modified_date")
+        .add("syncVersion", "sync_version")
+        .add("projectId", "project_id")
+        .add("assignedToId", "assigned_to_id");
+
     static List<Expression> getColumns(Table table, String columnPrefix) {
+        return getColumns(table, columnPrefix, null);
+    }
+
+    /**
+     * The columns of the given fields of a ticket, and {@code NULL} for the others.
+     */
+    static List<Expression> getColumns(Table table, String columnPrefix, Set<String> fields) {
+        return FIELDS.getColumns(table, columnPrefix, fields);
+    }
+
+    /**
+     * The columns of the summary of a ticket, leaving out its description and version.
+     */
+    static List<Expression> getSummaryColumns(Table table, String columnPrefix) {
         List<Expression> columns = new ArrayList<>();
         columns.add(Column.aliased("id", table, columnPrefix + "_id"));
         columns.add(Column.aliased("title", table, columnPrefix + "_title"));
-        columns.add(Column.aliased("description", table, columnPrefix + "_description"));
         columns.add(Column.aliased("due_date", table, columnPrefix + "_due_date"));
         columns.add(Column.aliased("done", table, columnPrefix + "_done"));
-
         columns.add(Column.aliased("project_id", table, columnPrefix + "_project_id"));
         columns.add(Column.aliased("assigned_to_id", table, columnPrefix + "_assigned_to_id"));
         return columns;
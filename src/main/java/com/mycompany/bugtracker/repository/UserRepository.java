@@ -5,10 +5,18 @@ import static org.springframework.data.relational.core.query.Query.query;
 
 import com.mycompany.bugtracker.domain.Authority;
 import com.mycompany.bugtracker.domain.User;
+import com.mycompany.bugtracker.repository.rowmapper.UserRowMapper;
+import com.mycompany.bugtracker.service.EntityManager;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.apache.commons.beanutils.BeanComparator;
 import org.springframework.data.domain.Pageable;
@@ -17,10 +25,11 @@ import org.springframework.data.r2dbc.convert.R2dbcConverter;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
-import org.springframework.data.relational.core.sql.Column;
 import org.springframework.data.relational.core.sql.Expression;
+import org.springframework.data.relational.core.sql.Select;
 import org.springframework.data.relational.core.sql.Table;
 import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -32,20 +41,25 @@ import reactor.util.function.Tuples;
  */
 @Repository
 public interface UserRepository extends R2dbcRepository<User, Long>, UserRepositoryInternal {
+    /**
+     * The fields of a user which can be read without the others.
+     */
+    Set<String> SPARSE_FIELDS = Set.of("id", "login", "firstName", "lastName", "email", "imageUrl", "activated", "langKey", "authorities");
+
     Mono<User> findOneByActivationKey(String activationKey);
 
     Flux<User> findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(LocalDateTime dateTime);
 
     Mono<User> findOneByResetKey(String resetKey);
 
-    Mono<User> findOneByEmailIgnoreCase(String email);
-
     Mono<User> findOneByLogin(String login);
 
     Flux<User> findAllByIdNotNull(Pageable pageable);
 
     Flux<User> findAllByIdNotNullAndActivatedIsTrue(Pageable pageable);
 
+    Flux<User> findAllByLoginInAndActivatedIsTrue(Collection<String> logins);
+
     Mono<Long> count();
 
     @Query("INSERT INTO jhi_user_authority VALUES(:userId, :authority)")
@@ -67,19 +81,122 @@ interface UserRepositoryInternal extends DeleteExtended<User> {
 
     Mono<User> findOneWithAuthoritiesByEmailIgnoreCase(String email);
 
+    Mono<User> findOneByEmailIgnoreCase(String email);
+
     Flux<User> findAllWithAuthorities(Pageable pageable);
+
+    /**
+     * Finds a page of the users, reading only the columns of the given fields, and their authorities only if they are
+     * among the fields. The other fields are left {@code null}.
+     *
+     * @param pageable the page, and its sort on the fields of the user.
+     * @param fields the names of the fields to read, among {@link UserRepository#SPARSE_FIELDS}.
+     * @return the users of the page.
+     */
+    Flux<User> findAllWithFields(Pageable pageable, Set<String> fields);
+
+    Flux<User> findAllByLoginOrEmailIn(Collection<String> logins, Collection<String> emails);
+
+    /**
+     * Inserts new users with a single statement, without their authorities.
+     *
+     * @param users the users to insert, without id.
+     * @return the same users, with their generated id set.
+     */
+    Flux<User> insertAll(List<User> users);
+
+    /**
+     * Inserts the authorities of users with a single statement.
+     *
+     * @param users the users, with their id, which have none of their authorities saved yet.
+     * @return a {@link Mono} which completes once the authorities are inserted.
+     */
+    Mono<Void> saveUserAuthorities(Collection<User> users);
+
+    Flux<String> findAuthorityNamesByUserId(Long userId);
+
+    /**
+     * Inserts authorities of a user with a single statement.
+     *
+     * @param userId the id of the user.
+     * @param authorityNames the names of the authorities, none of which is saved yet for the user.
+     * @return a {@link Mono} which completes once the authorities are inserted.
+     */
+    Mono<Void> saveUserAuthorities(Long userId, Collection<String> authorityNames);
+
+    /**
+     * Deletes authorities of a user with a single statement.
+     *
+     * @param userId the id of the user.
+     * @param authorityNames the names of the authorities.
+     * @return a {@link Mono} which completes once the authorities are deleted.
+     */
+    Mono<Void> deleteUserAuthorities(Long userId, Collection<String> authorityNames);
+
+    /**
+     * Finds the ids of the users which were not activated, in keyset order.
+     *
+     * @param createdBefore the date the users were created before.
+     * @param afterId the id the users come after, as the last id of the previous batch.
+     * @param limit the maximum number of ids.
+     * @return the ids, in ascending order.
+     */
+    Flux<Long> findNotActivatedUserIds(Instant createdBefore, long afterId, int limit);
+
+    /**
+     * Deletes users which are still not activated, along with their authorities, with one statement per table.
+     *
+     * @param ids the ids of the users.
+     * @return the number of deleted users.
+     */
+    Mono<Integer> deleteNotActivatedUsers(Collection<Long> ids);
 }
 
 class UserRepositoryInternalImpl implements UserRepositoryInternal {
 
+    private static final List<InsertColumn> INSERT_COLUMNS = List.of(
+        new InsertColumn("login", String.class, User::getLogin),
+        new InsertColumn("password_hash", String.class, User::getPassword),
+        new InsertColumn("first_name", String.class, User::getFirstName),
+        new InsertColumn("last_name", String.class, User::getLastName),
+        new InsertColumn("email", String.class, User::getEmail),
+        new InsertColumn("image_url", String.class, User::getImageUrl),
+        new InsertColumn("activated", Boolean.class, User::isActivated),
+        new InsertColumn("lang_key", String.class, User::getLangKey),
+        new InsertColumn("activation_key", String.class, User::getActivationKey),
+        new InsertColumn("reset_key", String.class, User::getResetKey),
+        new InsertColumn("reset_date", Instant.class, User::getResetDate),
+        new InsertColumn("created_by", String.class, User::getCreatedBy),
+        new InsertColumn("created_date", Instant.class, User::getCreatedDate),
+        new InsertColumn("last_modified_by", String.class, User::getLastModifiedBy),
+        new InsertColumn("last_modified_date", Instant.class, User::getLastModifiedDate)
+    );
+
+    private static final Table entityTable = Table.aliased("jhi_user", EntityManager.ENTITY_ALIAS);
+
     private final DatabaseClient db;
     private final R2dbcEntityTemplate r2dbcEntityTemplate;
     private final R2dbcConverter r2dbcConverter;
+    private final EntityManager entityManager;
+    private final UserRowMapper userMapper;
 
-    public UserRepositoryInternalImpl(DatabaseClient db, R2dbcEntityTemplate r2dbcEntityTemplate, R2dbcConverter r2dbcConverter) {
+    /**
+     * The rendered selects of the users, by the set of their fields which are read.
+     */
+    private final Map<Set<String>, String> selectsByFields = new ConcurrentHashMap<>();
+
+    public UserRepositoryInternalImpl(
+        DatabaseClient db,
+        R2dbcEntityTemplate r2dbcEntityTemplate,
+        R2dbcConverter r2dbcConverter,
+        EntityManager entityManager,
+        UserRowMapper userMapper
+    ) {
         this.db = db;
         this.r2dbcEntityTemplate = r2dbcEntityTemplate;
         this.r2dbcConverter = r2dbcConverter;
+        this.entityManager = entityManager;
+        this.userMapper = userMapper;
     }
 
     @Override
@@ -92,6 +209,14 @@ class UserRepositoryInternalImpl implements UserRepositoryInternal {
         return findOneWithAuthoritiesBy("email", email.toLowerCase());
     }
 
+    @Override
+    public Mono<User> findOneByEmailIgnoreCase(String email) {
+        // the emails are saved in lower case, so the lookup can use the unique index on the column
+        return Mono
+            .justOrEmpty(email)
+            .flatMap(value -> r2dbcEntityTemplate.selectOne(query(where("email").is(value.toLowerCase())), User.class));
+    }
+
     @Override
     public Flux<User> findAllWithAuthorities(Pageable pageable) {
         String property = pageable.getSort().stream().map(Sort.Order::getProperty).findFirst().orElse("id");
@@ -118,13 +243,195 @@ class UserRepositoryInternalImpl implements UserRepositoryInternal {
             .take(size);
     }
 
+    @Override
+    public Flux<User> findAllWithFields(Pageable pageable, Set<String> fields) {
+        Flux<User> users = Flux.defer(() -> {
+            String select = selectsByFields.computeIfAbsent(Set.copyOf(fields), this::createSelect);
+            return db
+                .sql(select + UserSqlHelper.FIELDS.page(EntityManager.ENTITY_ALIAS, pageable))
+                .map(row -> userMapper.apply(row, EntityManager.ENTITY_ALIAS))
+                .all();
+        });
+        return fields.contains("authorities") ? fetchAuthorities(users) : users;
+    }
+
+    private String createSelect(Set<String> fields) {
+        List<Expression> columns = UserSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS, fields);
+        return entityManager.createSelect(Select.builder().select(columns).from(entityTable).build());
+    }
+
+    /**
+     * Sets the authorities of the users, reading them for all the users with a single query.
+     */
+    private Flux<User> fetchAuthorities(Flux<User> users) {
+        return users
+            .collectList()
+            .flatMapMany(list -> {
+                if (list.isEmpty()) {
+                    return Flux.empty();
+                }
+                Map<Long, User> usersById = list.stream().collect(Collectors.toMap(User::getId, Function.identity()));
+                return db
+                    .sql("SELECT user_id, authority_name FROM jhi_user_authority WHERE user_id IN (:ids)")
+                    .bind("ids", usersById.keySet())
+                    .map(row -> Tuples.of(row.get("user_id", Long.class), row.get("authority_name", String.class)))
+                    .all()
+                    .doOnNext(userAuthority -> {
+                        Authority authority = new Authority();
+                        authority.setName(userAuthority.getT2());
+                        usersById.get(userAuthority.getT1()).getAuthorities().add(authority);
+                    })
+                    .thenMany(Flux.fromIterable(list));
+            });
+    }
+
+    @Override
+    public Flux<User> findAllByLoginOrEmailIn(Collection<String> logins, Collection<String> emails) {
+        if (logins.isEmpty() && emails.isEmpty()) {
+            return Flux.empty();
+        }
+        List<String> conditions = new ArrayList<>();
+        if (!logins.isEmpty()) {
+            conditions.add("login IN (:logins)");
+        }
+        if (!emails.isEmpty()) {
+            conditions.add("email IN (:emails)");
+        }
+        GenericExecuteSpec spec = db.sql("SELECT * FROM jhi_user WHERE " + String.join(" OR ", conditions));
+        if (!logins.isEmpty()) {
+            spec = spec.bind("logins", logins);
+        }
+        if (!emails.isEmpty()) {
+            spec = spec.bind("emails", emails);
+        }
+        return spec.map((row, metadata) -> r2dbcConverter.read(User.class, row, metadata)).all();
+    }
+
+    @Override
+    public Flux<User> insertAll(List<User> users) {
+        if (users.isEmpty()) {
+            return Flux.empty();
+        }
+        String columns = INSERT_COLUMNS.stream().map(column -> column.name).collect(Collectors.joining(", "));
+        List<String> rows = new ArrayList<>(users.size());
+        for (int i = 0; i < users.size(); i++) {
+            int row = i;
+            rows.add(INSERT_COLUMNS.stream().map(column -> ":" + column.name + row).collect(Collectors.joining(", ", "(", ")")));
+        }
+        GenericExecuteSpec spec = db.sql("INSERT INTO jhi_user (" + columns + ") VALUES " + String.join(", ", rows));
+        for (int i = 0; i < users.size(); i++) {
+            for (InsertColumn column : INSERT_COLUMNS) {
+                Object value = column.getter.apply(users.get(i));
+                spec = value != null ? spec.bind(column.name + i, value) : spec.bindNull(column.name + i, column.type);
+            }
+        }
+        // the generated ids are read back by login, as not all drivers return them for a multi-row insert
+        List<String> logins = users.stream().map(User::getLogin).collect(Collectors.toList());
+        return spec
+            .then()
+            .then(
+                db
+                    .sql("SELECT id, login FROM jhi_user WHERE login IN (:logins)")
+                    .bind("logins", logins)
+                    .map(row -> Tuples.of(row.get("login", String.class), row.get("id", Long.class)))
+                    .all()
+                    .collectMap(Tuple2::getT1, Tuple2::getT2)
+            )
+            .flatMapIterable(ids -> {
+                users.forEach(user -> user.setId(ids.get(user.getLogin())));
+                return users;
+            });
+    }
+
+    @Override
+    public Mono<Void> saveUserAuthorities(Collection<User> users) {
+        return insertUserAuthorities(
+            users
+                .stream()
+                .flatMap(user -> user.getAuthorities().stream().map(authority -> Tuples.of(user.getId(), authority.getName())))
+                .collect(Collectors.toList())
+        );
+    }
+
+    @Override
+    public Flux<String> findAuthorityNamesByUserId(Long userId) {
+        return db
+            .sql("SELECT authority_name FROM jhi_user_authority WHERE user_id = :userId")
+            .bind("userId", userId)
+            .map(row -> row.get("authority_name", String.class))
+            .all();
+    }
+
+    @Override
+    public Mono<Void> saveUserAuthorities(Long userId, Collection<String> authorityNames) {
+        return insertUserAuthorities(authorityNames.stream().map(name -> Tuples.of(userId, name)).collect(Collectors.toList()));
+    }
+
+    @Override
+    public Mono<Void> deleteUserAuthorities(Long userId, Collection<String> authorityNames) {
+        if (authorityNames.isEmpty()) {
+            return Mono.empty();
+        }
+        return db
+            .sql("DELETE FROM jhi_user_authority WHERE user_id = :userId AND authority_name IN (:authorityNames)")
+            .bind("userId", userId)
+            .bind("authorityNames", authorityNames)
+            .then();
+    }
+
+    @Override
+    public Flux<Long> findNotActivatedUserIds(Instant createdBefore, long afterId, int limit) {
+        return db
+            .sql(
+                "SELECT id FROM jhi_user WHERE activated = false AND activation_key IS NOT NULL AND created_date < :createdBefore" +
+                " AND id > :afterId ORDER BY id LIMIT :limit"
+            )
+            .bind("createdBefore", createdBefore)
+            .bind("afterId", afterId)
+            .bind("limit", limit)
+            .map(row -> row.get("id", Long.class))
+            .all();
+    }
+
+    @Override
+    public Mono<Integer> deleteNotActivatedUsers(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Mono.just(0);
+        }
+        // a user activated since the ids were selected is kept, with its authorities
+        return db
+            .sql(
+                "DELETE FROM jhi_user_authority WHERE user_id IN (SELECT id FROM jhi_user WHERE id IN (:ids) AND activated = false)"
+            )
+            .bind("ids", ids)
+            .then()
+            .then(db.sql("DELETE FROM jhi_user WHERE id IN (:ids) AND activated = false").bind("ids", ids).fetch().rowsUpdated())
+            .flatMap(numberOfDeletes -> DeletionCounter.add(db, DeletionCounter.USER, numberOfDeletes).thenReturn(numberOfDeletes));
+    }
+
+    private Mono<Void> insertUserAuthorities(List<Tuple2<Long, String>> userAuthorities) {
+        if (userAuthorities.isEmpty()) {
+            return Mono.empty();
+        }
+        List<String> rows = new ArrayList<>(userAuthorities.size());
+        for (int i = 0; i < userAuthorities.size(); i++) {
+            rows.add("(:userId" + i + ", :authority" + i + ")");
+        }
+        GenericExecuteSpec spec = db.sql("INSERT INTO jhi_user_authority (user_id, authority_name) VALUES " + String.join(", ", rows));
+        for (int i = 0; i < userAuthorities.size(); i++) {
+            spec = spec.bind("userId" + i, userAuthorities.get(i).getT1()).bind("authority" + i, userAuthorities.get(i).getT2());
+        }
+        return spec.then();
+    }
+
     @Override
     public Mono<Void> delete(User user) {
         return db
             .sql("DELETE FROM jhi_user_authority WHERE user_id = :userId")
             .bind("userId", user.getId())
             .then()
-            .then(r2dbcEntityTemplate.delete(User.class).matching(query(where("id").is(user.getId()))).all().then());
+            .then(r2dbcEntityTemplate.delete(User.class).matching(query(where("id").is(user.getId()))).all())
+            .flatMap(numberOfDeletes -> DeletionCounter.add(db, DeletionCounter.USER, numberOfDeletes));
     }
 
     private Mono<User> findOneWithAuthoritiesBy(String fieldName, Object fieldValue) {
@@ -155,24 +462,47 @@ class UserRepositoryInternalImpl implements UserRepositoryInternal {
 
         return user;
     }
+
+    private static class InsertColumn {
+
+        private final String name;
+
+        private final Class<?> type;
+
+        private final Function<User, Object> getter;
+
+        InsertColumn(String name, Class<?> type, Function<User, Object> getter) {
+            this.name = name;
+            this.type = type;
+            this.getter = getter;
+        }
+    }
 }
 
 class UserSqlHelper {
 
+    static final FieldColumns FIELDS = new FieldColumns()
+        .add("id", "id")
+        .add("login", "login")
+        .add("password", "password_hash", "password")
+        .add("firstName", "first_name")
+        .add("lastName", "last_name")
+        .add("email", "email")
+        .add("activated", "activated")
+        .add("langKey", "lang_key")
+        .add("imageUrl", "image_url")
+        .add("activationKey", "activation_key")
+        .add("resetKey", "reset_key")
+        .add("resetDate", "reset_date");
+
     static List<Expression> getColumns(Table table, String columnPrefix) {
-        List<Expression> columns = new ArrayList<>();
-        columns.add(Column.aliased("id", table, columnPrefix + "_id"));
-        columns.add(Column.aliased("login", table, columnPrefix + "_login"));
-        columns.add(Column.aliased("password_hash", table, columnPrefix + "_password"));
-        columns.add(Column.aliased("first_name", table, columnPrefix + "_first_name"));
-        columns.add(Column.aliased("last_name", table, columnPrefix + "_last_name"));
-        columns.add(Column.aliased("email", table, columnPrefix + "_email"));
-        columns.add(Column.aliased("activated", table, columnPrefix + "_activated"));
-        columns.add(Column.aliased("lang_key", table, columnPrefix + "_lang_key"));
-        columns.add(Column.aliased("image_url", table, columnPrefix + "_image_url"));
-        columns.add(Column.aliased("activation_key", table, columnPrefix + "_activation_key"));
-        columns.add(Column.aliased("reset_key", table, columnPrefix + "_reset_key"));
-        columns.add(Column.aliased("reset_date", table, columnPrefix + "_reset_date"));
-        return columns;
+        return getColumns(table, columnPrefix, null);
+    }
+
+    /**
+     * The columns of the given fields of a user, and {@code NULL} for the others.
+     */
+    static List<Expression> getColumns(Table table, String columnPrefix, Set<String> fields) {
+        return FIELDS.getColumns(table, columnPrefix, fields);
     }
 }
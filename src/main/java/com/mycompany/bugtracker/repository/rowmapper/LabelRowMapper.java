@@ -3,6 +3,7 @@ package com.mycompany.bugtracker.repository.rowmapper;
 import com.mycompany.bugtracker.domain.Label;
 import com.mycompany.bugtracker.service.ColumnConverter;
 import io.r2dbc.spi.Row;
+import java.time.Instant;
 import java.util.function.BiFunction;
 import org.springframework.stereotype.Service;
 
@@ -27,6 +28,7 @@ public class LabelRowMapper implements BiFunction<Row, String, Label> {
         Label entity = new Label();
         entity.setId(converter.fromRow(row, prefix + "_id", Long.class));
         entity.setLabel(converter.fromRow(row, prefix + "_label", String.class));
+        entity.setLastModifiedDate(converter.fromRow(row, prefix + "_last_modified_date", Instant.class));
         return entity;
     }
 }
@@ -3,6 +3,7 @@ package com.mycompany.bugtracker.repository.rowmapper;
 import com.mycompany.bugtracker.domain.Project;
 import com.mycompany.bugtracker.service.ColumnConverter;
 import io.r2dbc.spi.Row;
+import java.time.Instant;
 import java.util.function.BiFunction;
 import org.springframework.stereotype.Service;
 
@@ -27,6 +28,7 @@ public class ProjectRowMapper implements BiFunction<Row, String, Project> {
         Project entity = new Project();
         entity.setId(converter.fromRow(row, prefix + "_id", Long.class));
         entity.setName(converter.fromRow(row, prefix + "_name", String.class));
+        entity.setLastModifiedDate(converter.fromRow(row, prefix + "_last_modified_date", Instant.class));
         return entity;
     }
 }
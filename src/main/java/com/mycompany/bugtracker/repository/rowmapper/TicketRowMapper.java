@@ -3,6 +3,7 @@ package com.mycompany.bugtracker.repository.rowmapper;
 import com.mycompany.bugtracker.domain.Ticket;
 import com.mycompany.bugtracker.service.ColumnConverter;
 import io.r2dbc.spi.Row;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.function.BiFunction;
 import org.springframework.stereotype.Service;
@@ -31,6 +32,9 @@ public class TicketRowMapper implements BiFunction<Row, String, Ticket> {
         entity.setDescription(converter.fromRow(row, prefix + "_description", String.class));
         entity.setDueDate(converter.fromRow(row, prefix + "_due_date", LocalDate.class));
         entity.setDone(converter.fromRow(row, prefix + "_done", Boolean.class));
+        entity.setVersion(converter.fromRow(row, prefix + "_version", Long.class));
+        entity.setLastModifiedDate(converter.fromRow(row, prefix + "_last_modified_date", Instant.class));
+        entity.setSyncVersion(converter.fromRow(row, prefix + "_sync_version", Long.class));
         entity.setProjectId(converter.fromRow(row, prefix + "_project_id", Long.class));
         entity.setAssignedToId(converter.fromRow(row, prefix + "_assigned_to_id", Long.class));
         return entity;
@@ -0,0 +1,39 @@
+package com.mycompany.bugtracker.repository.rowmapper;
+
+import com.mycompany.bugtracker.service.ColumnConverter;
+import com.mycompany.bugtracker.service.dto.TicketSummaryDTO;
+import io.r2dbc.spi.Row;
+import java.time.LocalDate;
+import java.util.function.BiFunction;
+import org.springframework.stereotype.Service;
+
+/**
+ * Converter between {@link Row} to {@link TicketSummaryDTO}, with proper type conversions.
+ */
+@Service
+public class TicketSummaryRowMapper implements BiFunction<Row, String, TicketSummaryDTO> {
+
+    private final ColumnConverter converter;
+
+    public TicketSummaryRowMapper(ColumnConverter converter) {
+        this.converter = converter;
+    }
+
+    /**
+     * Take a {@link Row} and a column prefix, and extract all the fields.
+     * @return the {@link TicketSummaryDTO} stored in the database.
+     */
+    @Override
+    public TicketSummaryDTO apply(Row row, String prefix) {
+        TicketSummaryDTO summary = new TicketSummaryDTO();
+        summary.setId(converter.fromRow(row, prefix + "_id", Long.class));
+        summary.setTitle(converter.fromRow(row, prefix + "_title", String.class));
+        summary.setDone(converter.fromRow(row, prefix + "_done", Boolean.class));
+        summary.setDueDate(converter.fromRow(row, prefix + "_due_date", LocalDate.class));
+        summary.setProjectId(converter.fromRow(row, prefix + "_project_id", Long.class));
+        summary.setProjectName(converter.fromRow(row, prefix + "_project_name", String.class));
+        summary.setAssignedToId(converter.fromRow(row, prefix + "_assigned_to_id", Long.class));
+        summary.setAssignedToLogin(converter.fromRow(row, prefix + "_assigned_to_login", String.class));
+        return summary;
+    }
+}
@@ -0,0 +1,70 @@
+package com.mycompany.bugtracker.service;
+
+import com.mycompany.bugtracker.domain.Authority;
+import com.mycompany.bugtracker.repository.AuthorityRepository;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Service for reading the {@link Authority} entities.
+ * <p>
+ * The authorities almost never change, so they are read once and kept in memory for a while.
+ */
+@Service
+public class AuthorityService {
+
+    private static final Duration CACHE_TIME_TO_LIVE = Duration.ofMinutes(10);
+
+    private final AuthorityRepository authorityRepository;
+
+    private volatile Mono<Map<String, Authority>> authorities;
+
+    public AuthorityService(AuthorityRepository authorityRepository) {
+        this.authorityRepository = authorityRepository;
+        evictAuthorities();
+    }
+
+    /**
+     * Gets all the authorities.
+     *
+     * @return the authorities, by name.
+     */
+    public Mono<Map<String, Authority>> getAuthorities() {
+        return authorities;
+    }
+
+    /**
+     * Gets the authorities with the given names, ignoring the unknown ones.
+     *
+     * @param names the names of the authorities.
+     * @return the authorities.
+     */
+    public Mono<Set<Authority>> getAuthorities(Collection<String> names) {
+        if (names == null || names.isEmpty()) {
+            return Mono.just(new HashSet<>());
+        }
+        return authorities.map(byName ->
+            names.stream().map(byName::get).filter(Objects::nonNull).collect(Collectors.toCollection(HashSet::new))
+        );
+    }
+
+    /**
+     * Forgets the authorities, so they are read again on next use.
+     */
+    public void evictAuthorities() {
+        authorities =
+            authorityRepository
+                .findAll()
+                .collectMap(Authority::getName)
+                .map(Collections::unmodifiableMap)
+                .cache(byName -> CACHE_TIME_TO_LIVE, error -> Duration.ZERO, () -> Duration.ZERO);
+    }
+}
@@ -0,0 +1,139 @@
+package com.mycompany.bugtracker.service;
+
+import com.mycompany.bugtracker.config.ApplicationProperties;
+import com.mycompany.bugtracker.repository.LabelRepository;
+import com.mycompany.bugtracker.repository.ProjectRepository;
+import com.mycompany.bugtracker.repository.TicketRepository;
+import java.util.List;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Service for deleting the projects and the labels along with what refers to them.
+ * <p>
+ * The tickets of a project, or with a label, are detached or deleted by chunks of ids, with one statement per table
+ * for each chunk, and each chunk in its own transaction. The project or the label itself is deleted in the transaction
+ * of the last chunk, so a deletion which failed midway leaves it in place, with fewer tickets, and can simply be
+ * retried.
+ */
+@Service
+public class CascadeDeletionService {
+
+    /**
+     * What to do with the tickets of a deleted project, or with a deleted label.
+     */
+    public enum Cascade {
+        /**
+         * Leave the tickets as they are, so the deletion fails if there are any.
+         */
+        NONE,
+
+        /**
+         * Remove the tickets from the project, or the label from the tickets.
+         */
+        DETACH,
+
+        /**
+         * Delete the tickets.
+         */
+        DELETE,
+    }
+
+    private final Logger log = LoggerFactory.getLogger(CascadeDeletionService.class);
+
+    private final ProjectRepository projectRepository;
+
+    private final LabelRepository labelRepository;
+
+    private final TicketRepository ticketRepository;
+
+    private final TransactionalOperator transactionalOperator;
+
+    private final ApplicationProperties.CascadeDeletion properties;
+
+    public CascadeDeletionService(
+        ProjectRepository projectRepository,
+        LabelRepository labelRepository,
+        TicketRepository ticketRepository,
+        TransactionalOperator transactionalOperator,
+        ApplicationProperties applicationProperties
+    ) {
+        this.projectRepository = projectRepository;
+        this.labelRepository = labelRepository;
+        this.ticketRepository = ticketRepository;
+        this.transactionalOperator = transactionalOperator;
+        this.properties = applicationProperties.getCascadeDeletion();
+    }
+
+    /**
+     * Deletes a project.
+     *
+     * @param id the id of the project.
+     * @param cascade what to do with its tickets.
+     * @return the number of detached or deleted tickets.
+     */
+    public Mono<Long> deleteProject(Long id, Cascade cascade) {
+        int chunkSize = properties.getChunkSize();
+        Function<List<Long>, Mono<Integer>> apply = cascade == Cascade.DELETE
+            ? ticketRepository::deleteAllByIdIn
+            : ticketRepository::detachFromProject;
+        Flux<Long> findIds = cascade == Cascade.NONE ? Flux.empty() : ticketRepository.findIdsByProject(id, chunkSize);
+        return deleteInChunks(findIds, apply, projectRepository.deleteById(id))
+            .doOnNext(tickets -> log.debug("Deleted Project {}, with {} tickets {}", id, tickets, cascade));
+    }
+
+    /**
+     * Deletes a label.
+     *
+     * @param id the id of the label.
+     * @param cascade what to do with the tickets it is set on.
+     * @return the number of detached or deleted tickets.
+     */
+    public Mono<Long> deleteLabel(Long id, Cascade cascade) {
+        int chunkSize = properties.getChunkSize();
+        Function<List<Long>, Mono<Integer>> apply = cascade == Cascade.DELETE
+            ? ticketRepository::deleteAllByIdIn
+            : ids -> ticketRepository.removeLabel(id, ids);
+        Flux<Long> findIds = cascade == Cascade.NONE ? Flux.empty() : ticketRepository.findIdsByLabel(id, chunkSize);
+        return deleteInChunks(findIds, apply, labelRepository.deleteById(id))
+            .doOnNext(tickets -> log.debug("Deleted Label {}, with {} tickets {}", id, tickets, cascade));
+    }
+
+    /**
+     * Applies a statement to the chunks of ids found by a query, until a chunk is not full, then deletes the entity in
+     * the same transaction as that last chunk.
+     */
+    private Mono<Long> deleteInChunks(Flux<Long> findIds, Function<List<Long>, Mono<Integer>> apply, Mono<Void> deleteEntity) {
+        int chunkSize = properties.getChunkSize();
+        Mono<Chunk> chunk = Mono.defer(() ->
+            findIds
+                .collectList()
+                .flatMap(ids -> {
+                    Mono<Integer> applied = ids.isEmpty() ? Mono.just(0) : apply.apply(ids);
+                    if (ids.size() < chunkSize) {
+                        return applied.flatMap(count -> deleteEntity.thenReturn(new Chunk(count, true)));
+                    }
+                    return applied.map(count -> new Chunk(count, false));
+                })
+                .as(transactionalOperator::transactional)
+        );
+        return chunk.expand(last -> last.last ? Mono.empty() : chunk).reduce(0L, (total, last) -> total + last.applied);
+    }
+
+    private static class Chunk {
+
+        private final int applied;
+
+        private final boolean last;
+
+        Chunk(int applied, boolean last) {
+            this.applied = applied;
+            this.last = last;
+        }
+    }
+}
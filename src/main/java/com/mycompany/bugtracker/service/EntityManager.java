@@ -1,5 +1,8 @@
 package com.mycompany.bugtracker.service;
 
+import com.carrotsearch.hppc.LongHashSet;
+import com.carrotsearch.hppc.LongObjectHashMap;
+import com.carrotsearch.hppc.cursors.LongCursor;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -24,6 +27,7 @@ import org.springframework.data.relational.core.sql.SelectBuilder.SelectOrdered;
 import org.springframework.data.relational.core.sql.SqlIdentifier;
 import org.springframework.data.relational.core.sql.Table;
 import org.springframework.data.relational.core.sql.render.SqlRenderer;
+import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.r2dbc.core.Parameter;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
@@ -211,6 +215,132 @@ public class EntityManager {
             );
     }
 
+    /**
+     * Brings the table, which links the entity with the referred entities, in line with the given referenced ids:
+     * only the links which were removed are deleted, and only the new ones are inserted, so nothing is written if
+     * the links didn't change.
+     * @param table describes the link table, it contains a table name, the column name for the id, and for the referred entity id.
+     * @param entityId the id of the entity, for which the links are created.
+     * @param persistedIds the ids of the referred entities, as they were linked when the entity was loaded,
+     * or {@code null} if they are unknown, in which case they are read from the link table.
+     * @param referencedIds the id of the referred entities.
+     * @return the number of inserted and deleted rows.
+     */
+    public Mono<Integer> syncLinkTable(LinkTable table, Long entityId, LongHashSet persistedIds, LongHashSet referencedIds) {
+        Assert.notNull(entityId, "entityId is null");
+        Mono<LongHashSet> currentIds = persistedIds != null ? Mono.just(persistedIds) : findLinkedIds(table, entityId);
+        return currentIds.flatMap(current -> {
+            LongHashSet removedIds = new LongHashSet(current);
+            removedIds.removeAll(referencedIds);
+            LongHashSet addedIds = new LongHashSet(referencedIds);
+            addedIds.removeAll(current);
+            return deleteFromLinkTable(table, entityId, removedIds)
+                .flatMap(deleted -> insertIntoLinkTable(table, entityId, addedIds).map(inserted -> deleted + inserted));
+        });
+    }
+
+    /**
+     * Reads the ids of the entities, which are linked with the given entity.
+     * @param table describes the link table, it contains a table name, the column name for the id, and for the referred entity id.
+     * @param entityId the id of the entity.
+     * @return the ids of the referred entities.
+     */
+    public Mono<LongHashSet> findLinkedIds(LinkTable table, Long entityId) {
+        return r2dbcEntityTemplate
+            .getDatabaseClient()
+            .sql("SELECT " + table.referenceColumn + " FROM " + table.tableName + " WHERE " + table.idColumn + " = :entityId")
+            .bind("entityId", entityId)
+            .map(row -> row.get(table.referenceColumn, Long.class))
+            .all()
+            .collect(LongHashSet::new, LongHashSet::add);
+    }
+
+    /**
+     * Reads the ids of the entities, which are linked with any of the given entities, with a single query.
+     * @param table describes the link table, it contains a table name, the column name for the id, and for the referred entity id.
+     * @param entityIds the ids of the entities.
+     * @return the ids of the referred entities, by entity id. The entities without links are left out.
+     */
+    public Mono<LongObjectHashMap<LongHashSet>> findLinkedIds(LinkTable table, Collection<Long> entityIds) {
+        if (entityIds.isEmpty()) {
+            return Mono.just(new LongObjectHashMap<>());
+        }
+        return r2dbcEntityTemplate
+            .getDatabaseClient()
+            .sql(
+                "SELECT " +
+                table.idColumn +
+                ", " +
+                table.referenceColumn +
+                " FROM " +
+                table.tableName +
+                " WHERE " +
+                table.idColumn +
+                " IN (:entityIds)"
+            )
+            .bind("entityIds", entityIds)
+            .map(row -> new long[] { row.get(table.idColumn, Long.class), row.get(table.referenceColumn, Long.class) })
+            .all()
+            .collect(
+                LongObjectHashMap<LongHashSet>::new,
+                (linkedIds, link) -> {
+                    LongHashSet ids = linkedIds.get(link[0]);
+                    if (ids == null) {
+                        ids = new LongHashSet();
+                        linkedIds.put(link[0], ids);
+                    }
+                    ids.add(link[1]);
+                }
+            );
+    }
+
+    private Mono<Integer> insertIntoLinkTable(LinkTable table, Long entityId, LongHashSet referencedIds) {
+        if (referencedIds.isEmpty()) {
+            return Mono.just(0);
+        }
+        StringBuilder sql = new StringBuilder("INSERT INTO ")
+            .append(table.tableName)
+            .append(" (")
+            .append(table.idColumn)
+            .append(", ")
+            .append(table.referenceColumn)
+            .append(") VALUES ");
+        for (int i = 0; i < referencedIds.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append("(:entityId, :referenceId").append(i).append(")");
+        }
+        DatabaseClient.GenericExecuteSpec insert = r2dbcEntityTemplate.getDatabaseClient().sql(sql.toString()).bind("entityId", entityId);
+        int i = 0;
+        for (LongCursor referenceId : referencedIds) {
+            insert = insert.bind("referenceId" + i++, referenceId.value);
+        }
+        return insert.fetch().rowsUpdated();
+    }
+
+    private Mono<Integer> deleteFromLinkTable(LinkTable table, Long entityId, LongHashSet referencedIds) {
+        if (referencedIds.isEmpty()) {
+            return Mono.just(0);
+        }
+        List<Long> ids = new ArrayList<>(referencedIds.size());
+        for (LongCursor referenceId : referencedIds) {
+            ids.add(referenceId.value);
+        }
+        return r2dbcEntityTemplate
+            .getDatabaseClient()
+            .sql(
+                "DELETE FROM " +
+                table.tableName +
+                " WHERE " +
+                table.idColumn +
+                " = :entityId AND " +
+                table.referenceColumn +
+                " IN (:referenceIds)"
+            )
+            .bind("entityId", entityId)
+            .bind("referenceIds", ids)
+            .fetch()
+            .rowsUpdated();
+    }
+
     public Mono<Void> deleteFromLinkTable(LinkTable table, Long entityId) {
         Assert.notNull(entityId, "entityId is null");
         StatementMapper.DeleteSpec deleteSpec = r2dbcEntityTemplate
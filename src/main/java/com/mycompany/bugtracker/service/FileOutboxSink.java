@@ -0,0 +1,53 @@
+package com.mycompany.bugtracker.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mycompany.bugtracker.config.ApplicationProperties;
+import com.mycompany.bugtracker.domain.OutboxEvent;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * {@link OutboxSink} appending the events to a file, as newline delimited JSON.
+ */
+@Service
+@ConditionalOnProperty(prefix = "application.outbox.file-sink", name = "enabled", havingValue = "true")
+public class FileOutboxSink implements OutboxSink {
+
+    private final Path path;
+
+    private final ObjectMapper objectMapper;
+
+    public FileOutboxSink(ApplicationProperties applicationProperties, ObjectMapper objectMapper) {
+        this.path = Paths.get(applicationProperties.getOutbox().getFileSink().getPath());
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Mono<Void> publish(List<OutboxEvent> events) {
+        return Mono.<Void>fromRunnable(() -> append(events)).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private synchronized void append(List<OutboxEvent> events) {
+        try (
+            BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)
+        ) {
+            for (OutboxEvent event : events) {
+                writer.write(objectMapper.writeValueAsString(event));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.mycompany.bugtracker.service;
+
+import com.carrotsearch.hppc.LongHashSet;
+import com.carrotsearch.hppc.LongObjectHashMap;
+import com.carrotsearch.hppc.cursors.LongCursor;
+import com.mycompany.bugtracker.domain.Label;
+import com.mycompany.bugtracker.domain.LabelSet;
+import com.mycompany.bugtracker.repository.LabelRepository;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Service for resolving the {@link Label} entities from their ids.
+ * <p>
+ * There are few labels, and they rarely change, so they are read once, keyed by their primitive ids, and kept in
+ * memory for a short while. The labels which were created since, maybe by another instance, are read on demand.
+ */
+@Service
+public class LabelService {
+
+    private static final Duration CACHE_TIME_TO_LIVE = Duration.ofMinutes(1);
+
+    private final LabelRepository labelRepository;
+
+    private volatile Mono<LongObjectHashMap<Label>> labels;
+
+    public LabelService(LabelRepository labelRepository) {
+        this.labelRepository = labelRepository;
+        evictLabels();
+    }
+
+    /**
+     * Gets the labels with the given ids, ignoring the unknown ones.
+     *
+     * @param ids the ids of the labels.
+     * @return the labels.
+     */
+    public Mono<LabelSet> getLabels(LongHashSet ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Mono.just(new LabelSet());
+        }
+        return labels.flatMap(byId -> {
+            LabelSet found = new LabelSet();
+            List<Long> missingIds = new ArrayList<>();
+            for (LongCursor id : ids) {
+                Label label = byId.get(id.value);
+                if (label != null) {
+                    found.add(label);
+                } else {
+                    missingIds.add(id.value);
+                }
+            }
+            if (missingIds.isEmpty()) {
+                return Mono.just(found);
+            }
+            return labelRepository.findAllById(missingIds).doOnNext(found::add).then(Mono.just(found));
+        });
+    }
+
+    /**
+     * Forgets the labels, so they are read again on next use.
+     */
+    public void evictLabels() {
+        labels =
+            labelRepository
+                .findAll()
+                .collect(
+                    LongObjectHashMap<Label>::new,
+                    (byId, label) -> {
+                        byId.put(label.getId(), label);
+                    }
+                )
+                .cache(byId -> CACHE_TIME_TO_LIVE, error -> Duration.ZERO, () -> Duration.ZERO);
+    }
+}
@@ -0,0 +1,68 @@
+package com.mycompany.bugtracker.service;
+
+import com.mycompany.bugtracker.repository.LabelRepository;
+import com.mycompany.bugtracker.service.dto.LabelUsageDTO;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Service for reading how much the labels are used.
+ */
+@Service
+public class LabelUsageService {
+
+    /**
+     * The most used labels first, and the oldest first among the labels which are used as much.
+     */
+    static final Comparator<LabelUsageDTO> MOST_USED_FIRST = Comparator
+        .comparingLong(LabelUsageDTO::getTickets)
+        .reversed()
+        .thenComparing(usage -> usage.getLabel().getId());
+
+    private final LabelRepository labelRepository;
+
+    public LabelUsageService(LabelRepository labelRepository) {
+        this.labelRepository = labelRepository;
+    }
+
+    /**
+     * Gets all the labels, with the number of tickets they are set on.
+     *
+     * @return the usages of the labels, in the order of their ids.
+     */
+    public Flux<LabelUsageDTO> getUsages() {
+        return labelRepository.findAllUsages();
+    }
+
+    /**
+     * Gets the most used labels.
+     * <p>
+     * Only the {@code limit} most used labels read so far are kept, in a heap with the least used of them on top, so
+     * picking them takes {@code O(n log limit)} time and {@code O(limit)} memory.
+     *
+     * @param limit the maximum number of labels.
+     * @return the usages of the most used labels, the most used first.
+     */
+    public Mono<List<LabelUsageDTO>> getTopUsages(int limit) {
+        return getUsages()
+            .collect(
+                () -> new PriorityQueue<LabelUsageDTO>(limit + 1, MOST_USED_FIRST.reversed()),
+                (heap, usage) -> {
+                    heap.offer(usage);
+                    if (heap.size() > limit) {
+                        heap.poll();
+                    }
+                }
+            )
+            .map(heap -> {
+                List<LabelUsageDTO> top = new ArrayList<>(heap);
+                top.sort(MOST_USED_FIRST);
+                return top;
+            });
+    }
+}
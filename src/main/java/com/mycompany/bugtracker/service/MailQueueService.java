@@ -0,0 +1,229 @@
+package com.mycompany.bugtracker.service;
+
+import com.mycompany.bugtracker.config.ApplicationProperties;
+import com.mycompany.bugtracker.domain.MailMessage;
+import com.mycompany.bugtracker.repository.MailMessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Service for delivering the mail queue.
+ * <p>
+ * The queued mails are read in batches, and sent by a pool of workers, each of them sending many mails over a single
+ * SMTP connection. Delivered mails are deleted, the others are retried with an exponential backoff, until they are
+ * given up after the maximum number of attempts. A mail may be sent twice if it could not be deleted once sent.
+ * <p>
+ * Each batch is claimed before it is sent, so the instances don't send the same mails. The mails of an instance which
+ * stops before delivering or rescheduling them are sent again once their claim expires.
+ */
+@Service
+public class MailQueueService {
+
+    private static final int LAST_ERROR_MAX_LENGTH = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(MailQueueService.class);
+
+    private final MailMessageRepository mailMessageRepository;
+
+    private final JavaMailSender javaMailSender;
+
+    private final JHipsterProperties jHipsterProperties;
+
+    private final ApplicationProperties.MailQueue properties;
+
+    private final AtomicLong queueDepth = new AtomicLong();
+
+    private final Counter deliveredCounter;
+
+    private final Counter retriedCounter;
+
+    private final Counter givenUpCounter;
+
+    private final Timer connectionTimer;
+
+    public MailQueueService(
+        MailMessageRepository mailMessageRepository,
+        JavaMailSender javaMailSender,
+        JHipsterProperties jHipsterProperties,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.mailMessageRepository = mailMessageRepository;
+        this.javaMailSender = javaMailSender;
+        this.jHipsterProperties = jHipsterProperties;
+        this.properties = applicationProperties.getMailQueue();
+        Gauge
+            .builder("mail.queue.depth", queueDepth, AtomicLong::get)
+            .description("Number of mails waiting to be delivered")
+            .register(meterRegistry);
+        this.deliveredCounter = Counter.builder("mail.queue.delivered").description("Number of delivered mails").register(meterRegistry);
+        this.retriedCounter =
+            Counter.builder("mail.queue.retried").description("Number of failed deliveries which will be retried").register(meterRegistry);
+        this.givenUpCounter =
+            Counter.builder("mail.queue.given.up").description("Number of mails given up after too many attempts").register(meterRegistry);
+        this.connectionTimer =
+            Timer
+                .builder("mail.queue.connection")
+                .description("Time to send a batch of mails over a single SMTP connection")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Delivers the queued mails which are due, until none is left.
+     * <p>
+     * This is scheduled to get fired with a fixed delay between runs.
+     */
+    @Scheduled(
+        fixedDelayString = "${application.mail-queue.delivery-delay-ms:5000}",
+        initialDelayString = "${application.mail-queue.delivery-delay-ms:5000}"
+    )
+    public void deliver() {
+        Long delivered = deliverReactively().block();
+        if (delivered != null && delivered > 0) {
+            log.debug("Delivered {} queued emails", delivered);
+        }
+    }
+
+    public Mono<Long> deliverReactively() {
+        int batchSize = properties.getBatchSize();
+        return deliverBatch()
+            .expand(result -> result.read < batchSize ? Mono.empty() : deliverBatch())
+            .reduce(0L, (total, result) -> total + result.delivered)
+            .flatMap(delivered -> mailMessageRepository.countByNextAttemptDateNotNull().doOnNext(queueDepth::set).thenReturn(delivered));
+    }
+
+    private Mono<DeliveryResult> deliverBatch() {
+        Instant now = Instant.now();
+        return mailMessageRepository
+            .claim(UUID.randomUUID().toString(), now, now.plusMillis(properties.getClaimDurationMs()), properties.getBatchSize())
+            .buffer(properties.getMessagesPerConnection())
+            .flatMap(mails -> Mono.fromCallable(() -> send(mails)).subscribeOn(Schedulers.boundedElastic()), properties.getWorkers())
+            .concatMap(this::store)
+            .reduce(new DeliveryResult(0, 0), DeliveryResult::add);
+    }
+
+    private Mono<DeliveryResult> store(ConnectionResult result) {
+        Mono<Void> deleteDelivered = result.deliveredIds.isEmpty()
+            ? Mono.empty()
+            : mailMessageRepository.deleteAllByIdIn(result.deliveredIds);
+        return deleteDelivered
+            .thenMany(mailMessageRepository.saveAll(result.failed))
+            .then(Mono.just(new DeliveryResult(result.deliveredIds.size() + result.failed.size(), result.deliveredIds.size())));
+    }
+
+    /**
+     * Sends mails over a single SMTP connection.
+     */
+    private ConnectionResult send(List<MailMessage> mails) {
+        Map<MimeMessage, MailMessage> mailsByMessage = new LinkedHashMap<>();
+        Map<MailMessage, Exception> failures = new IdentityHashMap<>();
+        for (MailMessage mail : mails) {
+            try {
+                mailsByMessage.put(toMimeMessage(mail), mail);
+            } catch (MessagingException e) {
+                failures.put(mail, e);
+            }
+        }
+        if (!mailsByMessage.isEmpty()) {
+            MimeMessage[] messages = mailsByMessage.keySet().toArray(new MimeMessage[0]);
+            try {
+                connectionTimer.record(() -> javaMailSender.send(messages));
+            } catch (MailSendException e) {
+                if (e.getFailedMessages().isEmpty()) {
+                    // the messages were sent, only closing the connection failed
+                    log.warn("Could not close the SMTP connection", e);
+                }
+                e.getFailedMessages().forEach((message, exception) -> failures.put(mailsByMessage.get(message), exception));
+            } catch (MailException e) {
+                mailsByMessage.values().forEach(mail -> failures.put(mail, e));
+            }
+        }
+
+        ConnectionResult result = new ConnectionResult();
+        for (MailMessage mail : mails) {
+            Exception failure = failures.get(mail);
+            if (failure == null) {
+                result.deliveredIds.add(mail.getId());
+            } else {
+                result.failed.add(reschedule(mail, failure));
+            }
+        }
+        deliveredCounter.increment(result.deliveredIds.size());
+        return result;
+    }
+
+    private MimeMessage toMimeMessage(MailMessage mail) throws MessagingException {
+        MimeMessage mimeMessage = javaMailSender.createMimeMessage();
+        MimeMessageHelper message = new MimeMessageHelper(mimeMessage, mail.getMultipart(), StandardCharsets.UTF_8.name());
+        message.setTo(mail.getRecipient());
+        message.setFrom(jHipsterProperties.getMail().getFrom());
+        message.setSubject(mail.getSubject());
+        message.setText(mail.getContent(), mail.getHtml());
+        return mimeMessage;
+    }
+
+    private MailMessage reschedule(MailMessage mail, Exception failure) {
+        int attempts = mail.getAttempts() + 1;
+        String lastError = String.valueOf(failure.getMessage());
+        if (lastError.length() > LAST_ERROR_MAX_LENGTH) {
+            lastError = lastError.substring(0, LAST_ERROR_MAX_LENGTH);
+        }
+        mail.attempts(attempts).lastError(lastError);
+        if (attempts >= properties.getMaxAttempts()) {
+            log.warn("Email {} could not be sent to user '{}' after {} attempts, giving up", mail.getId(), mail.getRecipient(), attempts);
+            givenUpCounter.increment();
+            return mail.nextAttemptDate(null);
+        }
+        long backoff = Math.min(properties.getInitialBackoffMs() << Math.min(attempts - 1, 30), properties.getMaxBackoffMs());
+        log.debug("Email {} could not be sent to user '{}', retrying in {} ms", mail.getId(), mail.getRecipient(), backoff, failure);
+        retriedCounter.increment();
+        return mail.nextAttemptDate(Instant.now().plusMillis(backoff));
+    }
+
+    private static class ConnectionResult {
+
+        private final List<Long> deliveredIds = new ArrayList<>();
+
+        private final List<MailMessage> failed = new ArrayList<>();
+    }
+
+    private static class DeliveryResult {
+
+        private final int read;
+
+        private final int delivered;
+
+        DeliveryResult(int read, int delivered) {
+            this.read = read;
+            this.delivered = delivered;
+        }
+
+        DeliveryResult add(DeliveryResult other) {
+            return new DeliveryResult(read + other.read, delivered + other.delivered);
+        }
+    }
+}
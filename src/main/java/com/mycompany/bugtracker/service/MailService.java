@@ -1,112 +1,100 @@
 package com.mycompany.bugtracker.service;
 
+import com.mycompany.bugtracker.domain.MailMessage;
 import com.mycompany.bugtracker.domain.User;
-import java.nio.charset.StandardCharsets;
-import java.util.Locale;
-import javax.mail.MessagingException;
-import javax.mail.internet.MimeMessage;
+import com.mycompany.bugtracker.repository.MailMessageRepository;
+import java.util.Collection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.context.MessageSource;
-import org.springframework.mail.MailException;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.context.Context;
-import org.thymeleaf.spring5.SpringTemplateEngine;
-import tech.jhipster.config.JHipsterProperties;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 /**
  * Service for sending emails.
  * <p>
- * We use the {@link Async} annotation to send emails asynchronously.
+ * The emails are rendered by the {@link MailTemplateService} and written to the mail queue, which is delivered by the
+ * {@link MailQueueService}.
  */
 @Service
 public class MailService {
 
     private final Logger log = LoggerFactory.getLogger(MailService.class);
 
-    private static final String USER = "user";
+    private final MailMessageRepository mailMessageRepository;
 
-    private static final String BASE_URL = "baseUrl";
+    private final MailTemplateService mailTemplateService;
 
-    private final JHipsterProperties jHipsterProperties;
-
-    private final JavaMailSender javaMailSender;
-
-    private final MessageSource messageSource;
-
-    private final SpringTemplateEngine templateEngine;
-
-    public MailService(
-        JHipsterProperties jHipsterProperties,
-        JavaMailSender javaMailSender,
-        MessageSource messageSource,
-        SpringTemplateEngine templateEngine
-    ) {
-        this.jHipsterProperties = jHipsterProperties;
-        this.javaMailSender = javaMailSender;
-        this.messageSource = messageSource;
-        this.templateEngine = templateEngine;
+    public MailService(MailMessageRepository mailMessageRepository, MailTemplateService mailTemplateService) {
+        this.mailMessageRepository = mailMessageRepository;
+        this.mailTemplateService = mailTemplateService;
     }
 
-    @Async
-    public void sendEmail(String to, String subject, String content, boolean isMultipart, boolean isHtml) {
+    public Mono<Void> sendEmail(String to, String subject, String content, boolean isMultipart, boolean isHtml) {
         log.debug(
-            "Send email[multipart '{}' and html '{}'] to '{}' with subject '{}' and content={}",
+            "Queue email[multipart '{}' and html '{}'] to '{}' with subject '{}' and content={}",
             isMultipart,
             isHtml,
             to,
             subject,
             content
         );
-
-        // Prepare message using a Spring helper
-        MimeMessage mimeMessage = javaMailSender.createMimeMessage();
-        try {
-            MimeMessageHelper message = new MimeMessageHelper(mimeMessage, isMultipart, StandardCharsets.UTF_8.name());
-            message.setTo(to);
-            message.setFrom(jHipsterProperties.getMail().getFrom());
-            message.setSubject(subject);
-            message.setText(content, isHtml);
-            javaMailSender.send(mimeMessage);
-            log.debug("Sent email to User '{}'", to);
-        } catch (MailException | MessagingException e) {
-            log.warn("Email could not be sent to user '{}'", to, e);
-        }
+        return mailMessageRepository
+            .save(new MailMessage().recipient(to).subject(subject).content(content).multipart(isMultipart).html(isHtml))
+            .doOnSuccess(mailMessage -> log.debug("Queued email {} to User '{}'", mailMessage.getId(), to))
+            .then();
     }
 
-    @Async
-    public void sendEmailFromTemplate(User user, String templateName, String titleKey) {
+    public Mono<Void> sendEmailFromTemplate(User user, String templateName, String titleKey) {
         if (user.getEmail() == null) {
             log.debug("Email doesn't exist for user '{}'", user.getLogin());
-            return;
+            return Mono.empty();
         }
-        Locale locale = Locale.forLanguageTag(user.getLangKey());
-        Context context = new Context(locale);
-        context.setVariable(USER, user);
-        context.setVariable(BASE_URL, jHipsterProperties.getMail().getBaseUrl());
-        String content = templateEngine.process(templateName, context);
-        String subject = messageSource.getMessage(titleKey, null, locale);
-        sendEmail(user.getEmail(), subject, content, false, true);
+        return Mono
+            .fromCallable(() -> mailTemplateService.render(user, templateName, titleKey))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMap(mailMessageRepository::save)
+            .then();
     }
 
-    @Async
-    public void sendActivationEmail(User user) {
+    /**
+     * Sends the same templated email to many users, queuing them at once.
+     *
+     * @param users the users, the ones without an email are skipped.
+     * @param templateName the name of the template of the content.
+     * @param titleKey the message key of the subject.
+     * @return a {@link Mono} which completes once all the emails are queued.
+     */
+    public Mono<Void> sendEmailsFromTemplate(Collection<User> users, String templateName, String titleKey) {
+        if (users.isEmpty()) {
+            return Mono.empty();
+        }
+        return Mono
+            .fromCallable(() -> mailTemplateService.renderAll(users, templateName, titleKey))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMapMany(mailMessageRepository::saveAll)
+            .count()
+            .doOnNext(count -> log.debug("Queued {} emails from template '{}'", count, templateName))
+            .then();
+    }
+
+    public Mono<Void> sendActivationEmail(User user) {
         log.debug("Sending activation email to '{}'", user.getEmail());
-        sendEmailFromTemplate(user, "mail/activationEmail", "email.activation.title");
+        return sendEmailFromTemplate(user, "mail/activationEmail", "email.activation.title");
     }
 
-    @Async
-    public void sendCreationEmail(User user) {
+    public Mono<Void> sendCreationEmail(User user) {
         log.debug("Sending creation email to '{}'", user.getEmail());
-        sendEmailFromTemplate(user, "mail/creationEmail", "email.activation.title");
+        return sendEmailFromTemplate(user, "mail/creationEmail", "email.activation.title");
+    }
+
+    public Mono<Void> sendCreationEmails(Collection<User> users) {
+        log.debug("Sending creation emails to {} users", users.size());
+        return sendEmailsFromTemplate(users, "mail/creationEmail", "email.activation.title");
     }
 
-    @Async
-    public void sendPasswordResetMail(User user) {
+    public Mono<Void> sendPasswordResetMail(User user) {
         log.debug("Sending password reset email to '{}'", user.getEmail());
-        sendEmailFromTemplate(user, "mail/passwordResetEmail", "email.reset.title");
+        return sendEmailFromTemplate(user, "mail/passwordResetEmail", "email.reset.title");
     }
 }
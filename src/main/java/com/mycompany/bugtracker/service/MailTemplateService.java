@@ -0,0 +1,124 @@
+package com.mycompany.bugtracker.service;
+
+import com.mycompany.bugtracker.domain.MailMessage;
+import com.mycompany.bugtracker.domain.User;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.thymeleaf.ThymeleafProperties;
+import org.springframework.context.MessageSource;
+import org.springframework.stereotype.Service;
+import org.thymeleaf.TemplateSpec;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Service for rendering the mail templates.
+ * <p>
+ * Each mail is rendered by Thymeleaf, with only the user and the base URL as variables, so it is exactly what the
+ * template renders. The templates are parsed once and cached by the template engine, along with their specifications
+ * here, and the subjects are cached per locale, so a mail only costs the processing of its parsed template. Nothing is
+ * cached when the Thymeleaf cache is disabled.
+ */
+@Service
+public class MailTemplateService {
+
+    private static final String USER = "user";
+
+    private static final String BASE_URL = "baseUrl";
+
+    private final Logger log = LoggerFactory.getLogger(MailTemplateService.class);
+
+    private final JHipsterProperties jHipsterProperties;
+
+    private final MessageSource messageSource;
+
+    private final SpringTemplateEngine templateEngine;
+
+    private final boolean cacheEnabled;
+
+    private final TemplateMode templateMode;
+
+    private final Map<String, TemplateSpec> templateSpecs = new ConcurrentHashMap<>();
+
+    private final Map<String, String> subjects = new ConcurrentHashMap<>();
+
+    public MailTemplateService(
+        JHipsterProperties jHipsterProperties,
+        MessageSource messageSource,
+        SpringTemplateEngine templateEngine,
+        ThymeleafProperties thymeleafProperties
+    ) {
+        this.jHipsterProperties = jHipsterProperties;
+        this.messageSource = messageSource;
+        this.templateEngine = templateEngine;
+        this.cacheEnabled = thymeleafProperties.isCache();
+        this.templateMode = TemplateMode.parse(thymeleafProperties.getMode());
+    }
+
+    /**
+     * Renders a mail for a user.
+     *
+     * @param user the user, who must have an email.
+     * @param templateName the name of the template of the content.
+     * @param titleKey the message key of the subject.
+     * @return the mail, not saved yet.
+     */
+    public MailMessage render(User user, String templateName, String titleKey) {
+        Locale locale = Locale.forLanguageTag(user.getLangKey());
+        return new MailMessage()
+            .recipient(user.getEmail())
+            .subject(renderSubject(titleKey, locale))
+            .content(renderContent(user, templateName, locale))
+            .multipart(false)
+            .html(true);
+    }
+
+    /**
+     * Renders a mail for each of the users which have an email.
+     *
+     * @param users the users.
+     * @param templateName the name of the template of the content.
+     * @param titleKey the message key of the subject.
+     * @return the mails, not saved yet.
+     */
+    public List<MailMessage> renderAll(Collection<User> users, String templateName, String titleKey) {
+        List<MailMessage> mails = new ArrayList<>(users.size());
+        for (User user : users) {
+            if (user.getEmail() == null) {
+                log.debug("Email doesn't exist for user '{}'", user.getLogin());
+            } else {
+                mails.add(render(user, templateName, titleKey));
+            }
+        }
+        return mails;
+    }
+
+    private String renderSubject(String titleKey, Locale locale) {
+        if (!cacheEnabled) {
+            return messageSource.getMessage(titleKey, null, locale);
+        }
+        return subjects.computeIfAbsent(titleKey + '|' + locale.toLanguageTag(), key -> messageSource.getMessage(titleKey, null, locale));
+    }
+
+    private String renderContent(User user, String templateName, Locale locale) {
+        Context context = new Context(locale);
+        context.setVariable(USER, user);
+        context.setVariable(BASE_URL, jHipsterProperties.getMail().getBaseUrl());
+        return templateEngine.process(templateSpec(templateName), context);
+    }
+
+    private TemplateSpec templateSpec(String templateName) {
+        if (!cacheEnabled) {
+            return new TemplateSpec(templateName, templateMode);
+        }
+        return templateSpecs.computeIfAbsent(templateName, name -> new TemplateSpec(name, templateMode));
+    }
+}
@@ -0,0 +1,127 @@
+package com.mycompany.bugtracker.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mycompany.bugtracker.config.ApplicationProperties;
+import com.mycompany.bugtracker.domain.OutboxEvent;
+import com.mycompany.bugtracker.repository.OutboxRepository;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Service for the transactional outbox.
+ * <p>
+ * Change events are written to the {@code outbox} table in the same transaction as the change itself, so they are
+ * never published for a rolled back change, nor lost for a committed one. A relay then periodically publishes them
+ * in batches to all the {@link OutboxSink}s, and marks them published.
+ * <p>
+ * Each batch is claimed before it is published, so the relays of several instances don't publish the same events.
+ * The events of a relay which stops before marking them are claimed again once their claim expires: the sinks get
+ * each event at least once.
+ * <p>
+ * The sinks are the destinations outside of the instances, which must get each event once for all of them. The
+ * subscribers within each instance must get all the events instead, so {@link TicketChangeEventService} reads them
+ * from the outbox on every instance, without claiming them: the published events are kept for the retention period
+ * configured for that, and deleted afterwards.
+ */
+@Service
+public class OutboxService {
+
+    private final Logger log = LoggerFactory.getLogger(OutboxService.class);
+
+    private final OutboxRepository outboxRepository;
+
+    private final List<OutboxSink> sinks;
+
+    private final ObjectMapper objectMapper;
+
+    private final int batchSize;
+
+    private final long claimDurationMs;
+
+    private final long retentionMs;
+
+    public OutboxService(
+        OutboxRepository outboxRepository,
+        List<OutboxSink> sinks,
+        ObjectMapper objectMapper,
+        ApplicationProperties applicationProperties
+    ) {
+        this.outboxRepository = outboxRepository;
+        this.sinks = sinks;
+        this.objectMapper = objectMapper;
+        this.batchSize = applicationProperties.getOutbox().getBatchSize();
+        this.claimDurationMs = applicationProperties.getOutbox().getClaimDurationMs();
+        this.retentionMs = applicationProperties.getOutbox().getRetentionMs();
+    }
+
+    /**
+     * Writes an event to the outbox, within the current transaction.
+     *
+     * @param aggregateType the type of the changed entity.
+     * @param aggregateId the id of the changed entity.
+     * @param eventType the type of the change.
+     * @param payload the changed entity, serialized as JSON, or {@code null}.
+     * @return a {@link Mono} which completes once the event is written.
+     */
+    public Mono<Void> record(String aggregateType, Long aggregateId, String eventType, Object payload) {
+        return Mono
+            .fromCallable(() ->
+                new OutboxEvent()
+                    .aggregateType(aggregateType)
+                    .aggregateId(aggregateId)
+                    .eventType(eventType)
+                    .payload(payload != null ? objectMapper.writeValueAsString(payload) : null)
+            )
+            .flatMap(outboxRepository::save)
+            .then();
+    }
+
+    /**
+     * Relays the outbox events, until none is left to publish, then deletes the ones published before the retention
+     * period.
+     * <p>
+     * This is scheduled to get fired with a fixed delay between runs.
+     */
+    @Scheduled(fixedDelayString = "${application.outbox.relay-delay-ms:1000}")
+    public void relay() {
+        Long relayed = relayReactively().block();
+        if (relayed != null && relayed > 0) {
+            log.debug("Relayed {} outbox events", relayed);
+        }
+        Integer deleted = outboxRepository.deletePublishedBefore(Instant.now().minusMillis(retentionMs)).block();
+        if (deleted != null && deleted > 0) {
+            log.debug("Deleted {} published outbox events", deleted);
+        }
+    }
+
+    public Mono<Long> relayReactively() {
+        return relayBatch()
+            .expand(relayed -> relayed < batchSize ? Mono.empty() : relayBatch())
+            .reduce(0L, (total, relayed) -> total + relayed);
+    }
+
+    private Mono<Integer> relayBatch() {
+        return outboxRepository
+            .claim(UUID.randomUUID().toString(), Instant.now().plusMillis(claimDurationMs), batchSize)
+            .collectList()
+            .filter(events -> !events.isEmpty())
+            .flatMap(events ->
+                Flux
+                    .fromIterable(sinks)
+                    .concatMap(sink -> sink.publish(events))
+                    .then(
+                        outboxRepository.markPublished(events.stream().map(OutboxEvent::getId).collect(Collectors.toList()), Instant.now())
+                    )
+                    .thenReturn(events.size())
+            )
+            .defaultIfEmpty(0);
+    }
+}
@@ -0,0 +1,22 @@
+package com.mycompany.bugtracker.service;
+
+import com.mycompany.bugtracker.domain.OutboxEvent;
+import java.util.List;
+import reactor.core.publisher.Mono;
+
+/**
+ * Destination of the events relayed from the outbox, outside of the instances: each event is published to the sinks
+ * of a single instance.
+ * <p>
+ * Delivery is at-least-once: a batch is published again if a sink fails, so sinks should tolerate duplicates,
+ * which they can detect with the event id.
+ */
+public interface OutboxSink {
+    /**
+     * Publishes a batch of events, in the order they were written.
+     *
+     * @param events the events to publish.
+     * @return a {@link Mono} which completes once the events are published.
+     */
+    Mono<Void> publish(List<OutboxEvent> events);
+}
@@ -0,0 +1,62 @@
+package com.mycompany.bugtracker.service;
+
+import com.mycompany.bugtracker.repository.ProjectRepository;
+import com.mycompany.bugtracker.service.dto.ProjectSummaryDTO;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Service for reading the summaries of the projects, with the counts of their tickets.
+ * <p>
+ * The summaries are counted by a single query and kept in memory for a short while. They are read again after any
+ * ticket change event, which is only published once the change is committed, or after a project is written.
+ */
+@Service
+public class ProjectSummaryService {
+
+    private static final Duration CACHE_TIME_TO_LIVE = Duration.ofSeconds(30);
+
+    private final ProjectRepository projectRepository;
+
+    private final Disposable ticketChanges;
+
+    private volatile Mono<List<ProjectSummaryDTO>> summaries;
+
+    public ProjectSummaryService(ProjectRepository projectRepository, TicketChangeEventService ticketChangeEventService) {
+        this.projectRepository = projectRepository;
+        evictSummaries();
+        this.ticketChanges = ticketChangeEventService.subscribe(null, Collections.emptySet()).subscribe(event -> evictSummaries());
+    }
+
+    /**
+     * Gets the summaries of all the projects.
+     *
+     * @return the summaries, in the order of the project ids.
+     */
+    public Flux<ProjectSummaryDTO> getSummaries() {
+        return summaries.flatMapIterable(list -> list);
+    }
+
+    /**
+     * Forgets the summaries, so they are counted again on next use.
+     */
+    public void evictSummaries() {
+        summaries =
+            Mono
+                .defer(() -> projectRepository.findAllSummaries(LocalDate.now()).collectList())
+                .map(Collections::unmodifiableList)
+                .cache(list -> CACHE_TIME_TO_LIVE, error -> Duration.ZERO, () -> Duration.ZERO);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        ticketChanges.dispose();
+    }
+}
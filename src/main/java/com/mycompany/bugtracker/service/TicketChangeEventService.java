@@ -0,0 +1,182 @@
+package com.mycompany.bugtracker.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mycompany.bugtracker.config.ApplicationProperties;
+import com.mycompany.bugtracker.domain.OutboxEvent;
+import com.mycompany.bugtracker.domain.Ticket;
+import com.mycompany.bugtracker.repository.OutboxRepository;
+import com.mycompany.bugtracker.service.dto.TicketChangeEventDTO;
+import java.util.List;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Service for publishing and subscribing to {@link Ticket} change events.
+ * <p>
+ * Every instance reads the ticket events from the outbox on its own, instead of getting them from the relay of
+ * {@link OutboxService}, which hands each event to a single instance: the subscribers of all the instances get all
+ * the changes. The sequence of an event is the id of its outbox row, which is the same on every instance, so a
+ * subscriber can resume on another instance than the one it was connected to.
+ * <p>
+ * The events are read in the order of their id, after the last one read, which is also the order of their commits:
+ * every write of the tickets takes the next sync version of the tickets before it writes its events, and holds its
+ * lock until it commits, so an event can't commit after another one with a higher id. The events of other aggregate
+ * types don't have that order, and must not be read this way.
+ * <p>
+ * The most recent events are kept, so subscribers can resume after a reconnect, and are read from the outbox when the
+ * instance starts. Each subscriber has a bounded buffer: a subscriber which can't keep up loses its oldest events,
+ * instead of slowing down the reads or the other subscribers.
+ */
+@Service
+public class TicketChangeEventService {
+
+    public static final String AGGREGATE_TYPE = "Ticket";
+
+    private final Logger log = LoggerFactory.getLogger(TicketChangeEventService.class);
+
+    private final Sinks.Many<TicketChangeEventDTO> sink;
+
+    /**
+     * Completed once the kept events are read, after which the subscribers start.
+     */
+    private final Sinks.Empty<Void> started = Sinks.empty();
+
+    private final OutboxRepository outboxRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final int historySize;
+
+    private final int subscriberBufferSize;
+
+    private final int batchSize;
+
+    /**
+     * The sequence of the last event read, or {@code null} until the kept events are read.
+     */
+    private Long lastSequence;
+
+    public TicketChangeEventService(
+        OutboxRepository outboxRepository,
+        ObjectMapper objectMapper,
+        ApplicationProperties applicationProperties
+    ) {
+        ApplicationProperties.TicketEvents properties = applicationProperties.getTicketEvents();
+        this.sink = Sinks.many().replay().limit(properties.getHistorySize());
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+        this.historySize = properties.getHistorySize();
+        this.subscriberBufferSize = properties.getSubscriberBufferSize();
+        this.batchSize = applicationProperties.getOutbox().getBatchSize();
+    }
+
+    /**
+     * Reads the ticket events committed since the last run, and publishes them.
+     * <p>
+     * This is scheduled to get fired with a fixed delay between runs.
+     */
+    @Scheduled(fixedDelayString = "${application.outbox.relay-delay-ms:1000}")
+    public void read() {
+        Long read = readReactively().block();
+        if (read != null && read > 0) {
+            log.debug("Read {} ticket change events", read);
+        }
+    }
+
+    /**
+     * Reads the ticket events committed since the last run, and publishes them. The first run reads the most recent
+     * events which are kept.
+     *
+     * @return the number of events read.
+     */
+    public Mono<Long> readReactively() {
+        return Mono
+            .defer(() -> {
+                Long since = currentSequence();
+                return since != null ? Mono.just(since) : outboxRepository.findIdBeforeLast(AGGREGATE_TYPE, historySize);
+            })
+            .flatMap(this::readBatch)
+            .expand(events -> events.size() < batchSize ? Mono.empty() : readBatch(events.get(events.size() - 1).getId()))
+            .reduce(0L, (total, events) -> total + events.size())
+            .doOnSuccess(read -> started.tryEmitEmpty());
+    }
+
+    private Mono<List<OutboxEvent>> readBatch(long since) {
+        return outboxRepository
+            .findAllAfter(AGGREGATE_TYPE, since, batchSize)
+            .collectList()
+            .doOnNext(events -> emitAll(since, events));
+    }
+
+    private synchronized void emitAll(long since, List<OutboxEvent> events) {
+        if (lastSequence == null) {
+            lastSequence = since;
+        }
+        events.forEach(this::emit);
+    }
+
+    private void emit(OutboxEvent outboxEvent) {
+        if (outboxEvent.getId() <= lastSequence) {
+            // already published
+            return;
+        }
+        lastSequence = outboxEvent.getId();
+        TicketChangeEventDTO event;
+        try {
+            Ticket ticket = outboxEvent.getPayload() != null ? objectMapper.readValue(outboxEvent.getPayload(), Ticket.class) : null;
+            event =
+                new TicketChangeEventDTO(
+                    outboxEvent.getId(),
+                    TicketChangeEventDTO.Type.valueOf(outboxEvent.getEventType()),
+                    outboxEvent.getAggregateId(),
+                    ticket != null ? ticket.getProjectId() : null,
+                    outboxEvent.getCreatedDate(),
+                    ticket
+                );
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            log.warn("Outbox event {} is not a valid ticket change event", outboxEvent, e);
+            return;
+        }
+        Sinks.EmitResult result = sink.tryEmitNext(event);
+        if (result.isFailure()) {
+            log.warn("Ticket change event {} could not be published: {}", event, result);
+        }
+    }
+
+    /**
+     * Subscribes to the ticket change events.
+     *
+     * @param lastSequence the sequence of the last event the subscriber has received, to resume from, or {@code null} to only get new events.
+     * If older than the kept events, the subscriber gets all the kept events.
+     * @param projectIds the projects to get events for, or an empty set for all projects. Deletions are sent for all projects.
+     * @return the events.
+     */
+    public Flux<TicketChangeEventDTO> subscribe(Long lastSequence, Set<Long> projectIds) {
+        return started
+            .asMono()
+            .thenMany(
+                Flux.defer(() -> {
+                    long since = lastSequence != null ? lastSequence : currentSequence();
+                    return sink.asFlux().filter(event -> event.getSequence() > since);
+                })
+            )
+            .filter(event -> projectIds.isEmpty() || event.getProjectId() == null || projectIds.contains(event.getProjectId()))
+            .onBackpressureBuffer(
+                subscriberBufferSize,
+                dropped -> log.debug("Dropped ticket change event {} for a slow subscriber", dropped.getSequence()),
+                BufferOverflowStrategy.DROP_OLDEST
+            );
+    }
+
+    private synchronized Long currentSequence() {
+        return lastSequence;
+    }
+}
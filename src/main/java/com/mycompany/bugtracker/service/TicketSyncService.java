@@ -0,0 +1,113 @@
+package com.mycompany.bugtracker.service;
+
+import com.mycompany.bugtracker.config.ApplicationProperties;
+import com.mycompany.bugtracker.repository.TicketRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+/**
+ * Service for the tombstones of the deleted tickets, read by the clients syncing a copy of the tickets.
+ * <p>
+ * The tombstones are kept for {@code application.ticket-sync.tombstone-retention-days}. Once they are deleted, their
+ * highest sync version is recorded as purged, see {@link TicketRepository#findPurgedSyncVersion()}: a client which
+ * last synced before it could miss deletions, so it has to sync again from the start.
+ */
+@Service
+public class TicketSyncService {
+
+    private final Logger log = LoggerFactory.getLogger(TicketSyncService.class);
+
+    private final TicketRepository ticketRepository;
+
+    private final TransactionalOperator transactionalOperator;
+
+    private final ApplicationProperties.TicketSync properties;
+
+    public TicketSyncService(
+        TicketRepository ticketRepository,
+        TransactionalOperator transactionalOperator,
+        ApplicationProperties applicationProperties
+    ) {
+        this.ticketRepository = ticketRepository;
+        this.transactionalOperator = transactionalOperator;
+        this.properties = applicationProperties.getTicketSync();
+    }
+
+    /**
+     * Tombstones older than the retention are deleted every day, at 02:00 (am).
+     */
+    @Scheduled(cron = "0 0 2 * * ?")
+    public void removeOldTombstones() {
+        Long deleted = removeOldTombstonesReactively().block();
+        if (deleted != null && deleted > 0) {
+            log.info("Deleted {} ticket tombstones", deleted);
+        }
+    }
+
+    /**
+     * Deletes the tombstones older than the retention, oldest first, in batches.
+     * <p>
+     * Each batch is deleted in its own short transaction, and is followed by a pause so that the replicas can keep up
+     * with the primary database.
+     *
+     * @return the number of deleted tombstones.
+     */
+    public Mono<Long> removeOldTombstonesReactively() {
+        return removeTombstones(Instant.now().minus(properties.getTombstoneRetentionDays(), ChronoUnit.DAYS));
+    }
+
+    /**
+     * Deletes the tombstones of the tickets deleted before a date, in batches.
+     *
+     * @param deletedBefore the date the tickets were deleted before.
+     * @return the number of deleted tombstones.
+     */
+    public Mono<Long> removeTombstones(Instant deletedBefore) {
+        Duration pause = Duration.ofMillis(properties.getPurgePauseMs());
+        return purgeTombstones(deletedBefore)
+            .expand(batch ->
+                batch.selected < properties.getPurgeBatchSize() ? Mono.empty() : Mono.delay(pause).then(purgeTombstones(deletedBefore))
+            )
+            .reduce(0L, (total, batch) -> total + batch.deleted);
+    }
+
+    /**
+     * Deletes the oldest tombstones. The deleted ones are not read again, so no keyset position is kept between two
+     * batches.
+     */
+    private Mono<PurgeBatch> purgeTombstones(Instant deletedBefore) {
+        return Mono.defer(() ->
+            ticketRepository
+                .findTombstoneIds(deletedBefore, properties.getPurgeBatchSize())
+                .collectList()
+                .flatMap(ids -> {
+                    if (ids.isEmpty()) {
+                        return Mono.just(new PurgeBatch(0, 0));
+                    }
+                    return transactionalOperator
+                        .transactional(ticketRepository.purgeTombstones(ids))
+                        .map(deleted -> new PurgeBatch(ids.size(), deleted));
+                })
+                .doOnNext(batch -> log.debug("Deleted {} ticket tombstones", batch.deleted))
+        );
+    }
+
+    private static class PurgeBatch {
+
+        private final int selected;
+
+        private final int deleted;
+
+        PurgeBatch(int selected, int deleted) {
+            this.selected = selected;
+            this.deleted = deleted;
+        }
+    }
+}
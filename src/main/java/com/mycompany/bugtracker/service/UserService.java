@@ -1,19 +1,23 @@
 package com.mycompany.bugtracker.service;
 
+import com.mycompany.bugtracker.config.ApplicationProperties;
 import com.mycompany.bugtracker.config.Constants;
 import com.mycompany.bugtracker.domain.Authority;
 import com.mycompany.bugtracker.domain.User;
-import com.mycompany.bugtracker.repository.AuthorityRepository;
 import com.mycompany.bugtracker.repository.UserRepository;
 import com.mycompany.bugtracker.security.AuthoritiesConstants;
 import com.mycompany.bugtracker.security.SecurityUtils;
 import com.mycompany.bugtracker.service.dto.AdminUserDTO;
 import com.mycompany.bugtracker.service.dto.UserDTO;
+import com.mycompany.bugtracker.service.dto.UserProvisioningResultDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
 import java.time.Instant;
-import java.time.LocalDateTime;
-import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Pageable;
@@ -21,6 +25,7 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
@@ -38,12 +43,43 @@ public class UserService {
 
     private final PasswordEncoder passwordEncoder;
 
-    private final AuthorityRepository authorityRepository;
+    private final AuthorityService authorityService;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, AuthorityRepository authorityRepository) {
+    private final MailService mailService;
+
+    private final TransactionalOperator transactionalOperator;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Counter purgedCounter;
+
+    private final Timer purgeBatchTimer;
+
+    public UserService(
+        UserRepository userRepository,
+        PasswordEncoder passwordEncoder,
+        AuthorityService authorityService,
+        MailService mailService,
+        TransactionalOperator transactionalOperator,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
-        this.authorityRepository = authorityRepository;
+        this.authorityService = authorityService;
+        this.mailService = mailService;
+        this.transactionalOperator = transactionalOperator;
+        this.applicationProperties = applicationProperties;
+        this.meterRegistry = meterRegistry;
+        this.purgedCounter =
+            Counter.builder("users.purge.deleted").description("Number of deleted users which were not activated").register(meterRegistry);
+        this.purgeBatchTimer =
+            Timer
+                .builder("users.purge.batch")
+                .description("Time to delete a batch of users which were not activated")
+                .register(meterRegistry);
     }
 
     @Transactional
@@ -55,7 +91,7 @@ public class UserService {
                 // activate given user for the registration key.
                 user.setActivated(true);
                 user.setActivationKey(null);
-                return saveUser(user);
+                return saveUser(user, AuthoritiesUpdate.ADD_MISSING);
             })
             .doOnNext(user -> log.debug("Activated user: {}", user));
     }
@@ -73,7 +109,7 @@ public class UserService {
                 user.setResetDate(null);
                 return user;
             })
-            .flatMap(this::saveUser);
+            .flatMap(user -> saveUser(user, AuthoritiesUpdate.ADD_MISSING));
     }
 
     @Transactional
@@ -87,7 +123,7 @@ public class UserService {
                 user.setResetDate(Instant.now());
                 return user;
             })
-            .flatMap(this::saveUser);
+            .flatMap(user -> saveUser(user, AuthoritiesUpdate.ADD_MISSING));
     }
 
     @Transactional
@@ -131,16 +167,14 @@ public class UserService {
                     return newUser;
                 })
             )
-            .flatMap(newUser -> {
-                Set<Authority> authorities = new HashSet<>();
-                return authorityRepository
-                    .findById(AuthoritiesConstants.USER)
-                    .map(authorities::add)
+            .flatMap(newUser ->
+                authorityService
+                    .getAuthorities(Collections.singleton(AuthoritiesConstants.USER))
+                    .doOnNext(newUser::setAuthorities)
                     .thenReturn(newUser)
-                    .doOnNext(user -> user.setAuthorities(authorities))
-                    .flatMap(this::saveUser)
-                    .doOnNext(user -> log.debug("Created Information for User: {}", user));
-            });
+                    .flatMap(user -> saveUser(user, AuthoritiesUpdate.ADD_MISSING))
+                    .doOnNext(user -> log.debug("Created Information for User: {}", user))
+            );
     }
 
     @Transactional
@@ -158,10 +192,9 @@ public class UserService {
         } else {
             user.setLangKey(userDTO.getLangKey());
         }
-        return Flux
-            .fromIterable(userDTO.getAuthorities() != null ? userDTO.getAuthorities() : new HashSet<>())
-            .flatMap(authorityRepository::findById)
-            .doOnNext(authority -> user.getAuthorities().add(authority))
+        return authorityService
+            .getAuthorities(userDTO.getAuthorities())
+            .doOnNext(user::setAuthorities)
             .then(Mono.just(user))
             .publishOn(Schedulers.boundedElastic())
             .map(newUser -> {
@@ -172,10 +205,114 @@ public class UserService {
                 newUser.setActivated(true);
                 return newUser;
             })
-            .flatMap(this::saveUser)
+            .flatMap(newUser -> saveUser(newUser, AuthoritiesUpdate.ADD_MISSING))
             .doOnNext(user1 -> log.debug("Created Information for User: {}", user1));
     }
 
+    /**
+     * Creates users in bulk, as they are streamed in.
+     * <p>
+     * The users are created in batches, each in its own transaction: their passwords are hashed in parallel, then the
+     * users and their authorities are inserted with a single statement each, and their creation emails are queued.
+     * A user whose login or email is already used, in the database or earlier in the stream, is not created.
+     *
+     * @param userDTOs the users to create.
+     * @return the outcome for each user, in the same order.
+     */
+    public Flux<UserProvisioningResultDTO> createUsers(Flux<AdminUserDTO> userDTOs) {
+        int batchSize = applicationProperties.getUserProvisioning().getBatchSize();
+        return Mono
+            .zip(
+                SecurityUtils.getCurrentUserLogin().switchIfEmpty(Mono.just(Constants.SYSTEM)),
+                authorityService.getAuthorities()
+            )
+            .flatMapMany(loginAndAuthorities -> {
+                UserBatchContext context = new UserBatchContext(loginAndAuthorities.getT1(), loginAndAuthorities.getT2());
+                return userDTOs.buffer(batchSize).concatMap(batch -> transactionalOperator.transactional(createUserBatch(batch, context)));
+            });
+    }
+
+    private Flux<UserProvisioningResultDTO> createUserBatch(List<AdminUserDTO> batch, UserBatchContext context) {
+        Set<String> logins = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (AdminUserDTO userDTO : batch) {
+            logins.add(userDTO.getLogin().toLowerCase());
+            if (userDTO.getEmail() != null) {
+                emails.add(userDTO.getEmail().toLowerCase());
+            }
+        }
+        List<UserProvisioningResultDTO> results = new ArrayList<>(batch.size());
+        List<User> users = new ArrayList<>(batch.size());
+        List<UserProvisioningResultDTO> createdResults = new ArrayList<>(batch.size());
+        return userRepository
+            .findAllByLoginOrEmailIn(logins, emails)
+            .doOnNext(existingUser -> {
+                context.usedLogins.add(existingUser.getLogin());
+                if (existingUser.getEmail() != null) {
+                    context.usedEmails.add(existingUser.getEmail());
+                }
+            })
+            .thenMany(Flux.fromIterable(batch))
+            .doOnNext(userDTO -> {
+                String login = userDTO.getLogin().toLowerCase();
+                String email = userDTO.getEmail() != null ? userDTO.getEmail().toLowerCase() : null;
+                if (!context.usedLogins.add(login)) {
+                    results.add(new UserProvisioningResultDTO(login, UserProvisioningResultDTO.Status.LOGIN_ALREADY_USED, null));
+                } else if (email != null && !context.usedEmails.add(email)) {
+                    context.usedLogins.remove(login);
+                    results.add(new UserProvisioningResultDTO(login, UserProvisioningResultDTO.Status.EMAIL_ALREADY_USED, null));
+                } else {
+                    users.add(newUser(userDTO, context));
+                    UserProvisioningResultDTO result = new UserProvisioningResultDTO(login, UserProvisioningResultDTO.Status.CREATED, null);
+                    createdResults.add(result);
+                    results.add(result);
+                }
+            })
+            .thenMany(Flux.defer(() -> Flux.fromIterable(users)))
+            .parallel(applicationProperties.getUserProvisioning().getHashingParallelism())
+            .runOn(Schedulers.boundedElastic())
+            .doOnNext(user -> user.setPassword(passwordEncoder.encode(RandomUtil.generatePassword())))
+            .sequential()
+            .then(Mono.defer(() -> userRepository.insertAll(users).then()))
+            .then(Mono.defer(() -> userRepository.saveUserAuthorities(users)))
+            .then(Mono.defer(() -> mailService.sendCreationEmails(users)))
+            .thenMany(
+                Flux.defer(() -> {
+                    for (int i = 0; i < users.size(); i++) {
+                        createdResults.get(i).setUser(new AdminUserDTO(users.get(i)));
+                    }
+                    log.debug("Created {} of {} users", users.size(), batch.size());
+                    return Flux.fromIterable(results);
+                })
+            );
+    }
+
+    private User newUser(AdminUserDTO userDTO, UserBatchContext context) {
+        User user = new User();
+        user.setLogin(userDTO.getLogin().toLowerCase());
+        user.setFirstName(userDTO.getFirstName());
+        user.setLastName(userDTO.getLastName());
+        if (userDTO.getEmail() != null) {
+            user.setEmail(userDTO.getEmail().toLowerCase());
+        }
+        user.setImageUrl(userDTO.getImageUrl());
+        user.setLangKey(userDTO.getLangKey() != null ? userDTO.getLangKey() : Constants.DEFAULT_LANGUAGE);
+        if (userDTO.getAuthorities() != null) {
+            userDTO
+                .getAuthorities()
+                .stream()
+                .map(context.authorities::get)
+                .filter(Objects::nonNull)
+                .forEach(user.getAuthorities()::add);
+        }
+        user.setResetKey(RandomUtil.generateResetKey());
+        user.setResetDate(Instant.now());
+        user.setActivated(true);
+        user.setCreatedBy(context.currentLogin);
+        user.setLastModifiedBy(context.currentLogin);
+        return user;
+    }
+
     /**
      * Update all information for a specific user, and return the modified user.
      *
@@ -196,16 +333,9 @@ public class UserService {
                 user.setImageUrl(userDTO.getImageUrl());
                 user.setActivated(userDTO.isActivated());
                 user.setLangKey(userDTO.getLangKey());
-                Set<Authority> managedAuthorities = user.getAuthorities();
-                managedAuthorities.clear();
-                return userRepository
-                    .deleteUserAuthorities(user.getId())
-                    .thenMany(Flux.fromIterable(userDTO.getAuthorities()))
-                    .flatMap(authorityRepository::findById)
-                    .map(managedAuthorities::add)
-                    .then(Mono.just(user));
+                return authorityService.getAuthorities(userDTO.getAuthorities()).doOnNext(user::setAuthorities).thenReturn(user);
             })
-            .flatMap(this::saveUser)
+            .flatMap(user -> saveUser(user, AuthoritiesUpdate.REPLACE))
             .doOnNext(user -> log.debug("Changed Information for User: {}", user))
             .map(AdminUserDTO::new);
     }
@@ -242,14 +372,27 @@ public class UserService {
                 }
                 user.setLangKey(langKey);
                 user.setImageUrl(imageUrl);
-                return saveUser(user);
+                return saveUser(user, AuthoritiesUpdate.ADD_MISSING);
             })
             .doOnNext(user -> log.debug("Changed Information for User: {}", user))
             .then();
     }
 
+    /**
+     * Saves a user, and adds the authorities of the user which are not saved yet.
+     * <p>
+     * The saved authorities are kept even if the user doesn't have them, as they may just not have been loaded.
+     *
+     * @param user the user to save.
+     * @return the saved user.
+     */
     @Transactional
     public Mono<User> saveUser(User user) {
+        return saveUser(user, AuthoritiesUpdate.ADD_MISSING);
+    }
+
+    private Mono<User> saveUser(User user, AuthoritiesUpdate authoritiesUpdate) {
+        boolean isNew = user.getId() == null;
         return SecurityUtils
             .getCurrentUserLogin()
             .switchIfEmpty(Mono.just(Constants.SYSTEM))
@@ -258,19 +401,43 @@ public class UserService {
                     user.setCreatedBy(login);
                 }
                 user.setLastModifiedBy(login);
+                user.setLastModifiedDate(Instant.now());
                 // Saving the relationship can be done in an entity callback
                 // once https://github.com/spring-projects/spring-data-r2dbc/issues/215 is done
                 return userRepository
                     .save(user)
                     .flatMap(savedUser ->
-                        Flux
-                            .fromIterable(user.getAuthorities())
-                            .flatMap(authority -> userRepository.saveUserAuthority(savedUser.getId(), authority.getName()))
-                            .then(Mono.just(savedUser))
+                        syncUserAuthorities(savedUser.getId(), isNew, user.getAuthorities(), authoritiesUpdate).thenReturn(savedUser)
                     );
             });
     }
 
+    /**
+     * Writes the difference between the saved authorities of a user and the given ones, reading the saved ones once.
+     */
+    private Mono<Void> syncUserAuthorities(Long userId, boolean isNew, Set<Authority> authorities, AuthoritiesUpdate update) {
+        Set<String> authorityNames = authorities.stream().map(Authority::getName).collect(Collectors.toSet());
+        if (isNew) {
+            return userRepository.saveUserAuthorities(userId, authorityNames);
+        }
+        if (authorityNames.isEmpty() && update == AuthoritiesUpdate.ADD_MISSING) {
+            return Mono.empty();
+        }
+        return userRepository
+            .findAuthorityNamesByUserId(userId)
+            .collect(Collectors.toSet())
+            .flatMap(savedNames -> {
+                Set<String> added = new HashSet<>(authorityNames);
+                added.removeAll(savedNames);
+                Set<String> removed = new HashSet<>();
+                if (update == AuthoritiesUpdate.REPLACE) {
+                    removed.addAll(savedNames);
+                    removed.removeAll(authorityNames);
+                }
+                return userRepository.deleteUserAuthorities(userId, removed).then(userRepository.saveUserAuthorities(userId, added));
+            });
+    }
+
     @Transactional
     public Mono<Void> changePassword(String currentClearTextPassword, String newPassword) {
         return SecurityUtils
@@ -286,7 +453,7 @@ public class UserService {
                 user.setPassword(encryptedPassword);
                 return user;
             })
-            .flatMap(this::saveUser)
+            .flatMap(user -> saveUser(user, AuthoritiesUpdate.ADD_MISSING))
             .doOnNext(user -> log.debug("Changed password for User: {}", user))
             .then();
     }
@@ -296,11 +463,37 @@ public class UserService {
         return userRepository.findAllWithAuthorities(pageable).map(AdminUserDTO::new);
     }
 
+    /**
+     * Gets a page of the users, reading only the given fields.
+     *
+     * @param pageable the page, sorted by fields of the user.
+     * @param fields the names of the fields to read, among {@link UserRepository#SPARSE_FIELDS}.
+     * @return the users, with {@code null} or empty values for the other fields.
+     */
+    @Transactional(readOnly = true)
+    public Flux<AdminUserDTO> getAllManagedUsers(Pageable pageable, Set<String> fields) {
+        return userRepository.findAllWithFields(pageable, fields).map(AdminUserDTO::new);
+    }
+
     @Transactional(readOnly = true)
     public Flux<UserDTO> getAllPublicUsers(Pageable pageable) {
         return userRepository.findAllByIdNotNullAndActivatedIsTrue(pageable).map(UserDTO::new);
     }
 
+    /**
+     * Gets the activated users with the given logins, with a single query.
+     *
+     * @param logins the logins of the users, in lower case.
+     * @return the users, the unknown logins being left out.
+     */
+    @Transactional(readOnly = true)
+    public Flux<UserDTO> getPublicUsersByLogins(Collection<String> logins) {
+        if (logins.isEmpty()) {
+            return Flux.empty();
+        }
+        return userRepository.findAllByLoginInAndActivatedIsTrue(logins).map(UserDTO::new);
+    }
+
     @Transactional(readOnly = true)
     public Mono<Long> countManagedUsers() {
         return userRepository.count();
@@ -323,25 +516,110 @@ public class UserService {
      */
     @Scheduled(cron = "0 0 1 * * ?")
     public void removeNotActivatedUsers() {
-        removeNotActivatedUsersReactively().blockLast();
+        Long deleted = removeNotActivatedUsersReactively().block();
+        if (deleted != null && deleted > 0) {
+            log.info("Deleted {} not activated users", deleted);
+        }
     }
 
-    @Transactional
-    public Flux<User> removeNotActivatedUsersReactively() {
-        return userRepository
-            .findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(
-                LocalDateTime.ofInstant(Instant.now().minus(3, ChronoUnit.DAYS), ZoneOffset.UTC)
+    /**
+     * Deletes the users which were not activated in time, in batches of ids read in keyset order.
+     * <p>
+     * Each batch is deleted in its own short transaction, with one statement per table, and is followed by a pause so
+     * that the replicas can keep up with the primary database.
+     *
+     * @return the number of deleted users.
+     */
+    public Mono<Long> removeNotActivatedUsersReactively() {
+        ApplicationProperties.UserPurge properties = applicationProperties.getUserPurge();
+        Instant createdBefore = Instant.now().minus(properties.getRetentionDays(), ChronoUnit.DAYS);
+        Duration pause = Duration.ofMillis(properties.getPauseMs());
+        return purgeNotActivatedUsers(createdBefore, 0L)
+            .expand(batch ->
+                batch.selected < properties.getBatchSize()
+                    ? Mono.empty()
+                    : Mono.delay(pause).then(purgeNotActivatedUsers(createdBefore, batch.lastId))
             )
-            .flatMap(user -> userRepository.delete(user).thenReturn(user))
-            .doOnNext(user -> log.debug("Deleted User: {}", user));
+            .reduce(0L, (total, batch) -> total + batch.deleted);
+    }
+
+    private Mono<PurgeBatch> purgeNotActivatedUsers(Instant createdBefore, long afterId) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return userRepository
+                .findNotActivatedUserIds(createdBefore, afterId, applicationProperties.getUserPurge().getBatchSize())
+                .collectList()
+                .flatMap(ids -> {
+                    if (ids.isEmpty()) {
+                        return Mono.just(new PurgeBatch(0, afterId, 0));
+                    }
+                    return transactionalOperator
+                        .transactional(userRepository.deleteNotActivatedUsers(ids))
+                        .map(deleted -> new PurgeBatch(ids.size(), ids.get(ids.size() - 1), deleted));
+                })
+                .doOnNext(batch -> {
+                    sample.stop(purgeBatchTimer);
+                    purgedCounter.increment(batch.deleted);
+                    log.debug("Deleted {} not activated users, up to id {}", batch.deleted, batch.lastId);
+                });
+        });
     }
 
     /**
      * Gets a list of all the authorities.
      * @return a list of all the authorities.
      */
-    @Transactional(readOnly = true)
     public Flux<String> getAuthorities() {
-        return authorityRepository.findAll().map(Authority::getName);
+        return authorityService.getAuthorities().flatMapIterable(byName -> new TreeSet<>(byName.keySet()));
+    }
+
+    /**
+     * How the saved authorities of an existing user are updated from the authorities of the user object.
+     */
+    private enum AuthoritiesUpdate {
+        /**
+         * Adds the authorities which are not saved yet, and keeps the saved ones the user object lacks, as it may have
+         * been loaded without its authorities.
+         */
+        ADD_MISSING,
+
+        /**
+         * Makes the saved authorities exactly the ones of the user object.
+         */
+        REPLACE
+    }
+
+    /**
+     * State shared by the batches of a bulk creation of users.
+     */
+    private static class UserBatchContext {
+
+        private final String currentLogin;
+
+        private final Map<String, Authority> authorities;
+
+        private final Set<String> usedLogins = new HashSet<>();
+
+        private final Set<String> usedEmails = new HashSet<>();
+
+        UserBatchContext(String currentLogin, Map<String, Authority> authorities) {
+            this.currentLogin = currentLogin;
+            this.authorities = authorities;
+        }
+    }
+
+    private static class PurgeBatch {
+
+        private final int selected;
+
+        private final long lastId;
+
+        private final int deleted;
+
+        PurgeBatch(int selected, long lastId, int deleted) {
+            this.selected = selected;
+            this.lastId = lastId;
+            this.deleted = deleted;
+        }
     }
 }
@@ -0,0 +1,47 @@
+package com.mycompany.bugtracker.service.dto;
+
+import com.mycompany.bugtracker.domain.Label;
+
+/**
+ * A DTO representing a {@link Label}, with the number of tickets it is set on.
+ */
+public class LabelUsageDTO {
+
+    private Label label;
+
+    private long tickets;
+
+    public LabelUsageDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public LabelUsageDTO(Label label, long tickets) {
+        this.label = label;
+        this.tickets = tickets;
+    }
+
+    public Label getLabel() {
+        return label;
+    }
+
+    public void setLabel(Label label) {
+        this.label = label;
+    }
+
+    public long getTickets() {
+        return tickets;
+    }
+
+    public void setTickets(long tickets) {
+        this.tickets = tickets;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "LabelUsageDTO{" +
+            "label=" + label +
+            ", tickets=" + tickets +
+            "}";
+    }
+}
@@ -0,0 +1,74 @@
+package com.mycompany.bugtracker.service.dto;
+
+import com.mycompany.bugtracker.domain.Project;
+
+/**
+ * A DTO representing a {@link Project}, with the counts of its tickets.
+ */
+public class ProjectSummaryDTO {
+
+    private Project project;
+
+    private long openTickets;
+
+    private long doneTickets;
+
+    private long overdueTickets;
+
+    public ProjectSummaryDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public ProjectSummaryDTO(Project project, long openTickets, long doneTickets, long overdueTickets) {
+        this.project = project;
+        this.openTickets = openTickets;
+        this.doneTickets = doneTickets;
+        this.overdueTickets = overdueTickets;
+    }
+
+    public Project getProject() {
+        return project;
+    }
+
+    public void setProject(Project project) {
+        this.project = project;
+    }
+
+    public long getOpenTickets() {
+        return openTickets;
+    }
+
+    public void setOpenTickets(long openTickets) {
+        this.openTickets = openTickets;
+    }
+
+    public long getDoneTickets() {
+        return doneTickets;
+    }
+
+    public void setDoneTickets(long doneTickets) {
+        this.doneTickets = doneTickets;
+    }
+
+    /**
+     * @return the number of the open tickets which are past their due date.
+     */
+    public long getOverdueTickets() {
+        return overdueTickets;
+    }
+
+    public void setOverdueTickets(long overdueTickets) {
+        this.overdueTickets = overdueTickets;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProjectSummaryDTO{" +
+            "project=" + project +
+            ", openTickets=" + openTickets +
+            ", doneTickets=" + doneTickets +
+            ", overdueTickets=" + overdueTickets +
+            "}";
+    }
+}
@@ -0,0 +1,101 @@
+package com.mycompany.bugtracker.service.dto;
+
+import com.mycompany.bugtracker.domain.Ticket;
+import java.time.Instant;
+
+/**
+ * A DTO representing the creation, update or deletion of a {@link Ticket}.
+ */
+public class TicketChangeEventDTO {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+    }
+
+    private long sequence;
+
+    private Type type;
+
+    private Long ticketId;
+
+    private Long projectId;
+
+    private Instant timestamp;
+
+    private Ticket ticket;
+
+    public TicketChangeEventDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public TicketChangeEventDTO(long sequence, Type type, Long ticketId, Long projectId, Instant timestamp, Ticket ticket) {
+        this.sequence = sequence;
+        this.type = type;
+        this.ticketId = ticketId;
+        this.projectId = projectId;
+        this.timestamp = timestamp;
+        this.ticket = ticket;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public Long getTicketId() {
+        return ticketId;
+    }
+
+    public void setTicketId(Long ticketId) {
+        this.ticketId = ticketId;
+    }
+
+    public Long getProjectId() {
+        return projectId;
+    }
+
+    public void setProjectId(Long projectId) {
+        this.projectId = projectId;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Instant timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public Ticket getTicket() {
+        return ticket;
+    }
+
+    public void setTicket(Ticket ticket) {
+        this.ticket = ticket;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "TicketChangeEventDTO{" +
+            "sequence=" + sequence +
+            ", type=" + type +
+            ", ticketId=" + ticketId +
+            ", projectId=" + projectId +
+            ", timestamp=" + timestamp +
+            "}";
+    }
+}
@@ -0,0 +1,129 @@
+package com.mycompany.bugtracker.service.dto;
+
+import java.time.LocalDate;
+
+/**
+ * A DTO representing a {@link com.mycompany.bugtracker.domain.Ticket} in a list, with only the fields shown there,
+ * and the name of its project and the login of its assignee.
+ */
+public class TicketSummaryDTO {
+
+    private Long id;
+
+    private String title;
+
+    private Boolean done;
+
+    private LocalDate dueDate;
+
+    private Long projectId;
+
+    private String projectName;
+
+    private Long assignedToId;
+
+    private String assignedToLogin;
+
+    public TicketSummaryDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public TicketSummaryDTO(
+        Long id,
+        String title,
+        Boolean done,
+        LocalDate dueDate,
+        Long projectId,
+        String projectName,
+        Long assignedToId,
+        String assignedToLogin
+    ) {
+        this.id = id;
+        this.title = title;
+        this.done = done;
+        this.dueDate = dueDate;
+        this.projectId = projectId;
+        this.projectName = projectName;
+        this.assignedToId = assignedToId;
+        this.assignedToLogin = assignedToLogin;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public Boolean getDone() {
+        return done;
+    }
+
+    public void setDone(Boolean done) {
+        this.done = done;
+    }
+
+    public LocalDate getDueDate() {
+        return dueDate;
+    }
+
+    public void setDueDate(LocalDate dueDate) {
+        this.dueDate = dueDate;
+    }
+
+    public Long getProjectId() {
+        return projectId;
+    }
+
+    public void setProjectId(Long projectId) {
+        this.projectId = projectId;
+    }
+
+    public String getProjectName() {
+        return projectName;
+    }
+
+    public void setProjectName(String projectName) {
+        this.projectName = projectName;
+    }
+
+    public Long getAssignedToId() {
+        return assignedToId;
+    }
+
+    public void setAssignedToId(Long assignedToId) {
+        this.assignedToId = assignedToId;
+    }
+
+    public String getAssignedToLogin() {
+        return assignedToLogin;
+    }
+
+    public void setAssignedToLogin(String assignedToLogin) {
+        this.assignedToLogin = assignedToLogin;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "TicketSummaryDTO{" +
+            "id=" + id +
+            ", title='" + title + "'" +
+            ", done=" + done +
+            ", dueDate=" + dueDate +
+            ", projectId=" + projectId +
+            ", projectName='" + projectName + "'" +
+            ", assignedToId=" + assignedToId +
+            ", assignedToLogin='" + assignedToLogin + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,99 @@
+package com.mycompany.bugtracker.service.dto;
+
+import com.mycompany.bugtracker.domain.Ticket;
+import java.time.Instant;
+
+/**
+ * A DTO representing a {@link Ticket} modified or deleted since a client last synced the tickets: the ticket as it
+ * is now, or a tombstone holding only its id if it was deleted. Its sync version and ticket id are the position a
+ * client resumes the sync from.
+ */
+public class TicketSyncDTO {
+
+    private Long ticketId;
+
+    private Instant lastModifiedDate;
+
+    private Long syncVersion;
+
+    private boolean deleted;
+
+    private Ticket ticket;
+
+    public TicketSyncDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public TicketSyncDTO(Long ticketId, Instant lastModifiedDate, Long syncVersion, boolean deleted, Ticket ticket) {
+        this.ticketId = ticketId;
+        this.lastModifiedDate = lastModifiedDate;
+        this.syncVersion = syncVersion;
+        this.deleted = deleted;
+        this.ticket = ticket;
+    }
+
+    /**
+     * Creates the DTO of a ticket which was created or updated.
+     */
+    public static TicketSyncDTO modified(Ticket ticket) {
+        return new TicketSyncDTO(ticket.getId(), ticket.getLastModifiedDate(), ticket.getSyncVersion(), false, ticket);
+    }
+
+    /**
+     * Creates the DTO of a ticket which was deleted.
+     */
+    public static TicketSyncDTO deleted(Long ticketId, Instant deletedDate, Long syncVersion) {
+        return new TicketSyncDTO(ticketId, deletedDate, syncVersion, true, null);
+    }
+
+    public Long getTicketId() {
+        return ticketId;
+    }
+
+    public void setTicketId(Long ticketId) {
+        this.ticketId = ticketId;
+    }
+
+    public Instant getLastModifiedDate() {
+        return lastModifiedDate;
+    }
+
+    public void setLastModifiedDate(Instant lastModifiedDate) {
+        this.lastModifiedDate = lastModifiedDate;
+    }
+
+    public Long getSyncVersion() {
+        return syncVersion;
+    }
+
+    public void setSyncVersion(Long syncVersion) {
+        this.syncVersion = syncVersion;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(boolean deleted) {
+        this.deleted = deleted;
+    }
+
+    public Ticket getTicket() {
+        return ticket;
+    }
+
+    public void setTicket(Ticket ticket) {
+        this.ticket = ticket;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "TicketSyncDTO{" +
+            "ticketId=" + ticketId +
+            ", lastModifiedDate=" + lastModifiedDate +
+            ", syncVersion=" + syncVersion +
+            ", deleted=" + deleted +
+            "}";
+    }
+}
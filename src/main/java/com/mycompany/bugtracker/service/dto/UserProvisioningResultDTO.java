@@ -0,0 +1,65 @@
+package com.mycompany.bugtracker.service.dto;
+
+/**
+ * A DTO representing the outcome of provisioning one user in bulk.
+ */
+public class UserProvisioningResultDTO {
+
+    public enum Status {
+        CREATED,
+        LOGIN_ALREADY_USED,
+        EMAIL_ALREADY_USED,
+    }
+
+    private String login;
+
+    private Status status;
+
+    private AdminUserDTO user;
+
+    public UserProvisioningResultDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public UserProvisioningResultDTO(String login, Status status, AdminUserDTO user) {
+        this.login = login;
+        this.status = status;
+        this.user = user;
+    }
+
+    public String getLogin() {
+        return login;
+    }
+
+    public void setLogin(String login) {
+        this.login = login;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    /**
+     * @return the created user, or {@code null} if it was not created.
+     */
+    public AdminUserDTO getUser() {
+        return user;
+    }
+
+    public void setUser(AdminUserDTO user) {
+        this.user = user;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "UserProvisioningResultDTO{" +
+            "login='" + login + '\'' +
+            ", status=" + status +
+            "}";
+    }
+}
@@ -0,0 +1,83 @@
+package com.mycompany.bugtracker.web.filter;
+
+import com.mycompany.bugtracker.web.util.ETagUtil;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+/**
+ * Answers the conditional {@code GET} requests of the given resources with {@code 304 (Not Modified)} when the client
+ * already has the response.
+ * <p>
+ * A response written in one go is buffered and tagged from its content, unless its handler tagged it already, and is
+ * not sent if the {@code If-None-Match} header of the request matches the tag. The streams are left as they are.
+ * Hashing a response costs as much as writing it, so only small resources are given to this filter: the handlers
+ * which get a tag cheaper than their response, see {@link ETagUtil#ifNoneMatch}, are left out, and tag their response
+ * themselves.
+ * <p>
+ * The tagged responses get the cache control of {@link ETagUtil#CACHE_CONTROL}. The other resources keep the default
+ * headers of Spring Security.
+ */
+public class ConditionalGetWebFilter implements WebFilter {
+
+    private final List<PathPattern> pathPatterns;
+
+    /**
+     * @param pathPatterns the patterns of the paths of the resources, such as {@code /api/projects/{id}}.
+     */
+    public ConditionalGetWebFilter(String... pathPatterns) {
+        this.pathPatterns = Stream.of(pathPatterns).map(PathPatternParser.defaultInstance::parse).collect(Collectors.toList());
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (exchange.getRequest().getMethod() != HttpMethod.GET || !matches(exchange.getRequest().getPath().pathWithinApplication())) {
+            return chain.filter(exchange);
+        }
+        ServerHttpResponseDecorator response = new ServerHttpResponseDecorator(exchange.getResponse()) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                Integer status = getRawStatusCode();
+                if (!(body instanceof Mono) || (status != null && status != HttpStatus.OK.value())) {
+                    return super.writeWith(body);
+                }
+                return DataBufferUtils
+                    .join(body)
+                    .flatMap(buffer -> {
+                        HttpHeaders headers = getHeaders();
+                        if (headers.getETag() == null) {
+                            headers.setETag(ETagUtil.weakFromContent(buffer.asByteBuffer()));
+                        }
+                        if (headers.getCacheControl() == null) {
+                            headers.setCacheControl(ETagUtil.CACHE_CONTROL);
+                        }
+                        if (exchange.checkNotModified(headers.getETag())) {
+                            DataBufferUtils.release(buffer);
+                            headers.remove(HttpHeaders.CONTENT_LENGTH);
+                            return setComplete();
+                        }
+                        return super.writeWith(Mono.just(buffer));
+                    });
+            }
+        };
+        return chain.filter(exchange.mutate().response(response).build());
+    }
+
+    private boolean matches(PathContainer path) {
+        return pathPatterns.stream().anyMatch(pattern -> pattern.matches(path));
+    }
+}
@@ -10,7 +10,6 @@ import com.mycompany.bugtracker.web.rest.errors.*;
 import com.mycompany.bugtracker.web.rest.vm.KeyAndPasswordVM;
 import com.mycompany.bugtracker.web.rest.vm.ManagedUserVM;
 import java.security.Principal;
-import java.util.Objects;
 import javax.validation.Valid;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -62,7 +61,7 @@ public class AccountResource {
         if (isPasswordLengthInvalid(managedUserVM.getPassword())) {
             throw new InvalidPasswordException();
         }
-        return userService.registerUser(managedUserVM, managedUserVM.getPassword()).doOnSuccess(mailService::sendActivationEmail).then();
+        return userService.registerUser(managedUserVM, managedUserVM.getPassword()).flatMap(mailService::sendActivationEmail);
     }
 
     /**
@@ -164,15 +163,14 @@ public class AccountResource {
     public Mono<Void> requestPasswordReset(@RequestBody String mail) {
         return userService
             .requestPasswordReset(mail)
-            .doOnSuccess(user -> {
-                if (Objects.nonNull(user)) {
-                    mailService.sendPasswordResetMail(user);
-                } else {
+            .flatMap(user -> mailService.sendPasswordResetMail(user).thenReturn(user))
+            .switchIfEmpty(
+                Mono.fromRunnable(() -> {
                     // Pretend the request has been successful to prevent checking which emails really exist
                     // but log that an invalid attempt has been made
                     log.warn("Password reset requested for non existing mail");
-                }
-            })
+                })
+            )
             .then();
     }
 
@@ -0,0 +1,239 @@
+package com.mycompany.bugtracker.web.rest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mycompany.bugtracker.config.ApplicationProperties;
+import com.mycompany.bugtracker.web.rest.errors.BadRequestAlertException;
+import com.mycompany.bugtracker.web.rest.vm.BatchRequestVM;
+import com.mycompany.bugtracker.web.rest.vm.BatchResponseVM;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.AbstractServerHttpResponse;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * REST controller for running several requests of the API in a single one.
+ * <p>
+ * Each request of a batch goes through the same filters, security rules and handlers as a request from a client,
+ * but with the security context of the batch, so the token is only checked once. A few of them are handled at the
+ * same time, and their responses are returned in the order of the requests.
+ */
+@RestController
+@RequestMapping("/api")
+public class BatchResource {
+
+    private static final String ENTITY_NAME = "batch";
+
+    private static final PathPattern API_PATTERN = PathPatternParser.defaultInstance.parse("/api/**");
+
+    private static final PathPattern BATCH_PATTERN = PathPatternParser.defaultInstance.parse("/api/_batch");
+
+    /**
+     * Key of the Reactor context of the requests of a batch, which cannot run a batch in turn.
+     */
+    private static final String BATCHED = BatchResource.class.getName() + ".BATCHED";
+
+    private static final Set<HttpMethod> METHODS = Set.of(
+        HttpMethod.GET,
+        HttpMethod.POST,
+        HttpMethod.PUT,
+        HttpMethod.PATCH,
+        HttpMethod.DELETE
+    );
+
+    private final Logger log = LoggerFactory.getLogger(BatchResource.class);
+
+    private final ObjectProvider<HttpHandler> httpHandler;
+
+    private final ObjectMapper objectMapper;
+
+    private final ApplicationProperties.Batch properties;
+
+    public BatchResource(ObjectProvider<HttpHandler> httpHandler, ObjectMapper objectMapper, ApplicationProperties applicationProperties) {
+        this.httpHandler = httpHandler;
+        this.objectMapper = objectMapper;
+        this.properties = applicationProperties.getBatch();
+    }
+
+    /**
+     * {@code POST  /_batch} : run a batch of requests.
+     *
+     * @param requests the requests, each with a method, a URL of the API, and an optional JSON body.
+     * @param exchange the exchange of the batch.
+     * @return the list of the responses in body, each with a status, headers and a JSON body, in the order of the requests.
+     * @throws BadRequestAlertException {@code 400 (Bad Request)} if there are too many requests, or one of them is invalid,
+     * or if the batch is itself a request of a batch.
+     */
+    @PostMapping("/_batch")
+    public Mono<List<BatchResponseVM>> runBatch(@RequestBody List<BatchRequestVM> requests, ServerWebExchange exchange) {
+        log.debug("REST request to run a batch of {} requests", requests.size());
+        if (requests.size() > properties.getMaxSize()) {
+            throw new BadRequestAlertException("At most " + properties.getMaxSize() + " requests can be batched", ENTITY_NAME, "toolarge");
+        }
+        requests.forEach(request -> validate(request, exchange));
+        HttpHandler handler = httpHandler.getObject();
+        return Mono.deferContextual(context -> {
+            if (context.hasKey(BATCHED)) {
+                return Mono.error(new BadRequestAlertException("A batch cannot be nested", ENTITY_NAME, "nested"));
+            }
+            return ReactiveSecurityContextHolder
+                .getContext()
+                .map(securityContext -> ReactiveSecurityContextHolder.withSecurityContext(Mono.just(securityContext)))
+                .defaultIfEmpty(Context.empty())
+                .flatMapMany(securityContext ->
+                    Flux
+                        .fromIterable(requests)
+                        .flatMapSequential(
+                            request -> dispatch(handler, exchange, request).contextWrite(securityContext),
+                            properties.getConcurrency()
+                        )
+                )
+                .collectList();
+        });
+    }
+
+    /**
+     * Checks a request of the batch. Its path is matched once decoded, as it is by the handlers.
+     */
+    private void validate(BatchRequestVM request, ServerWebExchange exchange) {
+        HttpMethod method = request.getMethod() != null ? HttpMethod.resolve(request.getMethod()) : null;
+        if (method == null || !METHODS.contains(method)) {
+            throw new BadRequestAlertException("Invalid method " + request.getMethod(), ENTITY_NAME, "methodinvalid");
+        }
+        String url = request.getUrl();
+        if (url == null || !url.startsWith("/api/")) {
+            throw new BadRequestAlertException("Invalid URL " + url, ENTITY_NAME, "urlinvalid");
+        }
+        PathContainer path;
+        try {
+            ServerHttpRequest batchedRequest = exchange.getRequest().mutate().uri(exchange.getRequest().getURI().resolve(url)).build();
+            path = batchedRequest.getPath().pathWithinApplication();
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid URL " + url, ENTITY_NAME, "urlinvalid");
+        }
+        if (!API_PATTERN.matches(path) || BATCH_PATTERN.matches(path)) {
+            throw new BadRequestAlertException("Invalid URL " + url, ENTITY_NAME, "urlinvalid");
+        }
+    }
+
+    /**
+     * Handles a request of the batch, with the headers of a JSON request and without the token of the batch.
+     */
+    private Mono<BatchResponseVM> dispatch(HttpHandler handler, ServerWebExchange exchange, BatchRequestVM batchRequest) {
+        byte[] body;
+        try {
+            body = batchRequest.getBody() != null ? objectMapper.writeValueAsBytes(batchRequest.getBody()) : null;
+        } catch (JsonProcessingException e) {
+            return Mono.error(e);
+        }
+        DataBufferFactory bufferFactory = exchange.getResponse().bufferFactory();
+        ServerHttpRequest request = exchange
+            .getRequest()
+            .mutate()
+            .method(HttpMethod.resolve(batchRequest.getMethod()))
+            .uri(exchange.getRequest().getURI().resolve(batchRequest.getUrl()))
+            .headers(headers -> {
+                headers.clear();
+                headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+                if (body != null) {
+                    headers.setContentType(MediaType.APPLICATION_JSON);
+                    headers.setContentLength(body.length);
+                }
+            })
+            .build();
+        ServerHttpRequest requestWithBody = new ServerHttpRequestDecorator(request) {
+            @Override
+            public Flux<DataBuffer> getBody() {
+                return body != null ? Flux.defer(() -> Flux.just(bufferFactory.wrap(body))) : Flux.empty();
+            }
+        };
+        BufferedServerHttpResponse response = new BufferedServerHttpResponse(bufferFactory);
+        return handler
+            .handle(requestWithBody, response)
+            .contextWrite(Context.of(BATCHED, true))
+            .then(Mono.fromCallable(() -> toResponse(response)));
+    }
+
+    private BatchResponseVM toResponse(BufferedServerHttpResponse response) throws JsonProcessingException {
+        BatchResponseVM batchResponse = new BatchResponseVM();
+        Integer status = response.getRawStatusCode();
+        batchResponse.setStatus(status != null ? status : HttpStatus.OK.value());
+        batchResponse.setHeaders(new LinkedHashMap<>(response.getHeaders()));
+        if (response.body.length > 0) {
+            String body = new String(response.body, StandardCharsets.UTF_8);
+            MediaType contentType = response.getHeaders().getContentType();
+            boolean json =
+                contentType != null &&
+                (contentType.isCompatibleWith(MediaType.APPLICATION_JSON) || contentType.getSubtype().endsWith("+json"));
+            batchResponse.setBody(json ? body : objectMapper.writeValueAsString(body));
+        }
+        return batchResponse;
+    }
+
+    /**
+     * Response which keeps its body in memory, to be returned in the response of the batch.
+     */
+    private static class BufferedServerHttpResponse extends AbstractServerHttpResponse {
+
+        private byte[] body = new byte[0];
+
+        BufferedServerHttpResponse(DataBufferFactory bufferFactory) {
+            super(bufferFactory);
+        }
+
+        @Override
+        public <T> T getNativeResponse() {
+            throw new IllegalStateException("A batched response has no native response");
+        }
+
+        @Override
+        protected Mono<Void> writeWithInternal(Publisher<? extends DataBuffer> body) {
+            return DataBufferUtils
+                .join(body)
+                .doOnNext(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    this.body = bytes;
+                })
+                .then();
+        }
+
+        @Override
+        protected Mono<Void> writeAndFlushWithInternal(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return writeWithInternal(Flux.from(body).concatMap(Flux::from));
+        }
+
+        @Override
+        protected void applyStatusCode() {}
+
+        @Override
+        protected void applyHeaders() {}
+
+        @Override
+        protected void applyCookies() {}
+    }
+}
@@ -1,13 +1,21 @@
 package com.mycompany.bugtracker.web.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mycompany.bugtracker.config.Constants;
 import com.mycompany.bugtracker.domain.Label;
 import com.mycompany.bugtracker.repository.LabelRepository;
+import com.mycompany.bugtracker.service.CascadeDeletionService;
+import com.mycompany.bugtracker.service.LabelService;
+import com.mycompany.bugtracker.service.LabelUsageService;
+import com.mycompany.bugtracker.service.dto.LabelUsageDTO;
 import com.mycompany.bugtracker.web.rest.errors.BadRequestAlertException;
+import com.mycompany.bugtracker.web.util.FieldsUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
@@ -16,7 +24,9 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
@@ -26,6 +36,9 @@ import tech.jhipster.web.util.reactive.ResponseUtil;
 
 /**
  * REST controller for managing {@link com.mycompany.bugtracker.domain.Label}.
+ * <p>
+ * The updates run in their own transaction, and the cached labels are evicted once it has committed, so that they are
+ * not loaded again before the change is visible.
  */
 @RestController
 @RequestMapping("/api")
@@ -39,10 +52,34 @@ public class LabelResource {
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
+    private static final int MAX_TOP_USAGES = 100;
+
     private final LabelRepository labelRepository;
 
-    public LabelResource(LabelRepository labelRepository) {
+    private final LabelUsageService labelUsageService;
+
+    private final CascadeDeletionService cascadeDeletionService;
+
+    private final LabelService labelService;
+
+    private final ObjectMapper objectMapper;
+
+    private final TransactionalOperator transactionalOperator;
+
+    public LabelResource(
+        LabelRepository labelRepository,
+        LabelUsageService labelUsageService,
+        CascadeDeletionService cascadeDeletionService,
+        LabelService labelService,
+        ObjectMapper objectMapper,
+        TransactionalOperator transactionalOperator
+    ) {
         this.labelRepository = labelRepository;
+        this.labelUsageService = labelUsageService;
+        this.cascadeDeletionService = cascadeDeletionService;
+        this.labelService = labelService;
+        this.objectMapper = objectMapper;
+        this.transactionalOperator = transactionalOperator;
     }
 
     /**
@@ -83,6 +120,7 @@ public class LabelResource {
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/labels/{id}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Mono<ResponseEntity<Label>> updateLabel(
         @PathVariable(value = "id", required = false) final Long id,
         @Valid @RequestBody Label label
@@ -111,7 +149,9 @@ public class LabelResource {
                             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
                             .body(result)
                     );
-            });
+            })
+            .as(transactionalOperator::transactional)
+            .doOnSuccess(result -> labelService.evictLabels());
     }
 
     /**
@@ -126,6 +166,7 @@ public class LabelResource {
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PatchMapping(value = "/labels/{id}", consumes = { "application/json", "application/merge-patch+json" })
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Mono<ResponseEntity<Label>> partialUpdateLabel(
         @PathVariable(value = "id", required = false) final Long id,
         @NotNull @RequestBody Label label
@@ -164,7 +205,9 @@ public class LabelResource {
                             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, res.getId().toString()))
                             .body(res)
                     );
-            });
+            })
+            .as(transactionalOperator::transactional)
+            .doOnSuccess(res -> labelService.evictLabels());
     }
 
     /**
@@ -178,16 +221,68 @@ public class LabelResource {
         return labelRepository.findAll().collectList();
     }
 
+    /**
+     * {@code GET  /labels?fields=:fields} : get all the labels, with only the given fields.
+     * <p>
+     * Only the columns of the fields are read. The id is always returned.
+     *
+     * @param fields the comma separated list of fields, among {@link LabelRepository#SPARSE_FIELDS}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of labels in body.
+     */
+    @GetMapping(value = "/labels", params = "fields")
+    public Mono<List<FieldsUtil.Narrowed>> getAllLabelsWithFields(@RequestParam String fields) {
+        log.debug("REST request to get all Labels with fields : {}", fields);
+        Set<String> selected = FieldsUtil.parse(fields, LabelRepository.SPARSE_FIELDS, ENTITY_NAME);
+        return labelRepository.findAllWithFields(selected).map(label -> FieldsUtil.narrow(objectMapper, label, selected)).collectList();
+    }
+
     /**
      * {@code GET  /labels} : get all the labels as a stream.
      * @return the {@link Flux} of labels.
      */
-    @GetMapping(value = "/labels", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @GetMapping(value = "/labels", produces = { MediaType.APPLICATION_NDJSON_VALUE, Constants.APPLICATION_SMILE_STREAM_VALUE })
     public Flux<Label> getAllLabelsAsStream() {
         log.debug("REST request to get all Labels as a stream");
         return labelRepository.findAll();
     }
 
+    /**
+     * {@code GET  /labels/usages} : get all the labels, with the number of tickets they are set on.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of label usages in body.
+     */
+    @GetMapping("/labels/usages")
+    public Mono<List<LabelUsageDTO>> getAllLabelUsages() {
+        log.debug("REST request to get all Label usages");
+        return labelUsageService.getUsages().collectList();
+    }
+
+    /**
+     * {@code GET  /labels/usages} : get all the labels, with the number of tickets they are set on, as a stream.
+     * @return the {@link Flux} of label usages.
+     */
+    @GetMapping(value = "/labels/usages", produces = { MediaType.APPLICATION_NDJSON_VALUE, Constants.APPLICATION_SMILE_STREAM_VALUE })
+    public Flux<LabelUsageDTO> getAllLabelUsagesAsStream() {
+        log.debug("REST request to get all Label usages as a stream");
+        return labelUsageService.getUsages();
+    }
+
+    /**
+     * {@code GET  /labels/usages/top} : get the most used labels.
+     *
+     * @param limit the maximum number of labels, at most {@value #MAX_TOP_USAGES}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of label usages in body, the most used first,
+     * or with status {@code 400 (Bad Request)} if the limit is out of range.
+     */
+    @GetMapping("/labels/usages/top")
+    public Mono<List<LabelUsageDTO>> getTopLabelUsages(@RequestParam(defaultValue = "10") int limit) {
+        log.debug("REST request to get the {} most used Labels", limit);
+        if (limit < 1 || limit > MAX_TOP_USAGES) {
+            throw new BadRequestAlertException("The limit must be between 1 and " + MAX_TOP_USAGES, ENTITY_NAME, "limitinvalid");
+        }
+        return labelUsageService.getTopUsages(limit);
+    }
+
     /**
      * {@code GET  /labels/:id} : get the "id" label.
      *
@@ -203,16 +298,24 @@ public class LabelResource {
 
     /**
      * {@code DELETE  /labels/:id} : delete the "id" label.
+     * <p>
+     * Each chunk of the tickets it is set on is detached or deleted in its own transaction.
      *
      * @param id the id of the label to delete.
+     * @param cascade what to do with the tickets it is set on: {@code NONE}, {@code DETACH} or {@code DELETE}.
      * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}.
      */
     @DeleteMapping("/labels/{id}")
     @ResponseStatus(code = HttpStatus.NO_CONTENT)
-    public Mono<ResponseEntity<Void>> deleteLabel(@PathVariable Long id) {
-        log.debug("REST request to delete Label : {}", id);
-        return labelRepository
-            .deleteById(id)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<ResponseEntity<Void>> deleteLabel(
+        @PathVariable Long id,
+        @RequestParam(defaultValue = "NONE") CascadeDeletionService.Cascade cascade
+    ) {
+        log.debug("REST request to delete Label : {}, cascade : {}", id, cascade);
+        return cascadeDeletionService
+            .deleteLabel(id, cascade)
+            .doOnSuccess(result -> labelService.evictLabels())
             .map(result ->
                 ResponseEntity
                     .noContent()
@@ -1,13 +1,20 @@
 package com.mycompany.bugtracker.web.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mycompany.bugtracker.config.Constants;
 import com.mycompany.bugtracker.domain.Project;
 import com.mycompany.bugtracker.repository.ProjectRepository;
+import com.mycompany.bugtracker.service.CascadeDeletionService;
+import com.mycompany.bugtracker.service.ProjectSummaryService;
+import com.mycompany.bugtracker.service.dto.ProjectSummaryDTO;
 import com.mycompany.bugtracker.web.rest.errors.BadRequestAlertException;
+import com.mycompany.bugtracker.web.util.FieldsUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
@@ -16,7 +23,9 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
@@ -26,6 +35,9 @@ import tech.jhipster.web.util.reactive.ResponseUtil;
 
 /**
  * REST controller for managing {@link com.mycompany.bugtracker.domain.Project}.
+ * <p>
+ * The writes run in their own transaction, and the project summaries are evicted once it has committed, so that they
+ * are not counted again before the change is visible.
  */
 @RestController
 @RequestMapping("/api")
@@ -41,8 +53,26 @@ public class ProjectResource {
 
     private final ProjectRepository projectRepository;
 
-    public ProjectResource(ProjectRepository projectRepository) {
+    private final ProjectSummaryService projectSummaryService;
+
+    private final CascadeDeletionService cascadeDeletionService;
+
+    private final ObjectMapper objectMapper;
+
+    private final TransactionalOperator transactionalOperator;
+
+    public ProjectResource(
+        ProjectRepository projectRepository,
+        ProjectSummaryService projectSummaryService,
+        CascadeDeletionService cascadeDeletionService,
+        ObjectMapper objectMapper,
+        TransactionalOperator transactionalOperator
+    ) {
         this.projectRepository = projectRepository;
+        this.projectSummaryService = projectSummaryService;
+        this.cascadeDeletionService = cascadeDeletionService;
+        this.objectMapper = objectMapper;
+        this.transactionalOperator = transactionalOperator;
     }
 
     /**
@@ -53,6 +83,7 @@ public class ProjectResource {
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("/projects")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Mono<ResponseEntity<Project>> createProject(@Valid @RequestBody Project project) throws URISyntaxException {
         log.debug("REST request to save Project : {}", project);
         if (project.getId() != null) {
@@ -60,6 +91,8 @@ public class ProjectResource {
         }
         return projectRepository
             .save(project)
+            .as(transactionalOperator::transactional)
+            .doOnNext(result -> projectSummaryService.evictSummaries())
             .map(result -> {
                 try {
                     return ResponseEntity
@@ -83,6 +116,7 @@ public class ProjectResource {
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/projects/{id}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Mono<ResponseEntity<Project>> updateProject(
         @PathVariable(value = "id", required = false) final Long id,
         @Valid @RequestBody Project project
@@ -111,7 +145,9 @@ public class ProjectResource {
                             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
                             .body(result)
                     );
-            });
+            })
+            .as(transactionalOperator::transactional)
+            .doOnNext(result -> projectSummaryService.evictSummaries());
     }
 
     /**
@@ -126,6 +162,7 @@ public class ProjectResource {
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PatchMapping(value = "/projects/{id}", consumes = { "application/json", "application/merge-patch+json" })
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Mono<ResponseEntity<Project>> partialUpdateProject(
         @PathVariable(value = "id", required = false) final Long id,
         @NotNull @RequestBody Project project
@@ -164,7 +201,9 @@ public class ProjectResource {
                             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, res.getId().toString()))
                             .body(res)
                     );
-            });
+            })
+            .as(transactionalOperator::transactional)
+            .doOnNext(res -> projectSummaryService.evictSummaries());
     }
 
     /**
@@ -178,16 +217,55 @@ public class ProjectResource {
         return projectRepository.findAll().collectList();
     }
 
+    /**
+     * {@code GET  /projects?fields=:fields} : get all the projects, with only the given fields.
+     * <p>
+     * Only the columns of the fields are read. The id is always returned.
+     *
+     * @param fields the comma separated list of fields, among {@link ProjectRepository#SPARSE_FIELDS}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of projects in body.
+     */
+    @GetMapping(value = "/projects", params = "fields")
+    public Mono<List<FieldsUtil.Narrowed>> getAllProjectsWithFields(@RequestParam String fields) {
+        log.debug("REST request to get all Projects with fields : {}", fields);
+        Set<String> selected = FieldsUtil.parse(fields, ProjectRepository.SPARSE_FIELDS, ENTITY_NAME);
+        return projectRepository
+            .findAllWithFields(selected)
+            .map(project -> FieldsUtil.narrow(objectMapper, project, selected))
+            .collectList();
+    }
+
     /**
      * {@code GET  /projects} : get all the projects as a stream.
      * @return the {@link Flux} of projects.
      */
-    @GetMapping(value = "/projects", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @GetMapping(value = "/projects", produces = { MediaType.APPLICATION_NDJSON_VALUE, Constants.APPLICATION_SMILE_STREAM_VALUE })
     public Flux<Project> getAllProjectsAsStream() {
         log.debug("REST request to get all Projects as a stream");
         return projectRepository.findAll();
     }
 
+    /**
+     * {@code GET  /projects/summaries} : get all the projects, with the counts of their open, done and overdue tickets.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of project summaries in body.
+     */
+    @GetMapping("/projects/summaries")
+    public Mono<List<ProjectSummaryDTO>> getAllProjectSummaries() {
+        log.debug("REST request to get all Project summaries");
+        return projectSummaryService.getSummaries().collectList();
+    }
+
+    /**
+     * {@code GET  /projects/summaries} : get all the projects, with the counts of their tickets, as a stream.
+     * @return the {@link Flux} of project summaries.
+     */
+    @GetMapping(value = "/projects/summaries", produces = { MediaType.APPLICATION_NDJSON_VALUE, Constants.APPLICATION_SMILE_STREAM_VALUE })
+    public Flux<ProjectSummaryDTO> getAllProjectSummariesAsStream() {
+        log.debug("REST request to get all Project summaries as a stream");
+        return projectSummaryService.getSummaries();
+    }
+
     /**
      * {@code GET  /projects/:id} : get the "id" project.
      *
@@ -203,16 +281,24 @@ public class ProjectResource {
 
     /**
      * {@code DELETE  /projects/:id} : delete the "id" project.
+     * <p>
+     * Each chunk of its tickets is detached or deleted in its own transaction.
      *
      * @param id the id of the project to delete.
+     * @param cascade what to do with its tickets: {@code NONE}, {@code DETACH} or {@code DELETE}.
      * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}.
      */
     @DeleteMapping("/projects/{id}")
     @ResponseStatus(code = HttpStatus.NO_CONTENT)
-    public Mono<ResponseEntity<Void>> deleteProject(@PathVariable Long id) {
-        log.debug("REST request to delete Project : {}", id);
-        return projectRepository
-            .deleteById(id)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<ResponseEntity<Void>> deleteProject(
+        @PathVariable Long id,
+        @RequestParam(defaultValue = "NONE") CascadeDeletionService.Cascade cascade
+    ) {
+        log.debug("REST request to delete Project : {}, cascade : {}", id, cascade);
+        return cascadeDeletionService
+            .deleteProject(id, cascade)
+            .doOnSuccess(result -> projectSummaryService.evictSummaries())
             .map(result ->
                 ResponseEntity
                     .noContent()
@@ -1,11 +1,17 @@
 package com.mycompany.bugtracker.web.rest;
 
+import com.mycompany.bugtracker.config.ApplicationProperties;
 import com.mycompany.bugtracker.service.UserService;
 import com.mycompany.bugtracker.service.dto.UserDTO;
+import com.mycompany.bugtracker.web.rest.errors.BadRequestAlertException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.PageImpl;
@@ -14,6 +20,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.util.UriComponentsBuilder;
@@ -33,8 +40,11 @@ public class PublicUserResource {
 
     private final UserService userService;
 
-    public PublicUserResource(UserService userService) {
+    private final int multiGetMaxSize;
+
+    public PublicUserResource(UserService userService, ApplicationProperties applicationProperties) {
         this.userService = userService;
+        this.multiGetMaxSize = applicationProperties.getMultiGet().getMaxSize();
     }
 
     /**
@@ -58,6 +68,33 @@ public class PublicUserResource {
             .map(headers -> ResponseEntity.ok().headers(headers).body(userService.getAllPublicUsers(pageable)));
     }
 
+    /**
+     * {@code GET /users?logins=:logins} : get the users with the given logins, with only the public informations.
+     *
+     * @param logins the comma separated logins of the users, at most {@code application.multi-get.max-size} distinct ones.
+     * @return the list of users in body, in the order of the given logins, the unknown logins being left out.
+     */
+    @GetMapping(value = "/users", params = "logins")
+    public Mono<List<UserDTO>> getPublicUsersByLogins(@RequestParam List<String> logins) {
+        log.debug("REST request to get public Users : {}", logins);
+        Set<String> distinctLogins = logins
+            .stream()
+            .filter(StringUtils::hasText)
+            .map(login -> login.trim().toLowerCase())
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (distinctLogins.size() > multiGetMaxSize) {
+            throw new BadRequestAlertException(
+                "At most " + multiGetMaxSize + " users can be read at once",
+                "userManagement",
+                "toomanylogins"
+            );
+        }
+        return userService
+            .getPublicUsersByLogins(distinctLogins)
+            .collectMap(UserDTO::getLogin)
+            .map(usersByLogin -> distinctLogins.stream().map(usersByLogin::get).filter(Objects::nonNull).collect(Collectors.toList()));
+    }
+
     private boolean onlyContainsAllowedProperties(Pageable pageable) {
         return pageable.getSort().stream().map(Sort.Order::getProperty).allMatch(ALLOWED_ORDERED_PROPERTIES::contains);
     }
@@ -0,0 +1,81 @@
+package com.mycompany.bugtracker.web.rest;
+
+import com.mycompany.bugtracker.service.TicketChangeEventService;
+import com.mycompany.bugtracker.service.dto.TicketChangeEventDTO;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+/**
+ * REST controller for streaming {@link com.mycompany.bugtracker.domain.Ticket} change events.
+ * <p>
+ * Not transactional on purpose: the streams are long-lived, and must not hold a database connection.
+ */
+@RestController
+@RequestMapping("/api")
+public class TicketEventResource {
+
+    private static final String LAST_EVENT_ID = "Last-Event-ID";
+
+    private final Logger log = LoggerFactory.getLogger(TicketEventResource.class);
+
+    private final TicketChangeEventService ticketChangeEventService;
+
+    public TicketEventResource(TicketChangeEventService ticketChangeEventService) {
+        this.ticketChangeEventService = ticketChangeEventService;
+    }
+
+    /**
+     * {@code GET  /tickets/events} : stream the ticket change events as server-sent events.
+     * <p>
+     * The id of each event is its sequence, so browsers resume automatically through the {@code Last-Event-ID} header.
+     *
+     * @param projectIds the projects to get the events for, all projects if empty.
+     * @param since the sequence of the last received event, to resume from.
+     * @param lastEventId the {@code Last-Event-ID} header, sent by browsers when reconnecting.
+     * @return the {@link Flux} of server-sent events.
+     */
+    @GetMapping(value = "/tickets/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<TicketChangeEventDTO>> streamTicketEvents(
+        @RequestParam(value = "projectId", required = false) List<Long> projectIds,
+        @RequestParam(value = "since", required = false) Long since,
+        @RequestHeader(value = LAST_EVENT_ID, required = false) Long lastEventId
+    ) {
+        log.debug("REST request to stream Ticket events for projects {} since {}", projectIds, since);
+        return ticketChangeEventService
+            .subscribe(lastEventId != null ? lastEventId : since, toSet(projectIds))
+            .map(event ->
+                ServerSentEvent
+                    .builder(event)
+                    .id(String.valueOf(event.getSequence()))
+                    .event(event.getType().name().toLowerCase())
+                    .build()
+            );
+    }
+
+    /**
+     * {@code GET  /tickets/events} : stream the ticket change events as newline delimited JSON.
+     *
+     * @param projectIds the projects to get the events for, all projects if empty.
+     * @param since the sequence of the last received event, to resume from.
+     * @return the {@link Flux} of events.
+     */
+    @GetMapping(value = "/tickets/events", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<TicketChangeEventDTO> streamTicketEventsAsNdjson(
+        @RequestParam(value = "projectId", required = false) List<Long> projectIds,
+        @RequestParam(value = "since", required = false) Long since
+    ) {
+        log.debug("REST request to stream Ticket events as NDJSON for projects {} since {}", projectIds, since);
+        return ticketChangeEventService.subscribe(since, toSet(projectIds));
+    }
+
+    private static Set<Long> toSet(List<Long> projectIds) {
+        return projectIds != null ? new HashSet<>(projectIds) : Set.of();
+    }
+}
@@ -1,19 +1,32 @@
 package com.mycompany.bugtracker.web.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mycompany.bugtracker.config.ApplicationProperties;
+import com.mycompany.bugtracker.config.Constants;
 import com.mycompany.bugtracker.domain.Ticket;
 import com.mycompany.bugtracker.repository.TicketRepository;
+import com.mycompany.bugtracker.service.dto.TicketSummaryDTO;
+import com.mycompany.bugtracker.service.dto.TicketSyncDTO;
 import com.mycompany.bugtracker.web.rest.errors.BadRequestAlertException;
+import com.mycompany.bugtracker.web.util.ETagUtil;
+import com.mycompany.bugtracker.web.util.FieldsUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -28,42 +41,63 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
-import tech.jhipster.web.util.reactive.ResponseUtil;
 
 /**
  * REST controller for managing {@link com.mycompany.bugtracker.domain.Ticket}.
+ * <p>
+ * Only the writes run in a transaction. The reads run without one, so that their queries don't pay for a
+ * {@code BEGIN}/{@code COMMIT}, and each of them takes a connection from the pool only while it runs.
  */
 @RestController
 @RequestMapping("/api")
-@Transactional
 public class TicketResource {
 
     private final Logger log = LoggerFactory.getLogger(TicketResource.class);
 
     private static final String ENTITY_NAME = "ticket";
 
+    private static final int STREAM_BATCH_SIZE = 500;
+
+    private static final String PREFER = "Prefer";
+
+    private static final String PREFERENCE_APPLIED = "Preference-Applied";
+
+    private static final String RETURN_MINIMAL = "return=minimal";
+
+    private static final String LABEL_UNSAVED_MESSAGE = "A label must be saved before it is set on a ticket";
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
     private final TicketRepository ticketRepository;
 
-    public TicketResource(TicketRepository ticketRepository) {
+    private final ObjectMapper objectMapper;
+
+    private final int multiGetMaxSize;
+
+    public TicketResource(TicketRepository ticketRepository, ObjectMapper objectMapper, ApplicationProperties applicationProperties) {
         this.ticketRepository = ticketRepository;
+        this.objectMapper = objectMapper;
+        this.multiGetMaxSize = applicationProperties.getMultiGet().getMaxSize();
     }
 
     /**
      * {@code POST  /tickets} : Create a new ticket.
      *
      * @param ticket the ticket to create.
-     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new ticket, or with status {@code 400 (Bad Request)} if the ticket has already an ID.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new ticket, or with status {@code 400 (Bad Request)} if the ticket has already an ID or has a label without an ID.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
+    @Transactional
     @PostMapping("/tickets")
     public Mono<ResponseEntity<Ticket>> createTicket(@RequestBody Ticket ticket) throws URISyntaxException {
         log.debug("REST request to save Ticket : {}", ticket);
         if (ticket.getId() != null) {
             throw new BadRequestAlertException("A new ticket cannot already have an ID", ENTITY_NAME, "idexists");
         }
+        if (!ticket.isLabelsSaved()) {
+            throw new BadRequestAlertException(LABEL_UNSAVED_MESSAGE, ENTITY_NAME, "labelunsaved");
+        }
         return ticketRepository
             .save(ticket)
             .map(result -> {
@@ -82,15 +116,19 @@ public class TicketResource {
      * {@code PUT  /tickets/:id} : Updates an existing ticket.
      *
      * @param id the id of the ticket to save.
+     * @param ifMatch the {@code If-Match} header, holding the entity tag of the ticket version the client has seen.
      * @param ticket the ticket to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated ticket,
      * or with status {@code 400 (Bad Request)} if the ticket is not valid,
+     * or with status {@code 412 (Precondition Failed)} if the ticket has been modified in the meantime,
      * or with status {@code 500 (Internal Server Error)} if the ticket couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
+    @Transactional
     @PutMapping("/tickets/{id}")
     public Mono<ResponseEntity<Ticket>> updateTicket(
         @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
         @RequestBody Ticket ticket
     ) throws URISyntaxException {
         log.debug("REST request to update Ticket : {}, {}", id, ticket);
@@ -100,40 +138,49 @@ public class TicketResource {
         if (!Objects.equals(id, ticket.getId())) {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
+        if (!ticket.isLabelsSaved()) {
+            throw new BadRequestAlertException(LABEL_UNSAVED_MESSAGE, ENTITY_NAME, "labelunsaved");
+        }
+        if (ifMatch != null) {
+            ticket.setVersion(ETagUtil.parseVersion(ifMatch).orElseThrow(() -> new ResponseStatusException(HttpStatus.PRECONDITION_FAILED)));
+        }
 
-        return ticketRepository
-            .existsById(id)
-            .flatMap(exists -> {
-                if (!exists) {
-                    return Mono.error(new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
-                }
-
-                return ticketRepository
-                    .save(ticket)
-                    .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
-                    .map(result ->
-                        ResponseEntity
-                            .ok()
-                            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
-                            .body(result)
-                    );
-            });
+        return withExpectedVersion(ticket)
+            .flatMap(ticketRepository::save)
+            .onErrorResume(OptimisticLockingFailureException.class, e -> concurrentModificationError(id))
+            .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+            .map(result ->
+                ResponseEntity
+                    .ok()
+                    .eTag(ETagUtil.fromVersion(result.getVersion()))
+                    .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
+                    .body(result)
+            );
     }
 
     /**
      * {@code PATCH  /tickets/:id} : Partial updates given fields of an existing ticket, field will ignore if it is null
+     * <p>
+     * Only the given fields are written, with a single statement. The labels are left untouched, unless they are given:
+     * an empty list removes them all. With a {@code Prefer: return=minimal} header, the updated ticket is not read back.
      *
      * @param id the id of the ticket to save.
+     * @param ifMatch the {@code If-Match} header, holding the entity tag of the ticket version the client has seen.
+     * @param prefer the {@code Prefer} header.
      * @param ticket the ticket to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated ticket,
-     * or with status {@code 400 (Bad Request)} if the ticket is not valid,
-     * or with status {@code 404 (Not Found)} if the ticket is not found,
+     * or with status {@code 204 (No Content)} if the client prefers a minimal response,
+     * or with status {@code 400 (Bad Request)} if the ticket is not valid or is not found,
+     * or with status {@code 412 (Precondition Failed)} if the ticket has been modified in the meantime,
      * or with status {@code 500 (Internal Server Error)} if the ticket couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
+    @Transactional
     @PatchMapping(value = "/tickets/{id}", consumes = { "application/json", "application/merge-patch+json" })
     public Mono<ResponseEntity<Ticket>> partialUpdateTicket(
         @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+        @RequestHeader(value = PREFER, required = false) String prefer,
         @RequestBody Ticket ticket
     ) throws URISyntaxException {
         log.debug("REST request to partial update Ticket partially : {}, {}", id, ticket);
@@ -143,65 +190,185 @@ public class TicketResource {
         if (!Objects.equals(id, ticket.getId())) {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
+        if (!ticket.isLabelsSaved()) {
+            throw new BadRequestAlertException(LABEL_UNSAVED_MESSAGE, ENTITY_NAME, "labelunsaved");
+        }
+        if (ifMatch != null) {
+            ticket.setVersion(ETagUtil.parseVersion(ifMatch).orElseThrow(() -> new ResponseStatusException(HttpStatus.PRECONDITION_FAILED)));
+        }
 
+        boolean minimal = prefer != null && prefer.contains(RETURN_MINIMAL);
         return ticketRepository
-            .existsById(id)
-            .flatMap(exists -> {
-                if (!exists) {
-                    return Mono.error(new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
+            .partialUpdate(ticket, !minimal)
+            .onErrorResume(OptimisticLockingFailureException.class, e -> concurrentModificationError(id))
+            .switchIfEmpty(Mono.error(new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound")))
+            .map(res -> {
+                HttpHeaders headers = HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, res.getId().toString());
+                if (res.getVersion() != null) {
+                    headers.setETag(ETagUtil.fromVersion(res.getVersion()));
                 }
-
-                Mono<Ticket> result = ticketRepository
-                    .findById(ticket.getId())
-                    .map(existingTicket -> {
-                        if (ticket.getTitle() != null) {
-                            existingTicket.setTitle(ticket.getTitle());
-                        }
-                        if (ticket.getDescription() != null) {
-                            existingTicket.setDescription(ticket.getDescription());
-                        }
-                        if (ticket.getDueDate() != null) {
-                            existingTicket.setDueDate(ticket.getDueDate());
-                        }
-                        if (ticket.getDone() != null) {
-                            existingTicket.setDone(ticket.getDone());
-                        }
-
-                        return existingTicket;
-                    })
-                    .flatMap(ticketRepository::save);
-
-                return result
-                    .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
-                    .map(res ->
-                        ResponseEntity
-                            .ok()
-                            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, res.getId().toString()))
-                            .body(res)
-                    );
+                if (minimal) {
+                    headers.set(PREFERENCE_APPLIED, RETURN_MINIMAL);
+                    return ResponseEntity.noContent().headers(headers).<Ticket>build();
+                }
+                return ResponseEntity.ok().headers(headers).body(res);
             });
     }
 
+    /**
+     * Makes sure the ticket carries the version the update is conditional on. Clients which neither send an
+     * {@code If-Match} header nor a version get last-writer-wins semantics, so the current version is looked up.
+     */
+    private Mono<Ticket> withExpectedVersion(Ticket ticket) {
+        if (ticket.getVersion() != null) {
+            return Mono.just(ticket);
+        }
+        return ticketRepository
+            .findVersionById(ticket.getId())
+            .map(ticket::version)
+            .switchIfEmpty(Mono.error(new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound")));
+    }
+
+    /**
+     * An optimistic locking failure means that either the ticket has been modified concurrently, or that it doesn't exist.
+     */
+    private <T> Mono<T> concurrentModificationError(Long id) {
+        return ticketRepository
+            .existsById(id)
+            .flatMap(exists ->
+                Mono.error(
+                    exists
+                        ? new ResponseStatusException(HttpStatus.PRECONDITION_FAILED)
+                        : new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound")
+                )
+            );
+    }
+
     /**
      * {@code GET  /tickets} : get all the tickets.
      *
      * @param pageable the pagination information.
      * @param request a {@link ServerHttpRequest} request.
      * @param eagerload flag to eager load entities from relationships (This is applicable for many-to-many).
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of tickets in body.
+     * @param ifNoneMatch the {@code If-None-Match} header, holding the entity tag of the list the client has cached.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of tickets in body,
+     * or with status {@code 304 (Not Modified)} if the list hasn't changed.
      */
     @GetMapping("/tickets")
     public Mono<ResponseEntity<List<Ticket>>> getAllTickets(
         Pageable pageable,
         ServerHttpRequest request,
-        @RequestParam(required = false, defaultValue = "false") boolean eagerload
+        @RequestParam(required = false, defaultValue = "false") boolean eagerload,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
     ) {
         log.debug("REST request to get a page of Tickets");
+        return ETagUtil.ifNoneMatch(
+            ifNoneMatch,
+            getListETag(request),
+            () -> {
+                Flux<Ticket> tickets = eagerload
+                    ? ticketRepository.findAllWithEagerRelationships(pageable)
+                    : ticketRepository.findAllBy(pageable);
+                return ticketRepository
+                    .count()
+                    .zipWith(tickets.collectList())
+                    .map(countWithEntities -> {
+                        return ResponseEntity
+                            .ok()
+                            .headers(
+                                PaginationUtil.generatePaginationHttpHeaders(
+                                    UriComponentsBuilder.fromHttpRequest(request),
+                                    new PageImpl<>(countWithEntities.getT2(), pageable, countWithEntities.getT1())
+                                )
+                            )
+                            .body(countWithEntities.getT2());
+                    });
+            }
+        );
+    }
+
+    /**
+     * {@code GET  /tickets?view=summary} : get the summaries of all the tickets, for a list.
+     * <p>
+     * A summary only holds the fields shown in a list, with the name of the project and the login of the assignee,
+     * so only these columns are read.
+     *
+     * @param pageable the pagination information.
+     * @param request a {@link ServerHttpRequest} request.
+     * @param ifNoneMatch the {@code If-None-Match} header, holding the entity tag of the list the client has cached.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of ticket summaries in body,
+     * or with status {@code 304 (Not Modified)} if the list hasn't changed.
+     */
+    @GetMapping(value = "/tickets", params = { "view=summary", "!fields", "!ids" })
+    public Mono<ResponseEntity<List<TicketSummaryDTO>>> getAllTicketSummaries(
+        Pageable pageable,
+        ServerHttpRequest request,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        log.debug("REST request to get a page of Ticket summaries");
+        return ETagUtil.ifNoneMatch(
+            ifNoneMatch,
+            getListETag(request),
+            () ->
+                ticketRepository
+                    .count()
+                    .zipWith(ticketRepository.findAllSummariesBy(pageable).collectList())
+                    .map(countWithSummaries ->
+                        ResponseEntity
+                            .ok()
+                            .headers(
+                                PaginationUtil.generatePaginationHttpHeaders(
+                                    UriComponentsBuilder.fromHttpRequest(request),
+                                    new PageImpl<>(countWithSummaries.getT2(), pageable, countWithSummaries.getT1())
+                                )
+                            )
+                            .body(countWithSummaries.getT2())
+                    )
+        );
+    }
+
+    /**
+     * Gets the entity tag of a list of the tickets, from the fingerprint of the tickets and the request of the list.
+     * It changes with the tickets, and with the projects, the labels and the users, whose names are in the list.
+     */
+    private Mono<String> getListETag(ServerHttpRequest request) {
+        return ticketRepository
+            .findFingerprint()
+            .map(fingerprint ->
+                ETagUtil.weakFromFingerprint(
+                    fingerprint,
+                    request.getURI().getRawPath(),
+                    request.getURI().getRawQuery(),
+                    request.getHeaders().getAccept()
+                )
+            );
+    }
+
+    /**
+     * {@code GET  /tickets?fields=:fields} : get a page of the tickets, with only the given fields.
+     * <p>
+     * Only the columns of the fields are read, and the project, the assignee and the labels only if they are among the
+     * fields. The id is always returned.
+     *
+     * @param fields the comma separated list of fields, among {@link TicketRepository#SPARSE_FIELDS}.
+     * @param pageable the pagination information, sorted by fields of the ticket.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of tickets in body.
+     */
+    @GetMapping(value = "/tickets", params = { "fields", "!ids" })
+    public Mono<ResponseEntity<List<FieldsUtil.Narrowed>>> getAllTicketsWithFields(
+        @RequestParam String fields,
+        Pageable pageable,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to get a page of Tickets with fields : {}", fields);
+        Set<String> selected = FieldsUtil.parse(fields, TicketRepository.SPARSE_FIELDS, ENTITY_NAME);
         return ticketRepository
             .count()
-            .zipWith(ticketRepository.findAllBy(pageable).collectList())
-            .map(countWithEntities -> {
-                return ResponseEntity
+            .zipWith(ticketRepository.findAllWithFields(pageable, selected).collectList())
+            .onErrorMap(IllegalArgumentException.class, e -> new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "sortunknown"))
+            .map(countWithEntities ->
+                ResponseEntity
                     .ok()
                     .headers(
                         PaginationUtil.generatePaginationHttpHeaders(
@@ -209,21 +376,302 @@ public class TicketResource {
                             new PageImpl<>(countWithEntities.getT2(), pageable, countWithEntities.getT1())
                         )
                     )
-                    .body(countWithEntities.getT2());
+                    .body(
+                        countWithEntities
+                            .getT2()
+                            .stream()
+                            .map(ticket -> FieldsUtil.narrow(objectMapper, ticket, selected))
+                            .collect(Collectors.toList())
+                    )
+            );
+    }
+
+    /**
+     * {@code GET  /tickets?ids=:ids} : get the tickets with the given ids.
+     * <p>
+     * The tickets are read with their project and assignee in a single query, and their labels in another one.
+     *
+     * @param ids the comma separated ids of the tickets, at most {@code application.multi-get.max-size} distinct ones.
+     * @return the list of tickets in body, in the order of the given ids, the unknown ids being left out.
+     */
+    @GetMapping(value = "/tickets", params = "ids")
+    public Mono<List<Ticket>> getTicketsByIds(@RequestParam List<Long> ids) {
+        log.debug("REST request to get Tickets : {}", ids);
+        Set<Long> distinctIds = ids.stream().filter(Objects::nonNull).collect(Collectors.toCollection(LinkedHashSet::new));
+        if (distinctIds.size() > multiGetMaxSize) {
+            throw new BadRequestAlertException("At most " + multiGetMaxSize + " tickets can be read at once", ENTITY_NAME, "toomanyids");
+        }
+        return ticketRepository
+            .findAllWithEagerRelationshipsByIdIn(distinctIds)
+            .collectMap(Ticket::getId)
+            .map(ticketsById -> distinctIds.stream().map(ticketsById::get).filter(Objects::nonNull).collect(Collectors.toList()));
+    }
+
+    /**
+     * {@code GET  /projects/:id/tickets} : get a page of the tickets of the "id" project.
+     *
+     * @param id the id of the project.
+     * @param after the id of the last ticket of the previous page, to get the next one without counting the tickets.
+     * @param pageable the pagination information.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of tickets in body.
+     */
+    @GetMapping("/projects/{id}/tickets")
+    public Mono<ResponseEntity<List<Ticket>>> getProjectTickets(
+        @PathVariable Long id,
+        @RequestParam(required = false) Long after,
+        Pageable pageable,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to get a page of the Tickets of Project : {}", id);
+        return getTicketPage(
+            (afterId, page) -> ticketRepository.findPageByProject(id, afterId, page),
+            ticketRepository.countByProject(id),
+            after,
+            pageable,
+            request
+        );
+    }
+
+    /**
+     * {@code GET  /projects/:id/tickets} : get all the tickets of the "id" project as a stream.
+     *
+     * @param id the id of the project.
+     * @return the {@link Flux} of tickets.
+     */
+    @GetMapping(
+        value = "/projects/{id}/tickets",
+        produces = { MediaType.APPLICATION_NDJSON_VALUE, Constants.APPLICATION_SMILE_STREAM_VALUE }
+    )
+    public Flux<Ticket> getProjectTicketsAsStream(@PathVariable Long id) {
+        log.debug("REST request to get all the Tickets of Project as a stream : {}", id);
+        return streamTickets((afterId, page) -> ticketRepository.findPageByProject(id, afterId, page));
+    }
+
+    /**
+     * {@code GET  /labels/:id/tickets} : get a page of the tickets with the "id" label.
+     *
+     * @param id the id of the label.
+     * @param after the id of the last ticket of the previous page, to get the next one without counting the tickets.
+     * @param pageable the pagination information.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of tickets in body.
+     */
+    @GetMapping("/labels/{id}/tickets")
+    public Mono<ResponseEntity<List<Ticket>>> getLabelTickets(
+        @PathVariable Long id,
+        @RequestParam(required = false) Long after,
+        Pageable pageable,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to get a page of the Tickets of Label : {}", id);
+        return getTicketPage(
+            (afterId, page) -> ticketRepository.findPageByLabel(id, afterId, page),
+            ticketRepository.countByLabel(id),
+            after,
+            pageable,
+            request
+        );
+    }
+
+    /**
+     * {@code GET  /labels/:id/tickets} : get all the tickets with the "id" label as a stream.
+     *
+     * @param id the id of the label.
+     * @return the {@link Flux} of tickets.
+     */
+    @GetMapping(value = "/labels/{id}/tickets", produces = { MediaType.APPLICATION_NDJSON_VALUE, Constants.APPLICATION_SMILE_STREAM_VALUE })
+    public Flux<Ticket> getLabelTicketsAsStream(@PathVariable Long id) {
+        log.debug("REST request to get all the Tickets of Label as a stream : {}", id);
+        return streamTickets((afterId, page) -> ticketRepository.findPageByLabel(id, afterId, page));
+    }
+
+    /**
+     * {@code GET  /users/:id/tickets} : get a page of the tickets assigned to the "id" user.
+     *
+     * @param id the id of the user.
+     * @param after the id of the last ticket of the previous page, to get the next one without counting the tickets.
+     * @param pageable the pagination information.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of tickets in body.
+     */
+    @GetMapping("/users/{id}/tickets")
+    public Mono<ResponseEntity<List<Ticket>>> getAssignedTickets(
+        @PathVariable Long id,
+        @RequestParam(required = false) Long after,
+        Pageable pageable,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to get a page of the Tickets assigned to User : {}", id);
+        return getTicketPage(
+            (afterId, page) -> ticketRepository.findPageByAssignedTo(id, afterId, page),
+            ticketRepository.countByAssignedTo(id),
+            after,
+            pageable,
+            request
+        );
+    }
+
+    /**
+     * {@code GET  /users/:id/tickets} : get all the tickets assigned to the "id" user as a stream.
+     *
+     * @param id the id of the user.
+     * @return the {@link Flux} of tickets.
+     */
+    @GetMapping(value = "/users/{id}/tickets", produces = { MediaType.APPLICATION_NDJSON_VALUE, Constants.APPLICATION_SMILE_STREAM_VALUE })
+    public Flux<Ticket> getAssignedTicketsAsStream(@PathVariable Long id) {
+        log.debug("REST request to get all the Tickets assigned to User as a stream : {}", id);
+        return streamTickets((afterId, page) -> ticketRepository.findPageByAssignedTo(id, afterId, page));
+    }
+
+    /**
+     * {@code GET  /tickets/changes} : get a page of the tickets modified or deleted after a sync version, to sync a copy
+     * of them.
+     * <p>
+     * Each change has a sync version, taken in the order the changes are committed, so a change committed late is not
+     * missed. The changes are sorted by sync version and ticket id, and each page links to the next one, which starts
+     * after its last change. A client keeps the sync version and ticket id of the last change it got, and asks for the
+     * changes after them on its next sync. A client with no copy yet starts from version {@code 0}.
+     * <p>
+     * The tombstones of the deleted tickets are kept for {@code application.ticket-sync.tombstone-retention-days}, 30
+     * days by default: this is the maximum age of a sync. A client which last synced longer ago gets a {@code 410 (Gone)}
+     * and must drop its copy and sync again from version {@code 0}.
+     *
+     * @param since the sync version the changes are made after.
+     * @param after the id of the ticket the changes of the {@code since} version come after.
+     * @param pageable the size of the page.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of the changes in body, the deleted
+     * tickets being left as tombstones, or with status {@code 410 (Gone)} if some deletions after the {@code since}
+     * version have been purged.
+     */
+    @GetMapping("/tickets/changes")
+    public Mono<ResponseEntity<List<TicketSyncDTO>>> getTicketChanges(
+        @RequestParam(defaultValue = "0") long since,
+        @RequestParam(required = false) Long after,
+        Pageable pageable,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to get a page of the Ticket changes since {}, after {}", since, after);
+        // the purged version is read after the changes, so a purge running meanwhile is noticed
+        return ticketRepository
+            .findChangesSince(since, after, pageable.getPageSize())
+            .collectList()
+            .zipWith(ticketRepository.findPurgedSyncVersion())
+            .map(changesWithPurgedVersion -> {
+                if (since > 0 && since < changesWithPurgedVersion.getT2()) {
+                    throw new ResponseStatusException(HttpStatus.GONE, "The tickets must be synced again from version 0");
+                }
+                List<TicketSyncDTO> changes = changesWithPurgedVersion.getT1();
+                HttpHeaders headers = new HttpHeaders();
+                if (changes.size() == pageable.getPageSize()) {
+                    TicketSyncDTO last = changes.get(changes.size() - 1);
+                    String next = UriComponentsBuilder
+                        .fromHttpRequest(request)
+                        .replaceQueryParam("page")
+                        .replaceQueryParam("since", last.getSyncVersion())
+                        .replaceQueryParam("after", last.getTicketId())
+                        .toUriString();
+                    headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+                }
+                return ResponseEntity.ok().headers(headers).body(changes);
             });
     }
 
+    /**
+     * Gets a page of tickets, sorted by id. The page after a given ticket is read from an index and only links to the
+     * next one, while a page at an offset also gets the total count of the tickets.
+     */
+    private Mono<ResponseEntity<List<Ticket>>> getTicketPage(
+        BiFunction<Long, Pageable, Flux<Ticket>> pageFinder,
+        Mono<Long> count,
+        Long after,
+        Pageable pageable,
+        ServerHttpRequest request
+    ) {
+        Mono<List<Ticket>> tickets = pageFinder.apply(after, pageable).collectList();
+        if (after == null) {
+            return count
+                .zipWith(tickets)
+                .map(countWithEntities ->
+                    ResponseEntity
+                        .ok()
+                        .headers(
+                            PaginationUtil.generatePaginationHttpHeaders(
+                                UriComponentsBuilder.fromHttpRequest(request),
+                                new PageImpl<>(countWithEntities.getT2(), pageable, countWithEntities.getT1())
+                            )
+                        )
+                        .body(countWithEntities.getT2())
+                );
+        }
+        return tickets.map(page -> {
+            HttpHeaders headers = new HttpHeaders();
+            if (page.size() == pageable.getPageSize()) {
+                String next = UriComponentsBuilder
+                    .fromHttpRequest(request)
+                    .replaceQueryParam("page")
+                    .replaceQueryParam("after", page.get(page.size() - 1).getId())
+                    .toUriString();
+                headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+            }
+            return ResponseEntity.ok().headers(headers).body(page);
+        });
+    }
+
+    /**
+     * Streams all the tickets, read in pages which each start after the last ticket of the previous one.
+     */
+    private Flux<Ticket> streamTickets(BiFunction<Long, Pageable, Flux<Ticket>> pageFinder) {
+        Pageable batch = PageRequest.of(0, STREAM_BATCH_SIZE);
+        return pageFinder
+            .apply(null, batch)
+            .collectList()
+            .expand(tickets ->
+                tickets.size() < STREAM_BATCH_SIZE
+                    ? Mono.empty()
+                    : pageFinder.apply(tickets.get(tickets.size() - 1).getId(), batch).collectList()
+            )
+            .flatMapIterable(tickets -> tickets);
+    }
+
     /**
      * {@code GET  /tickets/:id} : get the "id" ticket.
+     * <p>
+     * If the {@code If-None-Match} header matches the current version of the ticket, only the version is read
+     * from the database and the ticket isn't sent again.
      *
      * @param id the id of the ticket to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the ticket, or with status {@code 404 (Not Found)}.
+     * @param ifNoneMatch the {@code If-None-Match} header, holding the entity tags of the ticket versions the client has cached.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the ticket,
+     * or with status {@code 304 (Not Modified)} if the ticket hasn't changed, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/tickets/{id}")
-    public Mono<ResponseEntity<Ticket>> getTicket(@PathVariable Long id) {
+    public Mono<ResponseEntity<Ticket>> getTicket(
+        @PathVariable Long id,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
         log.debug("REST request to get Ticket : {}", id);
-        Mono<Ticket> ticket = ticketRepository.findOneWithEagerRelationships(id);
-        return ResponseUtil.wrapOrNotFound(ticket);
+        Mono<ResponseEntity<Ticket>> ticket = ticketRepository
+            .findOneWithEagerRelationships(id)
+            .map(result ->
+                ResponseEntity.ok().eTag(ETagUtil.fromVersion(result.getVersion())).cacheControl(ETagUtil.CACHE_CONTROL).body(result)
+            )
+            .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)));
+        if (ifNoneMatch == null) {
+            return ticket;
+        }
+        return ticketRepository
+            .findVersionById(id)
+            .filter(version -> ETagUtil.matches(ifNoneMatch, version))
+            .map(version ->
+                ResponseEntity
+                    .status(HttpStatus.NOT_MODIFIED)
+                    .eTag(ETagUtil.fromVersion(version))
+                    .cacheControl(ETagUtil.CACHE_CONTROL)
+                    .<Ticket>build()
+            )
+            .switchIfEmpty(ticket);
     }
 
     /**
@@ -232,6 +680,7 @@ public class TicketResource {
      * @param id the id of the ticket to delete.
      * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}.
      */
+    @Transactional
     @DeleteMapping("/tickets/{id}")
     @ResponseStatus(code = HttpStatus.NO_CONTENT)
     public Mono<ResponseEntity<Void>> deleteTicket(@PathVariable Long id) {
@@ -1,5 +1,6 @@
 package com.mycompany.bugtracker.web.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mycompany.bugtracker.config.Constants;
 import com.mycompany.bugtracker.domain.User;
 import com.mycompany.bugtracker.repository.UserRepository;
@@ -7,16 +8,20 @@ import com.mycompany.bugtracker.security.AuthoritiesConstants;
 import com.mycompany.bugtracker.service.MailService;
 import com.mycompany.bugtracker.service.UserService;
 import com.mycompany.bugtracker.service.dto.AdminUserDTO;
+import com.mycompany.bugtracker.service.dto.UserProvisioningResultDTO;
 import com.mycompany.bugtracker.web.rest.errors.BadRequestAlertException;
 import com.mycompany.bugtracker.web.rest.errors.EmailAlreadyUsedException;
 import com.mycompany.bugtracker.web.rest.errors.LoginAlreadyUsedException;
+import com.mycompany.bugtracker.web.util.FieldsUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import javax.validation.Valid;
+import javax.validation.Validator;
 import javax.validation.constraints.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,6 +30,7 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -91,10 +97,22 @@ public class UserResource {
 
     private final MailService mailService;
 
-    public UserResource(UserService userService, UserRepository userRepository, MailService mailService) {
+    private final ObjectMapper objectMapper;
+
+    private final Validator validator;
+
+    public UserResource(
+        UserService userService,
+        UserRepository userRepository,
+        MailService mailService,
+        ObjectMapper objectMapper,
+        Validator validator
+    ) {
         this.userService = userService;
         this.userRepository = userRepository;
         this.mailService = mailService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
     }
 
     /**
@@ -133,7 +151,7 @@ public class UserResource {
                 }
                 return userService.createUser(userDTO);
             })
-            .doOnSuccess(mailService::sendCreationEmail)
+            .flatMap(user -> mailService.sendCreationEmail(user).thenReturn(user))
             .map(user -> {
                 try {
                     return ResponseEntity
@@ -146,6 +164,38 @@ public class UserResource {
             });
     }
 
+    /**
+     * {@code POST  /admin/users/bulk}  : Creates new users in bulk.
+     * <p>
+     * The users are streamed in, as a JSON array or as newline delimited JSON, and are created in batches. Like for
+     * a single user, they are activated and sent a creation mail. Each user is validated before its batch is created:
+     * an invalid user stops the creation, the users of the previous batches being created.
+     *
+     * @param userDTOs the users to create.
+     * @return the outcome for each user, streamed as newline delimited JSON: created, or not created because the login
+     * or email is already in use.
+     * @throws BadRequestAlertException {@code 400 (Bad Request)} if a user already has an ID, or is not valid.
+     */
+    @PostMapping(
+        value = "/users/bulk",
+        consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE },
+        produces = MediaType.APPLICATION_NDJSON_VALUE
+    )
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public Flux<UserProvisioningResultDTO> createUsers(@Valid @RequestBody Flux<AdminUserDTO> userDTOs) {
+        log.debug("REST request to save Users in bulk");
+        return userService.createUsers(
+            userDTOs.doOnNext(userDTO -> {
+                if (userDTO.getId() != null) {
+                    throw new BadRequestAlertException("A new user cannot already have an ID", "userManagement", "idexists");
+                }
+                if (!validator.validate(userDTO).isEmpty()) {
+                    throw new BadRequestAlertException("Invalid user " + userDTO.getLogin(), "userManagement", "invalid");
+                }
+            })
+        );
+    }
+
     /**
      * {@code PUT /admin/users} : Updates an existing User.
      *
@@ -207,6 +257,50 @@ public class UserResource {
             .map(headers -> ResponseEntity.ok().headers(headers).body(userService.getAllManagedUsers(pageable)));
     }
 
+    /**
+     * {@code GET /admin/users?fields=:fields} : get all users with only the given fields - only allowed for the administrators.
+     * <p>
+     * Only the columns of the fields are read, and the authorities only if they are among the fields. The id is always returned.
+     *
+     * @param fields the comma separated list of fields, among {@link UserRepository#SPARSE_FIELDS}.
+     * @param request a {@link ServerHttpRequest} request.
+     * @param pageable the pagination information.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the users.
+     */
+    @GetMapping(value = "/users", params = "fields")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public Mono<ResponseEntity<List<FieldsUtil.Narrowed>>> getAllUsersWithFields(
+        @RequestParam String fields,
+        ServerHttpRequest request,
+        Pageable pageable
+    ) {
+        log.debug("REST request to get all User for an admin with fields : {}", fields);
+        if (!onlyContainsAllowedProperties(pageable)) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        Set<String> selected = FieldsUtil.parse(fields, UserRepository.SPARSE_FIELDS, "userManagement");
+        return userService
+            .countManagedUsers()
+            .zipWith(
+                userService
+                    .getAllManagedUsers(pageable, selected)
+                    .map(user -> FieldsUtil.narrow(objectMapper, user, selected))
+                    .collectList()
+            )
+            .onErrorMap(IllegalArgumentException.class, e -> new BadRequestAlertException(e.getMessage(), "userManagement", "sortunknown"))
+            .map(countWithUsers ->
+                ResponseEntity
+                    .ok()
+                    .headers(
+                        PaginationUtil.generatePaginationHttpHeaders(
+                            UriComponentsBuilder.fromHttpRequest(request),
+                            new PageImpl<>(countWithUsers.getT2(), pageable, countWithUsers.getT1())
+                        )
+                    )
+                    .body(countWithUsers.getT2())
+            );
+    }
+
     private boolean onlyContainsAllowedProperties(Pageable pageable) {
         return pageable.getSort().stream().map(Sort.Order::getProperty).allMatch(ALLOWED_ORDERED_PROPERTIES::contains);
     }
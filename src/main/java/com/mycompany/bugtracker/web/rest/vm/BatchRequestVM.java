@@ -0,0 +1,48 @@
+package com.mycompany.bugtracker.web.rest.vm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * View Model object for one of the requests of a batch.
+ */
+public class BatchRequestVM {
+
+    private String method;
+
+    private String url;
+
+    private JsonNode body;
+
+    public String getMethod() {
+        return method;
+    }
+
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public JsonNode getBody() {
+        return body;
+    }
+
+    public void setBody(JsonNode body) {
+        this.body = body;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "BatchRequestVM{" +
+            "method='" + method + '\'' +
+            ", url='" + url + '\'' +
+            '}';
+    }
+}
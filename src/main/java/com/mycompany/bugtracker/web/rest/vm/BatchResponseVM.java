@@ -0,0 +1,53 @@
+package com.mycompany.bugtracker.web.rest.vm;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * View Model object for the response to one of the requests of a batch.
+ */
+public class BatchResponseVM {
+
+    private int status;
+
+    private Map<String, List<String>> headers;
+
+    /**
+     * The JSON body of the response, written as it is.
+     */
+    @JsonRawValue
+    private String body;
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+
+    public void setHeaders(Map<String, List<String>> headers) {
+        this.headers = headers;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public void setBody(String body) {
+        this.body = body;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "BatchResponseVM{" +
+            "status=" + status +
+            '}';
+    }
+}
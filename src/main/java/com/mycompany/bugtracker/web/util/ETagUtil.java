@@ -0,0 +1,174 @@
+package com.mycompany.bugtracker.web.util;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Optional;
+import java.util.function.Supplier;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Mono;
+
+/**
+ * Utility class for building and matching HTTP entity tags.
+ */
+public final class ETagUtil {
+
+    /**
+     * The cache control of the tagged responses: they may be stored by the browser, but not by shared caches, and are
+     * always revalidated. The untagged responses keep the default headers of Spring Security, which forbid storing them.
+     */
+    public static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+    private static final String WEAK_PREFIX = "W/";
+
+    private ETagUtil() {}
+
+    /**
+     * Creates a strong entity tag from an entity version.
+     *
+     * @param version the version of the entity.
+     * @return the quoted entity tag.
+     */
+    public static String fromVersion(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Creates a weak entity tag from a fingerprint of a representation, such as the last modification date of the
+     * entities of a list and the request of the list. The tag changes whenever one of the parts does.
+     *
+     * @param parts the parts of the fingerprint, {@code null} ones included.
+     * @return the quoted weak entity tag.
+     */
+    public static String weakFromFingerprint(Object... parts) {
+        StringBuilder fingerprint = new StringBuilder();
+        for (Object part : parts) {
+            fingerprint.append(part).append('\n');
+        }
+        return weakFromContent(ByteBuffer.wrap(fingerprint.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Creates a weak entity tag from the content of a representation.
+     *
+     * @param content the content, which is read without moving its position.
+     * @return the quoted weak entity tag.
+     */
+    public static String weakFromContent(ByteBuffer content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            digest.update(content.duplicate());
+            return WEAK_PREFIX + "\"" + String.format("%032x", new BigInteger(1, digest.digest())) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Extracts the entity version from an {@code If-Match} or {@code If-None-Match} header value.
+     *
+     * @param headerValue the header value, which holds a single entity tag.
+     * @return the version, or an empty {@link Optional} if the header doesn't hold a version tag.
+     */
+    public static Optional<Long> parseVersion(String headerValue) {
+        if (!StringUtils.hasText(headerValue)) {
+            return Optional.empty();
+        }
+        String tag = headerValue.trim();
+        if (tag.startsWith(WEAK_PREFIX)) {
+            tag = tag.substring(WEAK_PREFIX.length());
+        }
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Optional.of(Long.parseLong(tag));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Checks if an {@code If-None-Match} header value matches the given entity version.
+     *
+     * @param headerValue the header value, which can hold a comma separated list of entity tags or {@code *}.
+     * @param version the current version of the entity.
+     * @return {@code true} if one of the entity tags matches.
+     */
+    public static boolean matches(String headerValue, long version) {
+        if (!StringUtils.hasText(headerValue)) {
+            return false;
+        }
+        for (String tag : headerValue.split(",")) {
+            if ("*".equals(tag.trim()) || parseVersion(tag).filter(v -> v == version).isPresent()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if an {@code If-None-Match} header value matches the given entity tag, comparing the tags weakly.
+     *
+     * @param headerValue the header value, which can hold a comma separated list of entity tags or {@code *}.
+     * @param eTag the quoted entity tag of the current representation.
+     * @return {@code true} if one of the entity tags matches.
+     */
+    public static boolean matches(String headerValue, String eTag) {
+        if (!StringUtils.hasText(headerValue)) {
+            return false;
+        }
+        String opaqueTag = stripWeakPrefix(eTag);
+        for (String tag : headerValue.split(",")) {
+            if ("*".equals(tag.trim()) || stripWeakPrefix(tag.trim()).equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Answers a conditional {@code GET} from an entity tag which is cheaper to get than the response: the response is
+     * only built if the {@code If-None-Match} header doesn't match the tag, and is then tagged with it.
+     * <p>
+     * The tag is got before the response, so a change in between tags the response as older than it is, and is only
+     * sent again on the next request. A request without {@code If-None-Match} header always gets the response, tagged,
+     * so that the client can send the tag back on the next request.
+     *
+     * @param ifNoneMatch the {@code If-None-Match} header, or {@code null}.
+     * @param eTag the entity tag of the current representation.
+     * @param response the supplier of the response, called only if it has to be sent.
+     * @param <T> the type of the body of the response.
+     * @return the response with status {@code 304 (Not Modified)} and no body if the tag matches, or else the tagged response.
+     */
+    public static <T> Mono<ResponseEntity<T>> ifNoneMatch(
+        String ifNoneMatch,
+        Mono<String> eTag,
+        Supplier<Mono<ResponseEntity<T>>> response
+    ) {
+        return eTag.flatMap(tag -> {
+            if (ifNoneMatch != null && matches(ifNoneMatch, tag)) {
+                return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag).cacheControl(CACHE_CONTROL).<T>build());
+            }
+            return response
+                .get()
+                .map(entity -> {
+                    HttpHeaders headers = new HttpHeaders();
+                    headers.addAll(entity.getHeaders());
+                    headers.setETag(tag);
+                    headers.setCacheControl(CACHE_CONTROL);
+                    return new ResponseEntity<>(entity.getBody(), headers, entity.getStatusCode());
+                });
+        });
+    }
+
+    private static String stripWeakPrefix(String tag) {
+        return tag.startsWith(WEAK_PREFIX) ? tag.substring(WEAK_PREFIX.length()) : tag;
+    }
+}
@@ -0,0 +1,119 @@
+package com.mycompany.bugtracker.web.util;
+
+import static com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter.filterOutAllExcept;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.mycompany.bugtracker.web.rest.errors.BadRequestAlertException;
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.util.StringUtils;
+
+/**
+ * Utility class for the {@code fields} parameter, which selects the fields of the entities to return.
+ * <p>
+ * The other fields are left out while the entities are serialized, by a property filter: no intermediate JSON tree is
+ * built. The writers of the filters are cached per mapper, entity type and set of fields.
+ */
+public final class FieldsUtil {
+
+    private static final String ID = "id";
+
+    private static final String FILTER_ID = "fields";
+
+    private static final Map<List<Object>, ObjectMapper> FILTERED_MAPPERS = new ConcurrentHashMap<>();
+
+    private static final Map<List<Object>, ObjectWriter> WRITERS = new ConcurrentHashMap<>();
+
+    private FieldsUtil() {}
+
+    /**
+     * Parses a comma separated list of fields. The id is always among the parsed fields.
+     *
+     * @param fields the comma separated list of fields.
+     * @param sparseFields the fields which can be selected.
+     * @param entityName the name of the entity, for the error.
+     * @return the fields, in the given order.
+     * @throws BadRequestAlertException if one of the fields cannot be selected.
+     */
+    public static Set<String> parse(String fields, Set<String> sparseFields, String entityName) {
+        Set<String> parsed = new LinkedHashSet<>();
+        parsed.add(ID);
+        for (String field : StringUtils.commaDelimitedListToStringArray(fields)) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!sparseFields.contains(name)) {
+                throw new BadRequestAlertException("Unknown field " + name, entityName, "fieldunknown");
+            }
+            parsed.add(name);
+        }
+        return parsed;
+    }
+
+    /**
+     * Wraps an entity, to serialize only some of its fields.
+     *
+     * @param objectMapper the mapper to serialize the entity with.
+     * @param entity the entity.
+     * @param fields the fields to keep, among the parsed ones.
+     * @return the entity, serialized with only the given fields.
+     */
+    public static Narrowed narrow(ObjectMapper objectMapper, Object entity, Set<String> fields) {
+        return new Narrowed(entity, writer(objectMapper, entity.getClass(), fields));
+    }
+
+    private static ObjectWriter writer(ObjectMapper objectMapper, Class<?> type, Set<String> fields) {
+        Set<String> kept = Set.copyOf(fields);
+        return WRITERS.computeIfAbsent(
+            List.of(objectMapper, type, kept),
+            key -> filteredMapper(objectMapper, type).writer(new SimpleFilterProvider().addFilter(FILTER_ID, filterOutAllExcept(kept)))
+        );
+    }
+
+    private static ObjectMapper filteredMapper(ObjectMapper objectMapper, Class<?> type) {
+        return FILTERED_MAPPERS.computeIfAbsent(List.of(objectMapper, type), key -> objectMapper.copy().addMixIn(type, FieldsFilter.class));
+    }
+
+    /**
+     * Applies the filter of the fields to an entity type, in a copy of the mapper only.
+     */
+    @JsonFilter(FILTER_ID)
+    private interface FieldsFilter {}
+
+    /**
+     * An entity which is serialized with only some of its fields.
+     */
+    public static final class Narrowed extends JsonSerializable.Base {
+
+        private final Object entity;
+
+        private final ObjectWriter writer;
+
+        private Narrowed(Object entity, ObjectWriter writer) {
+            this.entity = entity;
+            this.writer = writer;
+        }
+
+        @Override
+        public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            writer.writeValue(gen, entity);
+        }
+
+        @Override
+        public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer) throws IOException {
+            serialize(gen, serializers);
+        }
+    }
+}
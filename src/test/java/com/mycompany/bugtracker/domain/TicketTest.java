@@ -1,8 +1,14 @@
 package com.mycompany.bugtracker.domain;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.mycompany.bugtracker.web.rest.TestUtil;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 
 class TicketTest {
@@ -20,4 +26,70 @@ class TicketTest {
         ticket1.setId(null);
         assertThat(ticket1).isNotEqualTo(ticket2);
     }
+
+    @Test
+    void labelsShouldBeKeyedById() {
+        Label label1 = new Label().id(1L);
+        Ticket ticket = new Ticket().addLabel(label1).addLabel(new Label().id(1L)).addLabel(new Label().id(2L));
+        assertThat(ticket.getLabels()).hasSize(2).contains(label1);
+        assertThat(ticket.getLabelIds().toArray()).containsExactlyInAnyOrder(1L, 2L);
+
+        ticket.removeLabel(new Label().id(1L));
+        assertThat(ticket.getLabelIds().toArray()).containsExactly(2L);
+
+        assertThatThrownBy(() -> ticket.addLabel(new Label())).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void sharedLabelsShouldNotBeModified() {
+        Label label = new Label().id(1L);
+        Ticket ticket = new Ticket().id(1L).addLabel(label);
+        assertThat(ticket.getLabels()).containsExactly(label);
+        assertThat(label.getTickets()).isEmpty();
+
+        ticket.removeLabel(label);
+        assertThat(ticket.getLabels()).isEmpty();
+    }
+
+    @Test
+    void labelsShouldBeRemovedWithoutIterator() {
+        Label first = new Label().id(1L);
+        Label second = new Label().id(2L);
+        Label third = new Label().id(3L);
+        Ticket ticket = new Ticket().id(1L).addLabel(first).addLabel(second).addLabel(third);
+
+        ticket.getLabels().removeIf(label -> label.getId() == 2L);
+        assertThat(ticket.getLabelIds().toArray()).containsExactlyInAnyOrder(1L, 3L);
+
+        ticket.getLabels().retainAll(Set.of(third));
+        assertThat(ticket.getLabels()).containsExactly(third);
+    }
+
+    @Test
+    void labelsWithoutIdShouldMakeTicketInvalid() {
+        Ticket ticket = new Ticket().labels(Set.of(new Label().id(1L), new Label()));
+        assertThat(ticket.isLabelsSaved()).isFalse();
+        assertThat(ticket.getLabelIds().toArray()).containsExactly(1L);
+
+        ticket.setLabels(Set.of(new Label().id(1L)));
+        assertThat(ticket.isLabelsSaved()).isTrue();
+    }
+
+    @Test
+    void ticketShouldBeSerializable() throws Exception {
+        Ticket ticket = new Ticket().id(1L).addLabel(new Label().id(1L)).addLabel(new Label().id(2L));
+        ticket.setPersistedLabelIds(ticket.getLabelIds());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(ticket);
+        }
+        Ticket copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (Ticket) in.readObject();
+        }
+        assertThat(copy).isEqualTo(ticket);
+        assertThat(copy.getLabelIds().toArray()).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(copy.getPersistedLabelIds()).isNull();
+    }
 }
@@ -0,0 +1,132 @@
+package com.mycompany.bugtracker.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import com.mycompany.bugtracker.IntegrationTest;
+import com.tngtech.archunit.core.domain.JavaClass;
+import com.tngtech.archunit.core.domain.JavaClasses;
+import com.tngtech.archunit.core.importer.ClassFileImporter;
+import com.tngtech.archunit.core.importer.ImportOption;
+import io.r2dbc.spi.ConnectionFactory;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.reactive.ReactiveSortingRepository;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * Checks that the derived and {@link Query} methods of the repositories are supported by an index, from the plans of
+ * their statements on H2.
+ * <p>
+ * The statements of the {@link Query} methods are taken from their annotation, with their parameters replaced by a
+ * constant. The statements of the derived methods are written here, and a new derived method fails the check until
+ * its statement, or the reason it may scan its table, is added.
+ */
+@IntegrationTest
+class RepositoryIndexIT {
+
+    private static final String TIMESTAMP = "TIMESTAMP '2000-01-01 00:00:00'";
+
+    private static final Map<String, String> DERIVED_QUERIES = Map.of(
+        "UserRepository.findOneByActivationKey",
+        "SELECT * FROM jhi_user WHERE activation_key = 'key'",
+        "UserRepository.findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore",
+        "SELECT * FROM jhi_user WHERE activated = FALSE AND activation_key IS NOT NULL AND created_date < " + TIMESTAMP,
+        "UserRepository.findOneByResetKey",
+        "SELECT * FROM jhi_user WHERE reset_key = 'key'",
+        "UserRepository.findOneByLogin",
+        "SELECT * FROM jhi_user WHERE login = 'login'",
+        "UserRepository.findAllByLoginInAndActivatedIsTrue",
+        "SELECT * FROM jhi_user WHERE login IN ('login', 'other') AND activated = TRUE"
+    );
+
+    private static final Map<String, String> TABLE_SCANS = Map.of(
+        "UserRepository.findAllByIdNotNull",
+        "pages through all the users",
+        "UserRepository.findAllByIdNotNullAndActivatedIsTrue",
+        "pages through almost all the users",
+        "UserRepository.saveUserAuthority",
+        "inserts a row",
+        "UserRepository.deleteAllUserAuthorities",
+        "deletes all the rows",
+        "MailMessageRepository.countByNextAttemptDateNotNull",
+        "counts the whole queue, which only holds the undelivered mails"
+    );
+
+    @Autowired
+    private DatabaseClient db;
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Test
+    void repositoryQueriesShouldUseAnIndex() {
+        assumeTrue("H2".equals(connectionFactory.getMetadata().getName()), "The plans are only checked on H2");
+
+        Map<String, String> statements = new TreeMap<>();
+        for (Class<?> repository : findRepositories()) {
+            for (Method method : repository.getDeclaredMethods()) {
+                if (method.isDefault() || isImplemented(repository, method)) {
+                    continue;
+                }
+                String name = repository.getSimpleName() + "." + method.getName();
+                Query query = method.getAnnotation(Query.class);
+                if (query != null) {
+                    statements.put(name, query.value().replaceAll(":\\w+", "1"));
+                } else {
+                    statements.put(name, DERIVED_QUERIES.get(name));
+                }
+            }
+        }
+
+        statements.keySet().removeAll(TABLE_SCANS.keySet());
+        assertThat(statements).as("derived methods without a statement to check").doesNotContainValue(null);
+        statements.forEach((name, statement) ->
+            assertThat(explain(statement)).as("plan of %s", name).doesNotContainIgnoringCase("tableScan")
+        );
+    }
+
+    private String explain(String statement) {
+        return db.sql("EXPLAIN " + statement).map(row -> row.get(0, String.class)).first().block();
+    }
+
+    private static List<Class<?>> findRepositories() {
+        JavaClasses importedClasses = new ClassFileImporter()
+            .withImportOption(ImportOption.Predefined.DO_NOT_INCLUDE_TESTS)
+            .importPackages("com.mycompany.bugtracker.repository");
+        List<Class<?>> repositories = new ArrayList<>();
+        for (JavaClass javaClass : importedClasses) {
+            if (javaClass.isInterface() && javaClass.isAssignableTo(Repository.class)) {
+                repositories.add(javaClass.reflect());
+            }
+        }
+        return repositories;
+    }
+
+    /**
+     * Whether a method is implemented by a repository fragment, or by the base repository.
+     */
+    private static boolean isImplemented(Class<?> repository, Method method) {
+        for (Class<?> fragment : repository.getInterfaces()) {
+            if (fragment.getPackageName().equals(repository.getPackageName())) {
+                try {
+                    fragment.getMethod(method.getName(), method.getParameterTypes());
+                    return true;
+                } catch (NoSuchMethodException e) {
+                    // not implemented by this fragment
+                }
+            }
+        }
+        return Arrays
+            .stream(ReactiveSortingRepository.class.getMethods())
+            .anyMatch(base -> base.getName().equals(method.getName()) && base.getParameterCount() == method.getParameterCount());
+    }
+}
@@ -0,0 +1,96 @@
+package com.mycompany.bugtracker.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.mycompany.bugtracker.IntegrationTest;
+import com.mycompany.bugtracker.domain.Ticket;
+import com.mycompany.bugtracker.service.EntityManager;
+import com.mycompany.bugtracker.web.rest.TicketResourceIT;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Integration tests of the writes of the {@link TicketRepository}.
+ */
+@IntegrationTest
+class TicketRepositoryIT {
+
+    private static final int ROUNDS = 20;
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private TransactionalOperator transactionalOperator;
+
+    @Autowired
+    private DatabaseClient db;
+
+    @Autowired
+    private EntityManager em;
+
+    @BeforeEach
+    @AfterEach
+    public void cleanup() {
+        TicketResourceIT.deleteEntities(em);
+    }
+
+    @Test
+    void updateReturnsTheNumberOfUpdatedRows() {
+        Ticket ticket = ticketRepository.save(TicketResourceIT.createEntity(em)).block();
+        Long version = ticket.getVersion();
+
+        assertThat(ticketRepository.update(ticket.title("Updated")).block()).isEqualTo(1);
+        assertThat(ticket.getVersion()).isEqualTo(version + 1);
+        assertThat(ticketRepository.findVersionById(ticket.getId()).block()).isEqualTo(version + 1);
+
+        Ticket stale = TicketResourceIT.createEntity(em).id(ticket.getId()).version(version);
+        assertThatThrownBy(() -> ticketRepository.update(stale).block()).isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(ticketRepository.findById(ticket.getId()).block().getTitle()).isEqualTo("Updated");
+    }
+
+    @Test
+    void saveAndDeleteTheSameTicketConcurrently() {
+        for (int round = 0; round < ROUNDS; round++) {
+            Ticket ticket = ticketRepository.save(TicketResourceIT.createEntity(em)).block();
+            Long id = ticket.getId();
+
+            // the update loses if the ticket is deleted first, but none of them may fail otherwise
+            Mono<Boolean> update = ticketRepository
+                .save(ticket.title("Updated " + round))
+                .as(transactionalOperator::transactional)
+                .thenReturn(true)
+                .onErrorResume(OptimisticLockingFailureException.class, e -> Mono.just(false))
+                .onErrorResume(IllegalStateException.class, e -> Mono.just(false))
+                .subscribeOn(Schedulers.boundedElastic());
+            Mono<Boolean> delete = ticketRepository
+                .deleteById(id)
+                .as(transactionalOperator::transactional)
+                .thenReturn(true)
+                .subscribeOn(Schedulers.boundedElastic());
+            Mono.zip(update, delete).block(TIMEOUT);
+
+            assertThat(ticketRepository.findById(id).blockOptional()).isEmpty();
+            assertThat(
+                db
+                    .sql("SELECT COUNT(*) AS total FROM ticket_tombstone WHERE ticket_id = :id")
+                    .bind("id", id)
+                    .map(row -> row.get("total", Long.class))
+                    .one()
+                    .block()
+            )
+                .isEqualTo(1L);
+        }
+    }
+}
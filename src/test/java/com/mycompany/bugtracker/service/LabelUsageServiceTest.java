@@ -0,0 +1,52 @@
+package com.mycompany.bugtracker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.mycompany.bugtracker.domain.Label;
+import com.mycompany.bugtracker.repository.LabelRepository;
+import com.mycompany.bugtracker.service.dto.LabelUsageDTO;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+/**
+ * Unit tests for {@link LabelUsageService}.
+ */
+class LabelUsageServiceTest {
+
+    private LabelRepository labelRepository;
+
+    private LabelUsageService labelUsageService;
+
+    @BeforeEach
+    public void init() {
+        labelRepository = mock(LabelRepository.class);
+        labelUsageService = new LabelUsageService(labelRepository);
+    }
+
+    @Test
+    void testTopUsagesAreTheMostUsedLabels() {
+        when(labelRepository.findAllUsages())
+            .thenReturn(Flux.just(usage(1L, 3), usage(2L, 10), usage(3L, 0), usage(4L, 7), usage(5L, 10), usage(6L, 1)));
+
+        List<LabelUsageDTO> top = labelUsageService.getTopUsages(3).block();
+
+        assertThat(top).extracting(usage -> usage.getLabel().getId()).containsExactly(2L, 5L, 4L);
+    }
+
+    @Test
+    void testTopUsagesWithFewerLabelsThanTheLimit() {
+        when(labelRepository.findAllUsages()).thenReturn(Flux.just(usage(1L, 0), usage(2L, 4)));
+
+        List<LabelUsageDTO> top = labelUsageService.getTopUsages(10).block();
+
+        assertThat(top).extracting(usage -> usage.getLabel().getId()).containsExactly(2L, 1L);
+    }
+
+    private static LabelUsageDTO usage(Long labelId, long tickets) {
+        return new LabelUsageDTO(new Label().id(labelId), tickets);
+    }
+}
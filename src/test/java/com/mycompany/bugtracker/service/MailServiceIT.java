@@ -1,12 +1,15 @@
 package com.mycompany.bugtracker.service;
 
 import static org.assertj.core.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.*;
 
 import com.mycompany.bugtracker.IntegrationTest;
+import com.mycompany.bugtracker.config.ApplicationProperties;
 import com.mycompany.bugtracker.config.Constants;
+import com.mycompany.bugtracker.domain.MailMessage;
 import com.mycompany.bugtracker.domain.User;
+import com.mycompany.bugtracker.repository.MailMessageRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
@@ -14,6 +17,8 @@ import java.io.InputStreamReader;
 import java.net.URI;
 import java.net.URL;
 import java.nio.charset.Charset;
+import java.time.Instant;
+import java.util.List;
 import java.util.Properties;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -21,21 +26,18 @@ import javax.mail.Multipart;
 import javax.mail.internet.MimeBodyPart;
 import javax.mail.internet.MimeMessage;
 import javax.mail.internet.MimeMultipart;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.ArgumentCaptor;
-import org.mockito.Captor;
-import org.mockito.MockitoAnnotations;
-import org.mockito.Spy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.thymeleaf.ThymeleafProperties;
 import org.springframework.context.MessageSource;
-import org.springframework.mail.MailSendException;
-import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.data.domain.Sort;
 import org.thymeleaf.spring5.SpringTemplateEngine;
 import tech.jhipster.config.JHipsterProperties;
 
 /**
- * Integration tests for {@link MailService}.
+ * Integration tests for {@link MailService} and {@link MailQueueService}.
  */
 @IntegrationTest
 class MailServiceIT {
@@ -55,26 +57,49 @@ class MailServiceIT {
     @Autowired
     private SpringTemplateEngine templateEngine;
 
-    @Spy
-    private JavaMailSenderImpl javaMailSender;
+    @Autowired
+    private MailMessageRepository mailMessageRepository;
+
+    private StubJavaMailSender javaMailSender;
+
+    private ApplicationProperties applicationProperties;
 
-    @Captor
-    private ArgumentCaptor<MimeMessage> messageCaptor;
+    private MeterRegistry meterRegistry;
 
     private MailService mailService;
 
+    private MailQueueService mailQueueService;
+
     @BeforeEach
     public void setup() {
-        MockitoAnnotations.initMocks(this);
-        doNothing().when(javaMailSender).send(any(MimeMessage.class));
-        mailService = new MailService(jHipsterProperties, javaMailSender, messageSource, templateEngine);
+        javaMailSender = new StubJavaMailSender();
+        applicationProperties = new ApplicationProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        mailService =
+            new MailService(
+                mailMessageRepository,
+                new MailTemplateService(jHipsterProperties, messageSource, templateEngine, new ThymeleafProperties())
+            );
+        mailQueueService =
+            new MailQueueService(mailMessageRepository, javaMailSender, jHipsterProperties, applicationProperties, meterRegistry);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        mailMessageRepository.deleteAll().block();
+    }
+
+    private MimeMessage deliverSingleMessage() {
+        assertThat(mailQueueService.deliverReactively().block()).isEqualTo(1L);
+        List<MimeMessage> sentMessages = javaMailSender.getSentMessages();
+        assertThat(sentMessages).hasSize(1);
+        return sentMessages.get(0);
     }
 
     @Test
     void testSendEmail() throws Exception {
-        mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", false, false);
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
+        mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", false, false).block();
+        MimeMessage message = deliverSingleMessage();
         assertThat(message.getSubject()).isEqualTo("testSubject");
         assertThat(message.getAllRecipients()[0]).hasToString("john.doe@example.com");
         assertThat(message.getFrom()[0]).hasToString(jHipsterProperties.getMail().getFrom());
@@ -85,9 +110,8 @@ class MailServiceIT {
 
     @Test
     void testSendHtmlEmail() throws Exception {
-        mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", false, true);
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
+        mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", false, true).block();
+        MimeMessage message = deliverSingleMessage();
         assertThat(message.getSubject()).isEqualTo("testSubject");
         assertThat(message.getAllRecipients()[0]).hasToString("john.doe@example.com");
         assertThat(message.getFrom()[0]).hasToString(jHipsterProperties.getMail().getFrom());
@@ -98,9 +122,8 @@ class MailServiceIT {
 
     @Test
     void testSendMultipartEmail() throws Exception {
-        mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", true, false);
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
+        mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", true, false).block();
+        MimeMessage message = deliverSingleMessage();
         MimeMultipart mp = (MimeMultipart) message.getContent();
         MimeBodyPart part = (MimeBodyPart) ((MimeMultipart) mp.getBodyPart(0).getContent()).getBodyPart(0);
         ByteArrayOutputStream aos = new ByteArrayOutputStream();
@@ -115,9 +138,8 @@ class MailServiceIT {
 
     @Test
     void testSendMultipartHtmlEmail() throws Exception {
-        mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", true, true);
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
+        mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", true, true).block();
+        MimeMessage message = deliverSingleMessage();
         MimeMultipart mp = (MimeMultipart) message.getContent();
         MimeBodyPart part = (MimeBodyPart) ((MimeMultipart) mp.getBodyPart(0).getContent()).getBodyPart(0);
         ByteArrayOutputStream aos = new ByteArrayOutputStream();
@@ -136,9 +158,8 @@ class MailServiceIT {
         user.setLogin("john");
         user.setEmail("john.doe@example.com");
         user.setLangKey("en");
-        mailService.sendEmailFromTemplate(user, "mail/testEmail", "email.test.title");
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
+        mailService.sendEmailFromTemplate(user, "mail/testEmail", "email.test.title").block();
+        MimeMessage message = deliverSingleMessage();
         assertThat(message.getSubject()).isEqualTo("test title");
         assertThat(message.getAllRecipients()[0]).hasToString(user.getEmail());
         assertThat(message.getFrom()[0]).hasToString(jHipsterProperties.getMail().getFrom());
@@ -146,15 +167,68 @@ class MailServiceIT {
         assertThat(message.getDataHandler().getContentType()).isEqualTo("text/html;charset=UTF-8");
     }
 
+    @Test
+    void testSendEmailsFromTemplate() throws Exception {
+        List<User> users = List.of(new User(), new User(), new User());
+        for (int i = 0; i < users.size(); i++) {
+            users.get(i).setLogin("john" + i);
+            users.get(i).setEmail("john.doe" + i + "@example.com");
+            users.get(i).setLangKey("en");
+        }
+        users.get(1).setEmail(null);
+        // the login is escaped by the template
+        users.get(2).setLogin("john&jane");
+
+        mailService.sendEmailsFromTemplate(users, "mail/testEmail", "email.test.title").block();
+
+        assertThat(mailQueueService.deliverReactively().block()).isEqualTo(2L);
+        List<MimeMessage> sentMessages = javaMailSender.getSentMessages();
+        assertThat(sentMessages).hasSize(2);
+        assertThat(sentMessages.get(0).getSubject()).isEqualTo("test title");
+        assertThat(sentMessages.get(0).getAllRecipients()[0]).hasToString("john.doe0@example.com");
+        assertThat(sentMessages.get(0).getContent().toString())
+            .isEqualToNormalizingNewlines("<html>test title, http://127.0.0.1:8080, john0</html>\n");
+        assertThat(sentMessages.get(1).getSubject()).isEqualTo("test title");
+        assertThat(sentMessages.get(1).getAllRecipients()[0]).hasToString("john.doe2@example.com");
+        assertThat(sentMessages.get(1).getContent().toString())
+            .isEqualToNormalizingNewlines("<html>test title, http://127.0.0.1:8080, john&amp;jane</html>\n");
+    }
+
+    @Test
+    void testSendEmailsFromTemplateWithUrls() throws Exception {
+        List<User> users = List.of(new User(), new User());
+        for (int i = 0; i < users.size(); i++) {
+            users.get(i).setLogin("john" + i);
+            users.get(i).setEmail("john.doe" + i + "@example.com");
+            users.get(i).setLangKey("en");
+            users.get(i).setActivationKey("key" + i);
+        }
+        // rendered from the cached template, where the key is in a URL and the login in a text
+        users.get(1).setLogin("john&jane");
+        users.get(1).setActivationKey("a key&more");
+
+        mailService.sendEmailsFromTemplate(users, "mail/activationEmail", "email.activation.title").block();
+
+        ThymeleafProperties uncachedProperties = new ThymeleafProperties();
+        uncachedProperties.setCache(false);
+        MailTemplateService uncached = new MailTemplateService(jHipsterProperties, messageSource, templateEngine, uncachedProperties);
+        List<MailMessage> queued = mailMessageRepository.findAll(Sort.by("id")).collectList().block();
+        assertThat(queued)
+            .extracting(MailMessage::getContent)
+            .containsExactly(
+                uncached.render(users.get(0), "mail/activationEmail", "email.activation.title").getContent(),
+                uncached.render(users.get(1), "mail/activationEmail", "email.activation.title").getContent()
+            );
+    }
+
     @Test
     void testSendActivationEmail() throws Exception {
         User user = new User();
         user.setLangKey(Constants.DEFAULT_LANGUAGE);
         user.setLogin("john");
         user.setEmail("john.doe@example.com");
-        mailService.sendActivationEmail(user);
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
+        mailService.sendActivationEmail(user).block();
+        MimeMessage message = deliverSingleMessage();
         assertThat(message.getAllRecipients()[0]).hasToString(user.getEmail());
         assertThat(message.getFrom()[0]).hasToString(jHipsterProperties.getMail().getFrom());
         assertThat(message.getContent().toString()).isNotEmpty();
@@ -167,9 +241,8 @@ class MailServiceIT {
         user.setLangKey(Constants.DEFAULT_LANGUAGE);
         user.setLogin("john");
         user.setEmail("john.doe@example.com");
-        mailService.sendCreationEmail(user);
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
+        mailService.sendCreationEmail(user).block();
+        MimeMessage message = deliverSingleMessage();
         assertThat(message.getAllRecipients()[0]).hasToString(user.getEmail());
         assertThat(message.getFrom()[0]).hasToString(jHipsterProperties.getMail().getFrom());
         assertThat(message.getContent().toString()).isNotEmpty();
@@ -182,9 +255,8 @@ class MailServiceIT {
         user.setLangKey(Constants.DEFAULT_LANGUAGE);
         user.setLogin("john");
         user.setEmail("john.doe@example.com");
-        mailService.sendPasswordResetMail(user);
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
+        mailService.sendPasswordResetMail(user).block();
+        MimeMessage message = deliverSingleMessage();
         assertThat(message.getAllRecipients()[0]).hasToString(user.getEmail());
         assertThat(message.getFrom()[0]).hasToString(jHipsterProperties.getMail().getFrom());
         assertThat(message.getContent().toString()).isNotEmpty();
@@ -192,13 +264,87 @@ class MailServiceIT {
     }
 
     @Test
-    void testSendEmailWithException() {
-        doThrow(MailSendException.class).when(javaMailSender).send(any(MimeMessage.class));
-        try {
-            mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", false, false);
-        } catch (Exception e) {
-            fail("Exception shouldn't have been thrown");
+    void testSendEmailsOverFewConnections() {
+        applicationProperties.getMailQueue().setMessagesPerConnection(2);
+        for (int i = 0; i < 5; i++) {
+            mailService.sendEmail("john.doe" + i + "@example.com", "testSubject", "testContent", false, false).block();
         }
+
+        assertThat(mailQueueService.deliverReactively().block()).isEqualTo(5L);
+
+        assertThat(javaMailSender.getSentMessages()).hasSize(5);
+        assertThat(javaMailSender.getConnections()).hasSize(3).allSatisfy(messages -> assertThat(messages).hasSizeLessThanOrEqualTo(2));
+        assertThat(mailMessageRepository.count().block()).isZero();
+        assertThat(meterRegistry.get("mail.queue.delivered").counter().count()).isEqualTo(5);
+        assertThat(meterRegistry.get("mail.queue.depth").gauge().value()).isZero();
+    }
+
+    @Test
+    void testClaimedEmailsAreNotSentTwice() {
+        mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", false, false).block();
+        mailService.sendEmail("jane.doe@example.com", "testSubject", "testContent", false, false).block();
+
+        // another instance claims the first mail
+        Instant now = Instant.now();
+        assertThat(mailMessageRepository.claim("other", now, now.plusSeconds(60), 1).collectList().block()).hasSize(1);
+
+        assertThat(mailQueueService.deliverReactively().block()).isEqualTo(1L);
+
+        assertThat(javaMailSender.getSentMessages()).hasSize(1);
+        assertThat(mailMessageRepository.findAll().collectList().block())
+            .singleElement()
+            .satisfies(mail -> assertThat(mail.getRecipient()).isEqualTo("john.doe@example.com"));
+    }
+
+    @Test
+    void testSendEmailWithException() {
+        javaMailSender.reject("john.doe@example.com");
+        mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", false, false).block();
+        mailService.sendEmail("jane.doe@example.com", "testSubject", "testContent", false, false).block();
+
+        assertThat(mailQueueService.deliverReactively().block()).isEqualTo(1L);
+
+        assertThat(javaMailSender.getSentMessages()).hasSize(1);
+        List<MailMessage> queued = mailMessageRepository.findAll().collectList().block();
+        assertThat(queued).hasSize(1);
+        MailMessage retried = queued.get(0);
+        assertThat(retried.getRecipient()).isEqualTo("john.doe@example.com");
+        assertThat(retried.getAttempts()).isEqualTo(1);
+        assertThat(retried.getNextAttemptDate()).isAfter(Instant.now());
+        assertThat(retried.getLastError()).contains("john.doe@example.com");
+        assertThat(meterRegistry.get("mail.queue.retried").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("mail.queue.depth").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void testSendEmailWithUnavailableServer() {
+        javaMailSender.setUnavailable(true);
+        mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", false, false).block();
+
+        assertThat(mailQueueService.deliverReactively().block()).isZero();
+        assertThat(mailMessageRepository.findAll().collectList().block())
+            .singleElement()
+            .satisfies(mail -> assertThat(mail.getAttempts()).isEqualTo(1));
+
+        // not due yet
+        javaMailSender.setUnavailable(false);
+        assertThat(mailQueueService.deliverReactively().block()).isZero();
+        assertThat(javaMailSender.getSentMessages()).isEmpty();
+    }
+
+    @Test
+    void testSendEmailIsGivenUp() {
+        applicationProperties.getMailQueue().setMaxAttempts(1);
+        javaMailSender.reject("john.doe@example.com");
+        mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", false, false).block();
+
+        assertThat(mailQueueService.deliverReactively().block()).isZero();
+
+        MailMessage givenUp = mailMessageRepository.findAll().blockFirst();
+        assertThat(givenUp).isNotNull();
+        assertThat(givenUp.getNextAttemptDate()).isNull();
+        assertThat(meterRegistry.get("mail.queue.given.up").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("mail.queue.depth").gauge().value()).isZero();
     }
 
     @Test
@@ -208,9 +354,10 @@ class MailServiceIT {
         user.setEmail("john.doe@example.com");
         for (String langKey : languages) {
             user.setLangKey(langKey);
-            mailService.sendEmailFromTemplate(user, "mail/testEmail", "email.test.title");
-            verify(javaMailSender, atLeastOnce()).send(messageCaptor.capture());
-            MimeMessage message = messageCaptor.getValue();
+            mailService.sendEmailFromTemplate(user, "mail/testEmail", "email.test.title").block();
+            mailQueueService.deliverReactively().block();
+            List<MimeMessage> sentMessages = javaMailSender.getSentMessages();
+            MimeMessage message = sentMessages.get(sentMessages.size() - 1);
 
             String propertyFilePath = "i18n/messages_" + getJavaLocale(langKey) + ".properties";
             URL resource = this.getClass().getClassLoader().getResource(propertyFilePath);
@@ -0,0 +1,74 @@
+package com.mycompany.bugtracker.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
+import javax.mail.internet.MimeMessage;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+/**
+ * Stand-in for an SMTP server, recording the sent mails for each connection instead of sending them.
+ */
+class StubJavaMailSender extends JavaMailSenderImpl {
+
+    private final List<List<MimeMessage>> connections = new CopyOnWriteArrayList<>();
+
+    private final Set<String> rejectedRecipients = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean unavailable;
+
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) {
+        Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+        if (unavailable) {
+            // same as JavaMailSenderImpl, when it can't connect
+            MessagingException connectionFailure = new MessagingException("Connection refused");
+            for (MimeMessage mimeMessage : mimeMessages) {
+                failedMessages.put(mimeMessage, connectionFailure);
+            }
+            throw new MailSendException("Mail server connection failed", connectionFailure, failedMessages);
+        }
+        List<MimeMessage> sent = new ArrayList<>();
+        for (MimeMessage mimeMessage : mimeMessages) {
+            try {
+                String recipient = mimeMessage.getAllRecipients()[0].toString();
+                if (rejectedRecipients.contains(recipient)) {
+                    failedMessages.put(mimeMessage, new SendFailedException("Recipient rejected: " + recipient));
+                } else {
+                    sent.add(mimeMessage);
+                }
+            } catch (MessagingException e) {
+                failedMessages.put(mimeMessage, e);
+            }
+        }
+        connections.add(sent);
+        if (!failedMessages.isEmpty()) {
+            throw new MailSendException(failedMessages);
+        }
+    }
+
+    public List<List<MimeMessage>> getConnections() {
+        return connections;
+    }
+
+    public List<MimeMessage> getSentMessages() {
+        return connections.stream().flatMap(Collection::stream).collect(Collectors.toList());
+    }
+
+    public void reject(String recipient) {
+        rejectedRecipients.add(recipient);
+    }
+
+    public void setUnavailable(boolean unavailable) {
+        this.unavailable = unavailable;
+    }
+}
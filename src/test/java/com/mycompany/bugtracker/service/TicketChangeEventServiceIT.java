@@ -0,0 +1,89 @@
+package com.mycompany.bugtracker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mycompany.bugtracker.IntegrationTest;
+import com.mycompany.bugtracker.config.ApplicationProperties;
+import com.mycompany.bugtracker.domain.Ticket;
+import com.mycompany.bugtracker.repository.OutboxRepository;
+import com.mycompany.bugtracker.repository.TicketRepository;
+import com.mycompany.bugtracker.service.dto.TicketChangeEventDTO;
+import com.mycompany.bugtracker.web.rest.TicketResourceIT;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+/**
+ * Integration tests for {@link TicketChangeEventService}, with several instances sharing the outbox.
+ */
+@IntegrationTest
+class TicketChangeEventServiceIT {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private TicketChangeEventService ticketChangeEventService;
+
+    @Autowired
+    private TransactionalOperator transactionalOperator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private EntityManager em;
+
+    @BeforeEach
+    @AfterEach
+    public void cleanup() {
+        TicketResourceIT.deleteEntities(em);
+    }
+
+    @Test
+    void eventsRelayedByOneInstanceArePublishedOnAllInstances() {
+        // another instance, reading the same outbox
+        TicketChangeEventService otherInstance = new TicketChangeEventService(outboxRepository, objectMapper, applicationProperties);
+        ticketChangeEventService.readReactively().block(TIMEOUT);
+        otherInstance.readReactively().block(TIMEOUT);
+
+        Ticket ticket = ticketRepository.save(TicketResourceIT.createEntity(em)).as(transactionalOperator::transactional).block(TIMEOUT);
+        // the relay of this instance claims the event, and marks it published
+        outboxService.relayReactively().block(TIMEOUT);
+        ticketChangeEventService.readReactively().block(TIMEOUT);
+        otherInstance.readReactively().block(TIMEOUT);
+
+        List<TicketChangeEventDTO> events = createdEvents(ticketChangeEventService, ticket);
+        List<TicketChangeEventDTO> otherEvents = createdEvents(otherInstance, ticket);
+        assertThat(events).hasSize(1);
+        assertThat(otherEvents)
+            .extracting(TicketChangeEventDTO::getSequence)
+            .containsExactly(events.get(0).getSequence());
+    }
+
+    private static List<TicketChangeEventDTO> createdEvents(TicketChangeEventService service, Ticket ticket) {
+        return service
+            .subscribe(0L, Set.of())
+            .take(Duration.ofMillis(200))
+            .filter(event -> event.getType() == TicketChangeEventDTO.Type.CREATED && ticket.getId().equals(event.getTicketId()))
+            .collectList()
+            .block(TIMEOUT);
+    }
+}
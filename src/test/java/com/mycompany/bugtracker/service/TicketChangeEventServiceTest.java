@@ -0,0 +1,137 @@
+package com.mycompany.bugtracker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.mycompany.bugtracker.config.ApplicationProperties;
+import com.mycompany.bugtracker.domain.OutboxEvent;
+import com.mycompany.bugtracker.domain.Project;
+import com.mycompany.bugtracker.domain.Ticket;
+import com.mycompany.bugtracker.repository.OutboxRepository;
+import com.mycompany.bugtracker.service.dto.TicketChangeEventDTO;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Unit tests for {@link TicketChangeEventService}.
+ */
+class TicketChangeEventServiceTest {
+
+    private static final String TYPE = TicketChangeEventService.AGGREGATE_TYPE;
+
+    private ObjectMapper objectMapper;
+
+    private OutboxRepository outboxRepository;
+
+    private TicketChangeEventService ticketChangeEventService;
+
+    @BeforeEach
+    public void init() {
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        outboxRepository = mock(OutboxRepository.class);
+        when(outboxRepository.findIdBeforeLast(eq(TYPE), anyInt())).thenReturn(Mono.just(0L));
+        ticketChangeEventService = new TicketChangeEventService(outboxRepository, objectMapper, new ApplicationProperties());
+    }
+
+    @Test
+    void testResumeFromSequence() throws Exception {
+        when(outboxRepository.findAllAfter(eq(TYPE), eq(0L), anyInt()))
+            .thenReturn(
+                Flux.just(
+                    event(1L, TicketChangeEventDTO.Type.CREATED, new Ticket().id(1L)),
+                    event(2L, TicketChangeEventDTO.Type.UPDATED, new Ticket().id(1L)),
+                    event(3L, TicketChangeEventDTO.Type.DELETED, null).aggregateId(1L)
+                )
+            );
+        ticketChangeEventService.readReactively().block();
+
+        List<TicketChangeEventDTO> events = ticketChangeEventService
+            .subscribe(1L, Set.of())
+            .take(2)
+            .collectList()
+            .block(Duration.ofSeconds(5));
+
+        assertThat(events).extracting(TicketChangeEventDTO::getSequence).containsExactly(2L, 3L);
+        assertThat(events)
+            .extracting(TicketChangeEventDTO::getType)
+            .containsExactly(TicketChangeEventDTO.Type.UPDATED, TicketChangeEventDTO.Type.DELETED);
+    }
+
+    @Test
+    void testFilterByProject() throws Exception {
+        when(outboxRepository.findAllAfter(eq(TYPE), eq(0L), anyInt()))
+            .thenReturn(
+                Flux.just(
+                    event(1L, TicketChangeEventDTO.Type.CREATED, new Ticket().id(1L).project(new Project().id(10L))),
+                    event(2L, TicketChangeEventDTO.Type.CREATED, new Ticket().id(2L).project(new Project().id(20L))),
+                    event(3L, TicketChangeEventDTO.Type.DELETED, null).aggregateId(3L)
+                )
+            );
+        ticketChangeEventService.readReactively().block();
+
+        List<TicketChangeEventDTO> events = ticketChangeEventService
+            .subscribe(0L, Set.of(20L))
+            .take(2)
+            .collectList()
+            .block(Duration.ofSeconds(5));
+
+        assertThat(events).extracting(TicketChangeEventDTO::getTicketId).containsExactly(2L, 3L);
+    }
+
+    @Test
+    void testEventsAreReadAfterTheLastOne() throws Exception {
+        // the sequences are the ids of the outbox rows, which the events of other types leave gaps in
+        when(outboxRepository.findIdBeforeLast(eq(TYPE), anyInt())).thenReturn(Mono.just(4L));
+        when(outboxRepository.findAllAfter(eq(TYPE), eq(4L), anyInt()))
+            .thenReturn(Flux.just(event(5L, TicketChangeEventDTO.Type.CREATED, new Ticket().id(1L))));
+        when(outboxRepository.findAllAfter(eq(TYPE), eq(5L), anyInt()))
+            .thenReturn(Flux.just(event(9L, TicketChangeEventDTO.Type.UPDATED, new Ticket().id(1L))));
+        ticketChangeEventService.readReactively().block();
+
+        Flux<TicketChangeEventDTO> newEvents = ticketChangeEventService.subscribe(null, Set.of()).cache();
+        newEvents.subscribe();
+        ticketChangeEventService.readReactively().block();
+
+        assertThat(newEvents.take(Duration.ofMillis(200)).collectList().block(Duration.ofSeconds(5)))
+            .extracting(TicketChangeEventDTO::getSequence)
+            .containsExactly(9L);
+        assertThat(ticketChangeEventService.subscribe(0L, Set.of()).take(Duration.ofMillis(200)).collectList().block(Duration.ofSeconds(5)))
+            .extracting(TicketChangeEventDTO::getSequence)
+            .containsExactly(5L, 9L);
+        verify(outboxRepository).findIdBeforeLast(eq(TYPE), anyInt());
+    }
+
+    @Test
+    void testSubscribersWaitForTheKeptEvents() throws Exception {
+        when(outboxRepository.findAllAfter(eq(TYPE), eq(0L), anyInt()))
+            .thenReturn(Flux.just(event(1L, TicketChangeEventDTO.Type.CREATED, new Ticket().id(1L))));
+        Flux<TicketChangeEventDTO> events = ticketChangeEventService.subscribe(0L, Set.of()).cache();
+        events.subscribe();
+
+        ticketChangeEventService.readReactively().block();
+
+        assertThat(events.take(1).collectList().block(Duration.ofSeconds(5)))
+            .extracting(TicketChangeEventDTO::getSequence)
+            .containsExactly(1L);
+    }
+
+    private OutboxEvent event(Long id, TicketChangeEventDTO.Type type, Ticket ticket) throws Exception {
+        return new OutboxEvent()
+            .id(id)
+            .aggregateType(TicketChangeEventService.AGGREGATE_TYPE)
+            .aggregateId(ticket != null ? ticket.getId() : null)
+            .eventType(type.name())
+            .payload(ticket != null ? objectMapper.writeValueAsString(ticket) : null);
+    }
+}
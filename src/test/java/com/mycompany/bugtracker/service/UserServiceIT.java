@@ -3,9 +3,12 @@ package com.mycompany.bugtracker.service;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import com.mycompany.bugtracker.IntegrationTest;
+import com.mycompany.bugtracker.config.ApplicationProperties;
 import com.mycompany.bugtracker.config.Constants;
+import com.mycompany.bugtracker.domain.Authority;
 import com.mycompany.bugtracker.domain.User;
 import com.mycompany.bugtracker.repository.UserRepository;
+import com.mycompany.bugtracker.security.AuthoritiesConstants;
 import com.mycompany.bugtracker.service.dto.AdminUserDTO;
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -13,6 +16,7 @@ import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -44,6 +48,9 @@ class UserServiceIT {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
     private User user;
 
     @BeforeEach
@@ -167,4 +174,61 @@ class UserServiceIT {
         Optional<User> maybeDbUser = userRepository.findById(dbUser.getId()).blockOptional();
         assertThat(maybeDbUser).contains(dbUser);
     }
+
+    @Test
+    void assertThatNotActivatedUsersAreDeletedInBatches() {
+        ApplicationProperties.UserPurge purgeProperties = applicationProperties.getUserPurge();
+        int batchSize = purgeProperties.getBatchSize();
+        long pauseMs = purgeProperties.getPauseMs();
+        purgeProperties.setBatchSize(2);
+        purgeProperties.setPauseMs(0);
+        try {
+            Instant fourDaysAgo = Instant.now().minus(4, ChronoUnit.DAYS);
+            Authority userAuthority = new Authority();
+            userAuthority.setName(AuthoritiesConstants.USER);
+            for (int i = 0; i < 5; i++) {
+                User notActivatedUser = new User();
+                notActivatedUser.setLogin("notactivated" + i);
+                notActivatedUser.setPassword(RandomStringUtils.random(60));
+                notActivatedUser.setActivated(false);
+                notActivatedUser.setActivationKey(RandomUtil.generateActivationKey());
+                notActivatedUser.setCreatedBy(Constants.SYSTEM);
+                notActivatedUser.setAuthorities(Set.of(userAuthority));
+                userService.saveUser(notActivatedUser).block();
+                notActivatedUser.setCreatedDate(fourDaysAgo);
+                userRepository.save(notActivatedUser).block();
+            }
+            user.setCreatedDate(fourDaysAgo);
+            userRepository.save(user).block();
+
+            assertThat(userService.removeNotActivatedUsersReactively().block()).isEqualTo(5L);
+            assertThat(userRepository.findAll().collectList().block()).extracting(User::getLogin).containsExactly(DEFAULT_LOGIN);
+        } finally {
+            purgeProperties.setBatchSize(batchSize);
+            purgeProperties.setPauseMs(pauseMs);
+        }
+    }
+
+    @Test
+    void assertThatSavingUserKeepsAuthoritiesAndUpdatingUserReplacesThem() {
+        Authority userAuthority = new Authority();
+        userAuthority.setName(AuthoritiesConstants.USER);
+        Authority adminAuthority = new Authority();
+        adminAuthority.setName(AuthoritiesConstants.ADMIN);
+        user.setAuthorities(Set.of(userAuthority, adminAuthority));
+        userService.saveUser(user).block();
+
+        // loaded without its authorities
+        User dbUser = userRepository.findOneByLogin(DEFAULT_LOGIN).block();
+        dbUser.setFirstName("jane");
+        userService.saveUser(dbUser).block();
+        assertThat(userRepository.findAuthorityNamesByUserId(dbUser.getId()).collectList().block())
+            .containsExactlyInAnyOrder(AuthoritiesConstants.USER, AuthoritiesConstants.ADMIN);
+
+        AdminUserDTO userDTO = new AdminUserDTO(dbUser);
+        userDTO.setAuthorities(Set.of(AuthoritiesConstants.USER));
+        userService.updateUser(userDTO).block();
+        assertThat(userRepository.findAuthorityNamesByUserId(dbUser.getId()).collectList().block())
+            .containsExactly(AuthoritiesConstants.USER);
+    }
 }
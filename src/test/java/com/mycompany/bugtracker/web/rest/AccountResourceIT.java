@@ -2,6 +2,7 @@ package com.mycompany.bugtracker.web.rest;
 
 import static com.mycompany.bugtracker.web.rest.AccountResourceIT.TEST_USER_LOGIN;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
 
 import com.mycompany.bugtracker.IntegrationTest;
 import com.mycompany.bugtracker.config.Constants;
@@ -21,6 +22,7 @@ import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -103,6 +105,8 @@ class AccountResourceIT {
             .isOk()
             .expectHeader()
             .contentType(MediaType.APPLICATION_JSON_VALUE)
+            .expectHeader()
+            .value(HttpHeaders.CACHE_CONTROL, containsString("no-store"))
             .expectBody()
             .jsonPath("$.login")
             .isEqualTo(TEST_USER_LOGIN)
@@ -0,0 +1,127 @@
+package com.mycompany.bugtracker.web.rest;
+
+import com.mycompany.bugtracker.IntegrationTest;
+import com.mycompany.bugtracker.config.ApplicationProperties;
+import com.mycompany.bugtracker.web.rest.vm.BatchRequestVM;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * Integration tests for the {@link BatchResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureWebTestClient
+@WithMockUser
+class BatchResourceIT {
+
+    private static final String BATCH_API_URL = "/api/_batch";
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    void runBatch() throws Exception {
+        List<BatchRequestVM> requests = List.of(
+            request("GET", "/api/projects"),
+            request("GET", "/api/labels"),
+            request("GET", "/api/admin/users")
+        );
+
+        webTestClient
+            .post()
+            .uri(BATCH_API_URL)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(requests))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.length()")
+            .isEqualTo(3)
+            .jsonPath("$[0].status")
+            .isEqualTo(200)
+            .jsonPath("$[0].body")
+            .isArray()
+            .jsonPath("$[1].status")
+            .isEqualTo(200)
+            .jsonPath("$[1].body")
+            .isArray()
+            .jsonPath("$[2].status")
+            .isEqualTo(403);
+    }
+
+    @Test
+    void runBatchWithTooManyRequests() throws Exception {
+        List<BatchRequestVM> requests = new ArrayList<>();
+        for (int i = 0; i <= applicationProperties.getBatch().getMaxSize(); i++) {
+            requests.add(request("GET", "/api/labels"));
+        }
+
+        webTestClient
+            .post()
+            .uri(BATCH_API_URL)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(requests))
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+    }
+
+    @Test
+    void runNestedBatch() throws Exception {
+        List<BatchRequestVM> requests = List.of(request("POST", BATCH_API_URL));
+
+        webTestClient
+            .post()
+            .uri(BATCH_API_URL)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(requests))
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+    }
+
+    @Test
+    void runNestedBatchWithEncodedUrl() throws Exception {
+        List<BatchRequestVM> requests = List.of(request("POST", "/api/%5Fbatch"));
+
+        webTestClient
+            .post()
+            .uri(BATCH_API_URL)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(requests))
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+    }
+
+    @Test
+    void runBatchWithUrlOutsideOfApi() throws Exception {
+        List<BatchRequestVM> requests = List.of(request("GET", "/api/../management/info"));
+
+        webTestClient
+            .post()
+            .uri(BATCH_API_URL)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(requests))
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+    }
+
+    private static BatchRequestVM request(String method, String url) {
+        BatchRequestVM request = new BatchRequestVM();
+        request.setMethod(method);
+        request.setUrl(url);
+        return request;
+    }
+}
@@ -6,7 +6,9 @@ import static org.hamcrest.Matchers.is;
 
 import com.mycompany.bugtracker.IntegrationTest;
 import com.mycompany.bugtracker.domain.Label;
+import com.mycompany.bugtracker.domain.Ticket;
 import com.mycompany.bugtracker.repository.LabelRepository;
+import com.mycompany.bugtracker.repository.TicketRepository;
 import com.mycompany.bugtracker.service.EntityManager;
 import java.time.Duration;
 import java.util.List;
@@ -44,6 +46,9 @@ class LabelResourceIT {
     @Autowired
     private LabelRepository labelRepository;
 
+    @Autowired
+    private TicketRepository ticketRepository;
+
     @Autowired
     private EntityManager em;
 
@@ -161,6 +166,48 @@ class LabelResourceIT {
         assertThat(testLabel.getLabel()).isEqualTo(DEFAULT_LABEL);
     }
 
+    @Test
+    void getTopLabelUsages() {
+        // Initialize the database
+        labelRepository.save(label).block();
+        Label unusedLabel = labelRepository.save(createEntity(em)).block();
+        ticketRepository.save(TicketResourceIT.createEntity(em).addLabel(label)).block();
+        ticketRepository.save(TicketResourceIT.createEntity(em).addLabel(label)).block();
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/usages/top?limit=1")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.length()")
+            .isEqualTo(1)
+            .jsonPath("$.[0].label.id")
+            .isEqualTo(label.getId().intValue())
+            .jsonPath("$.[0].tickets")
+            .isEqualTo(2);
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/usages")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[?(@.label.id == " + unusedLabel.getId() + ")].tickets")
+            .isEqualTo(List.of(0));
+
+        TicketResourceIT.deleteEntities(em);
+    }
+
+    @Test
+    void getTopLabelUsagesWithInvalidLimit() {
+        webTestClient.get().uri(ENTITY_API_URL + "/usages/top?limit=0").exchange().expectStatus().isBadRequest();
+    }
+
     @Test
     void getAllLabels() {
         // Initialize the database
@@ -242,6 +289,7 @@ class LabelResourceIT {
         assertThat(labelList).hasSize(databaseSizeBeforeUpdate);
         Label testLabel = labelList.get(labelList.size() - 1);
         assertThat(testLabel.getLabel()).isEqualTo(UPDATED_LABEL);
+        assertThat(testLabel.getLastModifiedDate()).isAfter(updatedLabel.getLastModifiedDate());
     }
 
     @Test
@@ -440,4 +488,26 @@ class LabelResourceIT {
         List<Label> labelList = labelRepository.findAll().collectList().block();
         assertThat(labelList).hasSize(databaseSizeBeforeDelete - 1);
     }
+
+    @Test
+    void deleteLabelDetachingTickets() {
+        // Initialize the database
+        labelRepository.save(label).block();
+        Ticket ticket = ticketRepository.save(TicketResourceIT.createEntity(em).addLabel(label)).block();
+
+        webTestClient
+            .delete()
+            .uri(ENTITY_API_URL_ID + "?cascade=DETACH", label.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isNoContent();
+
+        assertThat(labelRepository.findById(label.getId()).block()).isNull();
+        Ticket detachedTicket = ticketRepository.findOneWithEagerRelationships(ticket.getId()).block();
+        assertThat(detachedTicket.getLabels()).isEmpty();
+        assertThat(detachedTicket.getVersion()).isEqualTo(ticket.getVersion() + 1);
+
+        TicketResourceIT.deleteEntities(em);
+    }
 }
@@ -5,10 +5,16 @@ import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
 
 import com.mycompany.bugtracker.IntegrationTest;
+import com.mycompany.bugtracker.config.Constants;
 import com.mycompany.bugtracker.domain.Project;
+import com.mycompany.bugtracker.domain.Ticket;
 import com.mycompany.bugtracker.repository.ProjectRepository;
+import com.mycompany.bugtracker.repository.TicketRepository;
 import com.mycompany.bugtracker.service.EntityManager;
+import com.mycompany.bugtracker.service.ProjectSummaryService;
+import com.mycompany.bugtracker.service.dto.ProjectSummaryDTO;
 import java.time.Duration;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
@@ -20,6 +26,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.reactive.server.WebTestClient;
@@ -35,6 +42,8 @@ class ProjectResourceIT {
     private static final String DEFAULT_NAME = "AAAAAAAAAA";
     private static final String UPDATED_NAME = "BBBBBBBBBB";
 
+    private static final MediaType SMILE = MediaType.valueOf(Constants.APPLICATION_SMILE_VALUE);
+
     private static final String ENTITY_API_URL = "/api/projects";
     private static final String ENTITY_API_URL_ID = ENTITY_API_URL + "/{id}";
 
@@ -44,6 +53,12 @@ class ProjectResourceIT {
     @Autowired
     private ProjectRepository projectRepository;
 
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private ProjectSummaryService projectSummaryService;
+
     @Autowired
     private EntityManager em;
 
@@ -161,6 +176,41 @@ class ProjectResourceIT {
         assertThat(testProject.getName()).isEqualTo(DEFAULT_NAME);
     }
 
+    @Test
+    void getAllProjectSummariesAsStream() {
+        // Initialize the database
+        projectRepository.save(project).block();
+        LocalDate today = LocalDate.now();
+        ticketRepository.save(TicketResourceIT.createEntity(em).project(project).done(true).dueDate(today.minusDays(1))).block();
+        ticketRepository.save(TicketResourceIT.createEntity(em).project(project).done(false).dueDate(today.minusDays(1))).block();
+        ticketRepository.save(TicketResourceIT.createEntity(em).project(project).done(false).dueDate(today.plusDays(1))).block();
+        projectSummaryService.evictSummaries();
+
+        List<ProjectSummaryDTO> summaries = webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/summaries")
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+            .returnResult(ProjectSummaryDTO.class)
+            .getResponseBody()
+            .filter(summary -> project.equals(summary.getProject()))
+            .collectList()
+            .block(Duration.ofSeconds(5));
+
+        assertThat(summaries).hasSize(1);
+        ProjectSummaryDTO summary = summaries.get(0);
+        assertThat(summary.getProject().getName()).isEqualTo(DEFAULT_NAME);
+        assertThat(summary.getOpenTickets()).isEqualTo(2);
+        assertThat(summary.getDoneTickets()).isEqualTo(1);
+        assertThat(summary.getOverdueTickets()).isEqualTo(1);
+
+        TicketResourceIT.deleteEntities(em);
+    }
+
     @Test
     void getAllProjects() {
         // Initialize the database
@@ -183,6 +233,78 @@ class ProjectResourceIT {
             .value(hasItem(DEFAULT_NAME));
     }
 
+    @Test
+    void getAllProjectsNotModified() {
+        // Initialize the database
+        projectRepository.save(project).block();
+
+        String eTag = webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?sort=id,desc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals(HttpHeaders.CACHE_CONTROL, "no-cache, private")
+            .returnResult(Project.class)
+            .getResponseHeaders()
+            .getETag();
+        assertThat(eTag).startsWith("W/");
+
+        // Get the list with the current entity tag
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?sort=id,desc")
+            .accept(MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.IF_NONE_MATCH, eTag)
+            .exchange()
+            .expectStatus()
+            .isNotModified()
+            .expectBody()
+            .isEmpty();
+    }
+
+    @Test
+    void getAllProjectsWithFields() {
+        // Initialize the database
+        projectRepository.save(project).block();
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?fields=id")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .value(hasItem(project.getId().intValue()))
+            .jsonPath("$.[0].name")
+            .doesNotExist();
+    }
+
+    @Test
+    void getAllProjectsAsSmile() {
+        // Initialize the database
+        projectRepository.save(project).block();
+
+        List<Project> projectList = webTestClient
+            .get()
+            .uri(ENTITY_API_URL)
+            .accept(SMILE)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .contentTypeCompatibleWith(SMILE)
+            .expectBodyList(Project.class)
+            .returnResult()
+            .getResponseBody();
+
+        assertThat(projectList).extracting(Project::getId).contains(project.getId());
+    }
+
     @Test
     void getProject() {
         // Initialize the database
@@ -242,6 +364,7 @@ class ProjectResourceIT {
         assertThat(projectList).hasSize(databaseSizeBeforeUpdate);
         Project testProject = projectList.get(projectList.size() - 1);
         assertThat(testProject.getName()).isEqualTo(UPDATED_NAME);
+        assertThat(testProject.getLastModifiedDate()).isAfter(updatedProject.getLastModifiedDate());
     }
 
     @Test
@@ -442,4 +565,44 @@ class ProjectResourceIT {
         List<Project> projectList = projectRepository.findAll().collectList().block();
         assertThat(projectList).hasSize(databaseSizeBeforeDelete - 1);
     }
+
+    @Test
+    void deleteProjectDetachingTickets() {
+        // Initialize the database
+        projectRepository.save(project).block();
+        Ticket ticket = ticketRepository.save(TicketResourceIT.createEntity(em).project(project)).block();
+
+        webTestClient
+            .delete()
+            .uri(ENTITY_API_URL_ID + "?cascade=DETACH", project.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isNoContent();
+
+        assertThat(projectRepository.findById(project.getId()).block()).isNull();
+        Ticket detachedTicket = ticketRepository.findById(ticket.getId()).block();
+        assertThat(detachedTicket.getProjectId()).isNull();
+        assertThat(detachedTicket.getVersion()).isEqualTo(ticket.getVersion() + 1);
+
+        TicketResourceIT.deleteEntities(em);
+    }
+
+    @Test
+    void deleteProjectWithTickets() {
+        // Initialize the database
+        projectRepository.save(project).block();
+        Ticket ticket = ticketRepository.save(TicketResourceIT.createEntity(em).project(project)).block();
+
+        webTestClient
+            .delete()
+            .uri(ENTITY_API_URL_ID + "?cascade=DELETE", project.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isNoContent();
+
+        assertThat(projectRepository.findById(project.getId()).block()).isNull();
+        assertThat(ticketRepository.findById(ticket.getId()).block()).isNull();
+    }
 }
@@ -65,6 +65,25 @@ class PublicUserResourceIT {
         assertThat(foundUser.getLogin()).isEqualTo(DEFAULT_LOGIN);
     }
 
+    @Test
+    void getPublicUsersByLogins() {
+        // Initialize the database
+        userRepository.save(user).block();
+
+        webTestClient
+            .get()
+            .uri("/api/users?logins=unknown," + DEFAULT_LOGIN.toUpperCase() + "," + DEFAULT_LOGIN)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.length()")
+            .isEqualTo(1)
+            .jsonPath("$.[0].login")
+            .isEqualTo(DEFAULT_LOGIN);
+    }
+
     @Test
     void getAllAuthorities() {
         webTestClient
@@ -6,10 +6,17 @@ import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.*;
 
 import com.mycompany.bugtracker.IntegrationTest;
+import com.mycompany.bugtracker.domain.Label;
+import com.mycompany.bugtracker.domain.Project;
 import com.mycompany.bugtracker.domain.Ticket;
+import com.mycompany.bugtracker.repository.LabelRepository;
+import com.mycompany.bugtracker.repository.ProjectRepository;
 import com.mycompany.bugtracker.repository.TicketRepository;
 import com.mycompany.bugtracker.service.EntityManager;
+import com.mycompany.bugtracker.service.TicketSyncService;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.ArrayList;
@@ -26,6 +33,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.reactive.server.WebTestClient;
@@ -62,12 +71,24 @@ class TicketResourceIT {
     @Autowired
     private TicketRepository ticketRepository;
 
+    @Autowired
+    private LabelRepository labelRepository;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
     @Mock
     private TicketRepository ticketRepositoryMock;
 
     @Autowired
     private EntityManager em;
 
+    @Autowired
+    private TicketSyncService ticketSyncService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Autowired
     private WebTestClient webTestClient;
 
@@ -99,6 +120,7 @@ class TicketResourceIT {
         try {
             em.deleteAll("rel_ticket__label").block();
             em.deleteAll(Ticket.class).block();
+            em.deleteAll("ticket_tombstone").block();
         } catch (Exception e) {
             // It can fail, if other entities are still referring this - it will be removed later.
         }
@@ -138,6 +160,22 @@ class TicketResourceIT {
         assertThat(testTicket.getDone()).isEqualTo(DEFAULT_DONE);
     }
 
+    @Test
+    void onlyTicketWritesShouldRunInATransaction() throws Exception {
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(ticket))
+            .exchange()
+            .expectStatus()
+            .isCreated();
+        webTestClient.get().uri(ENTITY_API_URL).accept(MediaType.APPLICATION_JSON).exchange().expectStatus().isOk();
+
+        assertThat(meterRegistry.find("db.transactions").tag("name", "TicketResource.createTicket").timer()).isNotNull();
+        assertThat(meterRegistry.find("db.transactions").tag("name", "TicketResource.getAllTickets").timer()).isNull();
+    }
+
     @Test
     void createTicketWithExistingId() throws Exception {
         // Create the Ticket with an existing ID
@@ -160,6 +198,28 @@ class TicketResourceIT {
         assertThat(ticketList).hasSize(databaseSizeBeforeCreate);
     }
 
+    @Test
+    void createTicketWithUnsavedLabel() throws Exception {
+        int databaseSizeBeforeCreate = ticketRepository.findAll().collectList().block().size();
+
+        // A label must be saved before it is set on a ticket, so this API call must fail
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("{\"title\":\"" + DEFAULT_TITLE + "\",\"labels\":[{\"label\":\"unsaved\"}]}")
+            .exchange()
+            .expectStatus()
+            .isBadRequest()
+            .expectBody()
+            .jsonPath("$.message")
+            .isEqualTo("error.labelunsaved");
+
+        // Validate the Ticket in the database
+        List<Ticket> ticketList = ticketRepository.findAll().collectList().block();
+        assertThat(ticketList).hasSize(databaseSizeBeforeCreate);
+    }
+
     @Test
     void getAllTickets() {
         // Initialize the database
@@ -188,6 +248,275 @@ class TicketResourceIT {
             .value(hasItem(DEFAULT_DONE.booleanValue()));
     }
 
+    @Test
+    void getProjectTickets() {
+        // Initialize the database
+        Project project = projectRepository.save(ProjectResourceIT.createEntity(em)).block();
+        List<Ticket> projectTickets = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            projectTickets.add(ticketRepository.save(createEntity(em).project(project)).block());
+        }
+        ticketRepository.save(ticket).block();
+
+        // Get the first page, counting the tickets
+        webTestClient
+            .get()
+            .uri("/api/projects/{id}/tickets?size=2", project.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals("X-Total-Count", "3")
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .isEqualTo(List.of(projectTickets.get(0).getId().intValue(), projectTickets.get(1).getId().intValue()))
+            .jsonPath("$.[0].project.name")
+            .isEqualTo(project.getName());
+
+        // Get the next page, after the last ticket of the first one
+        webTestClient
+            .get()
+            .uri("/api/projects/{id}/tickets?size=2&after={after}", project.getId(), projectTickets.get(1).getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .doesNotExist(HttpHeaders.LINK)
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .isEqualTo(List.of(projectTickets.get(2).getId().intValue()));
+
+        deleteEntities(em);
+        projectRepository.deleteById(project.getId()).block();
+    }
+
+    @Test
+    void getTicketWithLabels() {
+        // Initialize the database
+        Label label = labelRepository.save(LabelResourceIT.createEntity(em)).block();
+        ticketRepository.save(ticket.addLabel(label)).block();
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID, ticket.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.labels.[*].id")
+            .isEqualTo(List.of(label.getId().intValue()));
+
+        deleteEntities(em);
+        labelRepository.deleteById(label.getId()).block();
+    }
+
+    @Test
+    void getLabelTicketsAsStream() {
+        // Initialize the database
+        Label label = labelRepository.save(LabelResourceIT.createEntity(em)).block();
+        ticketRepository.save(ticket.addLabel(label)).block();
+        ticketRepository.save(createEntity(em)).block();
+
+        List<Ticket> tickets = webTestClient
+            .get()
+            .uri("/api/labels/{id}/tickets", label.getId())
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .returnResult(Ticket.class)
+            .getResponseBody()
+            .collectList()
+            .block();
+        assertThat(tickets).extracting(Ticket::getId).containsExactly(ticket.getId());
+
+        deleteEntities(em);
+        labelRepository.deleteById(label.getId()).block();
+    }
+
+    @Test
+    void getAllTicketSummaries() {
+        // Initialize the database
+        Project project = projectRepository.save(ProjectResourceIT.createEntity(em)).block();
+        ticketRepository.save(ticket.project(project)).block();
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?view=summary&sort=id,desc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .exists("X-Total-Count")
+            .expectBody()
+            .jsonPath("$.[0].id")
+            .isEqualTo(ticket.getId().intValue())
+            .jsonPath("$.[0].title")
+            .isEqualTo(DEFAULT_TITLE)
+            .jsonPath("$.[0].projectName")
+            .isEqualTo(project.getName())
+            .jsonPath("$.[0].description")
+            .doesNotExist();
+
+        deleteEntities(em);
+        projectRepository.deleteById(project.getId()).block();
+    }
+
+    @Test
+    void getAllTicketsWithFields() {
+        // Initialize the database
+        Project project = projectRepository.save(ProjectResourceIT.createEntity(em)).block();
+        ticketRepository.save(ticket.project(project)).block();
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?fields=title,project&sort=id,desc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .exists("X-Total-Count")
+            .expectBody()
+            .jsonPath("$.[0].id")
+            .isEqualTo(ticket.getId().intValue())
+            .jsonPath("$.[0].title")
+            .isEqualTo(DEFAULT_TITLE)
+            .jsonPath("$.[0].project.name")
+            .isEqualTo(project.getName())
+            .jsonPath("$.[0].description")
+            .doesNotExist()
+            .jsonPath("$.[0].assignedTo")
+            .doesNotExist();
+
+        deleteEntities(em);
+        projectRepository.deleteById(project.getId()).block();
+    }
+
+    @Test
+    void getTicketsByIds() {
+        // Initialize the database
+        ticketRepository.save(ticket).block();
+        Ticket other = ticketRepository.save(createEntity(em)).block();
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?ids=" + other.getId() + "," + Long.MAX_VALUE + "," + ticket.getId() + "," + other.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.length()")
+            .isEqualTo(2)
+            .jsonPath("$.[0].id")
+            .isEqualTo(other.getId().intValue())
+            .jsonPath("$.[1].id")
+            .isEqualTo(ticket.getId().intValue())
+            .jsonPath("$.[1].title")
+            .isEqualTo(DEFAULT_TITLE);
+    }
+
+    @Test
+    void getTicketChanges() {
+        // Initialize the database
+        ticketRepository.save(ticket).block();
+        long since = ticket.getSyncVersion() - 1;
+        Ticket other = ticketRepository.save(createEntity(em)).block();
+        ticketRepository.deleteById(other.getId()).block();
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/changes?since={since}&size=1", since)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .exists(HttpHeaders.LINK)
+            .expectBody()
+            .jsonPath("$.length()")
+            .isEqualTo(1)
+            .jsonPath("$.[0].ticketId")
+            .isEqualTo(ticket.getId().intValue())
+            .jsonPath("$.[0].syncVersion")
+            .isEqualTo(ticket.getSyncVersion().intValue());
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/changes?since={since}", since)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.length()")
+            .isEqualTo(2)
+            .jsonPath("$.[0].ticketId")
+            .isEqualTo(ticket.getId().intValue())
+            .jsonPath("$.[0].deleted")
+            .isEqualTo(false)
+            .jsonPath("$.[0].ticket.title")
+            .isEqualTo(DEFAULT_TITLE)
+            .jsonPath("$.[1].ticketId")
+            .isEqualTo(other.getId().intValue())
+            .jsonPath("$.[1].deleted")
+            .isEqualTo(true);
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/changes?since={since}&after={after}", ticket.getSyncVersion(), ticket.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.length()")
+            .isEqualTo(1)
+            .jsonPath("$.[0].ticketId")
+            .isEqualTo(other.getId().intValue());
+    }
+
+    @Test
+    void getTicketChangesAfterTombstonesArePurged() {
+        // Initialize the database
+        ticketRepository.save(ticket).block();
+        long since = ticket.getSyncVersion();
+        ticketRepository.deleteById(ticket.getId()).block();
+        ticketSyncService.removeTombstones(Instant.now().plusSeconds(60)).block();
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/changes?since={since}", since)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isEqualTo(HttpStatus.GONE);
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/changes?since=0")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk();
+    }
+
+    @Test
+    void getAllTicketsWithUnknownField() {
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?fields=title,secret")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+    }
+
     @SuppressWarnings({ "unchecked" })
     void getAllTicketsWithEagerRelationshipsIsEnabled() {
         when(ticketRepositoryMock.findAllWithEagerRelationships(any())).thenReturn(Flux.empty());
@@ -246,6 +575,128 @@ class TicketResourceIT {
             .isNotFound();
     }
 
+    @Test
+    void getTicketNotModified() {
+        // Initialize the database
+        ticketRepository.save(ticket).block();
+
+        // Get the ticket with the current entity tag
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID, ticket.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.IF_NONE_MATCH, "\"" + ticket.getVersion() + "\"")
+            .exchange()
+            .expectStatus()
+            .isNotModified()
+            .expectHeader()
+            .valueEquals(HttpHeaders.ETAG, "\"" + ticket.getVersion() + "\"")
+            .expectBody()
+            .isEmpty();
+    }
+
+    @Test
+    void getAllTicketsNotModified() {
+        // Initialize the database
+        Project project = projectRepository.save(ProjectResourceIT.createEntity(em)).block();
+        ticketRepository.save(ticket.project(project)).block();
+
+        // Get the list without a cached one: it is tagged, so it can be revalidated
+        String eTag = webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?sort=id,desc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals(HttpHeaders.CACHE_CONTROL, "no-cache, private")
+            .expectHeader()
+            .exists(HttpHeaders.ETAG)
+            .returnResult(Ticket.class)
+            .getResponseHeaders()
+            .getETag();
+        assertThat(eTag).startsWith("W/");
+
+        // Get the list with the current entity tag
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?sort=id,desc")
+            .accept(MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.IF_NONE_MATCH, eTag)
+            .exchange()
+            .expectStatus()
+            .isNotModified()
+            .expectBody()
+            .isEmpty();
+
+        // Get the list with the entity tag of another page
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?sort=id,asc")
+            .accept(MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.IF_NONE_MATCH, eTag)
+            .exchange()
+            .expectStatus()
+            .isOk();
+
+        // Get the list with the entity tag it had before the project of the ticket was renamed
+        projectRepository.save(project.name("BBBBBBBBBB")).block();
+        String renamedETag = webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?sort=id,desc")
+            .accept(MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.IF_NONE_MATCH, eTag)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[0].project.name")
+            .isEqualTo("BBBBBBBBBB")
+            .returnResult()
+            .getResponseHeaders()
+            .getETag();
+
+        // Get the list with the entity tag it had before a ticket was updated
+        ticketRepository.save(ticket.title(UPDATED_TITLE)).block();
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?sort=id,desc")
+            .accept(MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.IF_NONE_MATCH, renamedETag)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[*].title")
+            .value(hasItem(UPDATED_TITLE));
+
+        // Get the list with the entity tag it had before a label was deleted
+        Label label = labelRepository.save(LabelResourceIT.createEntity(em)).block();
+        String labelledETag = webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?sort=id,desc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .returnResult(Ticket.class)
+            .getResponseHeaders()
+            .getETag();
+        labelRepository.deleteById(label.getId()).block();
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?sort=id,desc")
+            .accept(MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.IF_NONE_MATCH, labelledETag)
+            .exchange()
+            .expectStatus()
+            .isOk();
+
+        deleteEntities(em);
+        projectRepository.deleteById(project.getId()).block();
+    }
+
     @Test
     void putNewTicket() throws Exception {
         // Initialize the database
@@ -276,6 +727,36 @@ class TicketResourceIT {
         assertThat(testTicket.getDone()).isEqualTo(UPDATED_DONE);
     }
 
+    @Test
+    void putTicketWithStaleIfMatch() throws Exception {
+        // Initialize the database
+        ticketRepository.save(ticket).block();
+        long version = ticket.getVersion();
+
+        // Update the ticket behind the client's back
+        Ticket concurrentTicket = ticketRepository.findById(ticket.getId()).block();
+        ticketRepository.save(concurrentTicket.title(UPDATED_TITLE)).block();
+
+        Ticket updatedTicket = ticketRepository.findById(ticket.getId()).block();
+        updatedTicket.description(UPDATED_DESCRIPTION);
+
+        webTestClient
+            .put()
+            .uri(ENTITY_API_URL_ID, updatedTicket.getId())
+            .contentType(MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.IF_MATCH, "\"" + version + "\"")
+            .bodyValue(TestUtil.convertObjectToJsonBytes(updatedTicket))
+            .exchange()
+            .expectStatus()
+            .isEqualTo(412);
+
+        // Validate the concurrent update has not been overwritten
+        Ticket testTicket = ticketRepository.findById(ticket.getId()).block();
+        assertThat(testTicket.getTitle()).isEqualTo(UPDATED_TITLE);
+        assertThat(testTicket.getDescription()).isEqualTo(DEFAULT_DESCRIPTION);
+        assertThat(testTicket.getVersion()).isEqualTo(version + 1);
+    }
+
     @Test
     void putNonExistingTicket() throws Exception {
         int databaseSizeBeforeUpdate = ticketRepository.findAll().collectList().block().size();
@@ -368,6 +849,97 @@ class TicketResourceIT {
         assertThat(testTicket.getDone()).isEqualTo(DEFAULT_DONE);
     }
 
+    @Test
+    void partialUpdateTicketWithPatchKeepsLabels() throws Exception {
+        // Initialize the database
+        Label label = labelRepository.save(LabelResourceIT.createEntity(em)).block();
+        ticketRepository.save(ticket.addLabel(label)).block();
+
+        // Update the ticket using partial update, without labels
+        Ticket partialUpdatedTicket = new Ticket();
+        partialUpdatedTicket.setId(ticket.getId());
+
+        partialUpdatedTicket.done(UPDATED_DONE);
+
+        webTestClient
+            .patch()
+            .uri(ENTITY_API_URL_ID, partialUpdatedTicket.getId())
+            .contentType(MediaType.valueOf("application/merge-patch+json"))
+            .bodyValue(TestUtil.convertObjectToJsonBytes(partialUpdatedTicket))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals(HttpHeaders.ETAG, "\"" + (ticket.getVersion() + 1) + "\"");
+
+        // Validate the Ticket in the database still has its label
+        Ticket testTicket = ticketRepository.findById(ticket.getId()).block();
+        assertThat(testTicket.getTitle()).isEqualTo(DEFAULT_TITLE);
+        assertThat(testTicket.getDone()).isEqualTo(UPDATED_DONE);
+        assertThat(ticketRepository.findByLabel(label.getId()).collectList().block())
+            .extracting(Ticket::getId)
+            .containsExactly(ticket.getId());
+
+        deleteEntities(em);
+        labelRepository.deleteById(label.getId()).block();
+    }
+
+    @Test
+    void partialUpdateTicketWithEmptyLabelsRemovesLabels() throws Exception {
+        // Initialize the database
+        Label label = labelRepository.save(LabelResourceIT.createEntity(em)).block();
+        ticketRepository.save(ticket.addLabel(label)).block();
+
+        // Update the ticket using partial update, with no labels
+        webTestClient
+            .patch()
+            .uri(ENTITY_API_URL_ID, ticket.getId())
+            .contentType(MediaType.valueOf("application/merge-patch+json"))
+            .bodyValue("{\"id\":" + ticket.getId() + ",\"labels\":[]}")
+            .exchange()
+            .expectStatus()
+            .isOk();
+
+        // Validate the Ticket in the database has no label anymore
+        Ticket testTicket = ticketRepository.findById(ticket.getId()).block();
+        assertThat(testTicket.getTitle()).isEqualTo(DEFAULT_TITLE);
+        assertThat(ticketRepository.findByLabel(label.getId()).collectList().block()).isEmpty();
+
+        deleteEntities(em);
+        labelRepository.deleteById(label.getId()).block();
+    }
+
+    @Test
+    void partialUpdateTicketWithMinimalResponse() throws Exception {
+        // Initialize the database
+        ticketRepository.save(ticket).block();
+
+        Ticket partialUpdatedTicket = new Ticket();
+        partialUpdatedTicket.setId(ticket.getId());
+
+        partialUpdatedTicket.title(UPDATED_TITLE);
+
+        webTestClient
+            .patch()
+            .uri(ENTITY_API_URL_ID, partialUpdatedTicket.getId())
+            .header(HttpHeaders.IF_MATCH, "\"" + ticket.getVersion() + "\"")
+            .header("Prefer", "return=minimal")
+            .contentType(MediaType.valueOf("application/merge-patch+json"))
+            .bodyValue(TestUtil.convertObjectToJsonBytes(partialUpdatedTicket))
+            .exchange()
+            .expectStatus()
+            .isNoContent()
+            .expectHeader()
+            .valueEquals(HttpHeaders.ETAG, "\"" + (ticket.getVersion() + 1) + "\"")
+            .expectBody()
+            .isEmpty();
+
+        // Validate the Ticket in the database
+        Ticket testTicket = ticketRepository.findById(ticket.getId()).block();
+        assertThat(testTicket.getTitle()).isEqualTo(UPDATED_TITLE);
+        assertThat(testTicket.getVersion()).isEqualTo(ticket.getVersion() + 1);
+    }
+
     @Test
     void fullUpdateTicketWithPatch() throws Exception {
         // Initialize the database
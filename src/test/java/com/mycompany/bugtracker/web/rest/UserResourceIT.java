@@ -12,8 +12,10 @@ import com.mycompany.bugtracker.security.AuthoritiesConstants;
 import com.mycompany.bugtracker.service.EntityManager;
 import com.mycompany.bugtracker.service.dto.AdminUserDTO;
 import com.mycompany.bugtracker.service.dto.UserDTO;
+import com.mycompany.bugtracker.service.dto.UserProvisioningResultDTO;
 import com.mycompany.bugtracker.service.mapper.UserMapper;
 import com.mycompany.bugtracker.web.rest.vm.ManagedUserVM;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.*;
 import java.util.function.Consumer;
@@ -253,6 +255,90 @@ class UserResourceIT {
         assertPersistedUsers(users -> assertThat(users).hasSize(databaseSizeBeforeCreate));
     }
 
+    @Test
+    void createUsersInBulk() throws Exception {
+        // Initialize the database
+        userRepository.save(user).block();
+
+        List<AdminUserDTO> userDTOs = new ArrayList<>();
+        for (String login : List.of("bulkuser1", DEFAULT_LOGIN, "bulkuser2", "bulkuser3")) {
+            AdminUserDTO userDTO = new AdminUserDTO();
+            userDTO.setLogin(login);
+            userDTO.setEmail(login + "@localhost");
+            userDTO.setLangKey(DEFAULT_LANGKEY);
+            userDTO.setAuthorities(Collections.singleton(AuthoritiesConstants.USER));
+            userDTOs.add(userDTO);
+        }
+        // email already used earlier in the stream
+        userDTOs.get(3).setEmail("bulkuser1@localhost");
+        StringBuilder body = new StringBuilder();
+        for (AdminUserDTO userDTO : userDTOs) {
+            body.append(new String(TestUtil.convertObjectToJsonBytes(userDTO), StandardCharsets.UTF_8)).append('\n');
+        }
+
+        List<UserProvisioningResultDTO> results = webTestClient
+            .post()
+            .uri("/api/admin/users/bulk")
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .accept(MediaType.APPLICATION_NDJSON)
+            .bodyValue(body.toString())
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .returnResult(UserProvisioningResultDTO.class)
+            .getResponseBody()
+            .collectList()
+            .block();
+
+        assertThat(results)
+            .extracting(UserProvisioningResultDTO::getStatus)
+            .containsExactly(
+                UserProvisioningResultDTO.Status.CREATED,
+                UserProvisioningResultDTO.Status.LOGIN_ALREADY_USED,
+                UserProvisioningResultDTO.Status.CREATED,
+                UserProvisioningResultDTO.Status.EMAIL_ALREADY_USED
+            );
+        assertThat(results.get(0).getUser().getId()).isNotNull();
+        assertThat(results.get(1).getUser()).isNull();
+
+        User testUser = userRepository.findOneWithAuthoritiesByLogin("bulkuser2").block();
+        assertThat(testUser).isNotNull();
+        assertThat(testUser.getId()).isEqualTo(results.get(2).getUser().getId());
+        assertThat(testUser.getEmail()).isEqualTo("bulkuser2@localhost");
+        assertThat(testUser.isActivated()).isTrue();
+        assertThat(testUser.getPassword()).hasSize(60);
+        assertThat(testUser.getAuthorities()).extracting(Authority::getName).containsExactly(AuthoritiesConstants.USER);
+        assertThat(userRepository.findOneByLogin("bulkuser3").blockOptional()).isEmpty();
+    }
+
+    @Test
+    void createUsersInBulkWithInvalidUser() throws Exception {
+        List<AdminUserDTO> userDTOs = new ArrayList<>();
+        for (String login : Arrays.asList("bulkuser1", null)) {
+            AdminUserDTO userDTO = new AdminUserDTO();
+            userDTO.setLogin(login);
+            userDTO.setEmail("bulkuser" + userDTOs.size() + "@localhost");
+            userDTO.setLangKey(DEFAULT_LANGKEY);
+            userDTOs.add(userDTO);
+        }
+        StringBuilder body = new StringBuilder();
+        for (AdminUserDTO userDTO : userDTOs) {
+            body.append(new String(TestUtil.convertObjectToJsonBytes(userDTO), StandardCharsets.UTF_8)).append('\n');
+        }
+
+        webTestClient
+            .post()
+            .uri("/api/admin/users/bulk")
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .accept(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_PROBLEM_JSON)
+            .bodyValue(body.toString())
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+
+        assertThat(userRepository.findOneByLogin("bulkuser1").blockOptional()).isEmpty();
+    }
+
     @Test
     void getAllUsers() {
         // Initialize the database